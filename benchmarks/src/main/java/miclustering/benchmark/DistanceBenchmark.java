@@ -0,0 +1,67 @@
+package miclustering.benchmark;
+
+import miclustering.distances.MIDistance;
+import miclustering.utils.BagStore;
+import miclustering.utils.LoadByName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import weka.core.Utils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance between two bags, for every distance and several bag sizes and numbers of attributes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class DistanceBenchmark {
+    private static final int NUM_BAGS = 64;
+
+    // Class of the distance followed by its options
+    @Param({"HausdorffDistance -hausdorff-type 0", "HausdorffDistance -hausdorff-type 1",
+            "HausdorffDistance -hausdorff-type 2", "HausdorffDistance -hausdorff-type 3",
+            "EarthMoversDistance", "CauchySchwarzDistance", "MahalanobisDistance"})
+    public String distance;
+
+    @Param({"4", "16", "64"})
+    public int instancesPerBag;
+
+    @Param({"8", "64"})
+    public int numAttributes;
+
+    private BagStore store;
+    private MIDistance distanceFunction;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        store = BagStore.of(SyntheticDataset.generate(NUM_BAGS, instancesPerBag, numAttributes,
+                SyntheticDataset.NUM_CLUSTERS, SyntheticDataset.SEED));
+        String[] spec = Utils.splitOptions(distance);
+        distanceFunction = (MIDistance) LoadByName.distanceFunction("miclustering.distances." + spec[0],
+                Arrays.copyOfRange(spec, 1, spec.length));
+    }
+
+    @Benchmark
+    public void distance(Blackhole blackhole) {
+        // Consecutive pairs of bags, so that every call measures a different pair
+        int i = next;
+        next = (i + 1) % store.numBags();
+        blackhole.consume(distanceFunction.distance(store, i, next));
+    }
+}
@@ -0,0 +1,55 @@
+package miclustering.benchmark;
+
+import miclustering.utils.DistancesMatrix;
+import miclustering.utils.LoadByName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weka.core.DistanceFunction;
+import weka.core.Instances;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computation of the distances matrix of a dataset with the Hausdorff distance.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class DistancesMatrixBenchmark {
+    @Param({"250", "1000"})
+    public int numBags;
+
+    // Maximal Hausdorff is symmetric and only computes half the matrix, average Hausdorff computes all of it
+    @Param({"0", "3"})
+    public int hausdorffType;
+
+    @Param({"false", "true"})
+    public boolean parallelize;
+
+    private Instances dataset;
+    private DistanceFunction distanceFunction;
+
+    @Setup
+    public void setup() {
+        dataset = SyntheticDataset.generate(numBags);
+        distanceFunction = LoadByName.distanceFunction("miclustering.distances.HausdorffDistance",
+                new String[]{"-hausdorff-type", String.valueOf(hausdorffType)});
+    }
+
+    @Benchmark
+    public double[][] compute() {
+        return new DistancesMatrix().compute(dataset, distanceFunction, parallelize);
+    }
+}
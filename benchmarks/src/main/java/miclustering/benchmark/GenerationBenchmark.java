@@ -0,0 +1,120 @@
+package miclustering.benchmark;
+
+import jclec.AlgorithmEvent;
+import jclec.IAlgorithmListener;
+import jclec.algorithm.PopulationAlgorithm;
+import miclustering.algorithms.evolutionary.CHCMIClustering;
+import miclustering.algorithms.evolutionary.MIGKA;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One generation of MIGKA, with twcv as fitness, and of CHCMIClustering, with the Davies-Bouldin index. Every call
+ * runs one more generation of the same population, through the execute()/pause() cycle of the algorithm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+    private static final int POPULATION_SIZE = 20;
+
+    @Param({"MIGKA", "CHCMIClustering"})
+    public String algorithmName;
+
+    @Param({"250", "1000"})
+    public int numBags;
+
+    private PopulationAlgorithm algorithm;
+
+    @Setup
+    public void setup() throws IOException {
+        switch (algorithmName) {
+            case "MIGKA":
+                XMLConfiguration settings = algorithmSettings("twcv");
+                settings.addProperty("parents-selector[@type]", "jclec.selector.RouletteSelector");
+                settings.addProperty("mutator.mut-prob", "0.9");
+                settings.addProperty("mutator.decorated[@type]", "miclustering.algorithms.evolutionary.utils.ClusteringMutator");
+                settings.addProperty("mutator.decorated[@locus-mut-prob]", "0.7");
+                settings.addProperty("kmeans-operator[@mut-prob]", "0.1");
+                algorithm = new MIGKA();
+                algorithm.configure(settings);
+                break;
+            case "CHCMIClustering":
+                settings = algorithmSettings("db");
+                settings.addProperty("cluster-mutator[@mut-prob]", "0.8");
+                settings.addProperty("cluster-mutator[@locus-mut-prob]", "0.7");
+                settings.addProperty("kmeans-operator[@mut-prob]", "0.2");
+                settings.addProperty("recombinator[@type]", "jclec.intarray.rec.OnePointCrossover");
+                settings.addProperty("number-of-survivors", "5");
+                settings.addProperty("distance[@type]", "jclec.intarray.HammingDistance");
+                algorithm = new CHCMIClustering();
+                algorithm.configure(settings);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + algorithmName);
+        }
+        algorithm.addListener(new IAlgorithmListener() {
+            @Override
+            public void algorithmStarted(AlgorithmEvent event) {
+            }
+
+            @Override
+            public void iterationCompleted(AlgorithmEvent event) {
+                event.getAlgorithm().pause();
+            }
+
+            @Override
+            public void algorithmFinished(AlgorithmEvent event) {
+            }
+
+            @Override
+            public void algorithmTerminated(AlgorithmEvent event) {
+            }
+        });
+        // The first execution creates and evaluates the initial population before its first generation
+        algorithm.execute();
+    }
+
+    @Benchmark
+    public void generation(Blackhole blackhole) {
+        algorithm.execute();
+        blackhole.consume(algorithm.getInhabitants());
+    }
+
+    /**
+     * Settings shared by the algorithms, as they are read from the experiment files.
+     */
+    private XMLConfiguration algorithmSettings(String metric) throws IOException {
+        File datasetFile = SyntheticDataset.save(SyntheticDataset.generate(numBags));
+        XMLConfiguration settings = new XMLConfiguration();
+        settings.addProperty("rand-gen-factory[@type]", "jclec.util.random.RanecuFactory");
+        settings.addProperty("rand-gen-factory[@seed]", Long.toString(SyntheticDataset.SEED));
+        settings.addProperty("population-size", Integer.toString(POPULATION_SIZE));
+        settings.addProperty("evaluator[@type]", "miclustering.algorithms.evolutionary.utils.ClusteringEvaluator");
+        settings.addProperty("evaluator.dataset", datasetFile.getPath());
+        settings.addProperty("evaluator.num-clusters", Integer.toString(SyntheticDataset.NUM_CLUSTERS));
+        settings.addProperty("evaluator.distance[@type]", "HausdorffDistance");
+        settings.addProperty("evaluator.distance.config", "-hausdorff-type 0");
+        settings.addProperty("evaluator.metric", metric);
+        settings.addProperty("provider[@type]", "jclec.intarray.IntArrayCreator");
+        return settings;
+    }
+}
@@ -0,0 +1,102 @@
+package miclustering.benchmark;
+
+import miclustering.evaluators.DBCV;
+import miclustering.evaluators.DaviesBouldinIndex;
+import miclustering.evaluators.FastTotalWithinClusterValidation;
+import miclustering.evaluators.RMSStdDev;
+import miclustering.evaluators.S_DbwIndex;
+import miclustering.evaluators.SilhouetteIndex;
+import miclustering.evaluators.TotalWithinClusterVariation;
+import miclustering.evaluators.XieBeniIndex;
+import miclustering.utils.LoadByName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weka.core.DistanceFunction;
+import weka.core.Instances;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computation of each validity index for a random assignment of the bags.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+    @Param({"rmssd", "silhouette", "xb", "db", "sdbw", "dbcv", "twcv", "ftwcv"})
+    public String index;
+
+    @Param({"250", "1000"})
+    public int numBags;
+
+    @Param({"false", "true"})
+    public boolean parallelize;
+
+    private Callable<?> computeIndex;
+
+    @Setup
+    public void setup() {
+        Instances dataset = SyntheticDataset.generate(numBags);
+        DistanceFunction distanceFunction = LoadByName.distanceFunction("miclustering.distances.HausdorffDistance",
+                new String[]{"-hausdorff-type", "0"});
+        int[] assignments = SyntheticDataset.randomAssignments(numBags);
+        int[] bagsPerCluster = new int[SyntheticDataset.NUM_CLUSTERS];
+        for (int assignment : assignments)
+            bagsPerCluster[assignment]++;
+        int k = SyntheticDataset.NUM_CLUSTERS;
+        switch (index) {
+            case "rmssd":
+                RMSStdDev rmssd = new RMSStdDev(dataset, k, distanceFunction, parallelize);
+                computeIndex = () -> rmssd.computeIndex(assignments, bagsPerCluster, parallelize);
+                break;
+            case "silhouette":
+                SilhouetteIndex silhouette = new SilhouetteIndex(dataset, k, distanceFunction, parallelize);
+                computeIndex = () -> silhouette.computeIndex(assignments, bagsPerCluster);
+                break;
+            case "xb":
+                XieBeniIndex xb = new XieBeniIndex(dataset, k, distanceFunction, parallelize);
+                computeIndex = () -> xb.computeIndex(assignments, bagsPerCluster, parallelize);
+                break;
+            case "db":
+                DaviesBouldinIndex db = new DaviesBouldinIndex(dataset, k, distanceFunction, parallelize);
+                computeIndex = () -> db.computeIndex(assignments, bagsPerCluster, parallelize);
+                break;
+            case "sdbw":
+                S_DbwIndex sdbw = new S_DbwIndex(dataset, k, distanceFunction, parallelize);
+                computeIndex = () -> sdbw.computeIndex(assignments);
+                break;
+            case "dbcv":
+                DBCV dbcv = new DBCV(dataset, distanceFunction, k, parallelize);
+                computeIndex = () -> dbcv.computeIndex(assignments, bagsPerCluster);
+                break;
+            case "twcv":
+                TotalWithinClusterVariation twcv = new TotalWithinClusterVariation(dataset, k, distanceFunction, parallelize);
+                computeIndex = () -> twcv.computeIndex(assignments, parallelize);
+                break;
+            case "ftwcv":
+                FastTotalWithinClusterValidation ftwcv = new FastTotalWithinClusterValidation(dataset, k);
+                computeIndex = () -> ftwcv.computeIndex(assignments, bagsPerCluster);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown index " + index);
+        }
+    }
+
+    @Benchmark
+    public Object computeIndex() throws Exception {
+        return computeIndex.call();
+    }
+}
@@ -0,0 +1,53 @@
+package miclustering.benchmark;
+
+import miclustering.algorithms.OneStepKMeans;
+import miclustering.utils.LoadByName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weka.core.DistanceFunction;
+import weka.core.Instances;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One step of k-means from a random assignment of the bags, as done by the k-means operator of the algorithms.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class OneStepKMeansBenchmark {
+    @Param({"250", "1000"})
+    public int numBags;
+
+    @Param({"false", "true"})
+    public boolean parallelize;
+
+    private OneStepKMeans kMeans;
+    private int[] assignments;
+
+    @Setup
+    public void setup() {
+        Instances dataset = SyntheticDataset.generate(numBags);
+        DistanceFunction distanceFunction = LoadByName.distanceFunction("miclustering.distances.HausdorffDistance",
+                new String[]{"-hausdorff-type", "0"});
+        kMeans = new OneStepKMeans(dataset, distanceFunction, SyntheticDataset.NUM_CLUSTERS, false);
+        assignments = SyntheticDataset.randomAssignments(numBags);
+    }
+
+    @Benchmark
+    public int[] evaluate() {
+        return kMeans.evaluate(assignments, parallelize);
+    }
+}
@@ -0,0 +1,107 @@
+package miclustering.benchmark;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffSaver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Multi-instance datasets generated in memory for the benchmarks, with the same layout as the real ones: bag id,
+ * relational attribute with the instances of the bag and class.
+ * <p>
+ * Each bag belongs to one of numClasses groups, and its instances are drawn from a normal distribution around the
+ * center of its group. The number of instances of each bag varies uniformly between half and one and a half times the
+ * given size, so that the distances do not always work with bags of the same size.
+ */
+public class SyntheticDataset {
+    // Shape of the datasets of the benchmarks that work with whole clusterings
+    public static final int DEFAULT_INSTANCES = 8;
+    public static final int DEFAULT_ATTRIBUTES = 16;
+    public static final int NUM_CLUSTERS = 4;
+    public static final long SEED = 1;
+
+    public static Instances generate(int numBags) {
+        return generate(numBags, DEFAULT_INSTANCES, DEFAULT_ATTRIBUTES, NUM_CLUSTERS, SEED);
+    }
+
+    public static Instances generate(int numBags, int instancesPerBag, int numAttributes, int numClasses, long seed) {
+        Random random = new Random(seed);
+
+        ArrayList<Attribute> instanceAttributes = new ArrayList<>(numAttributes);
+        for (int a = 0; a < numAttributes; ++a)
+            instanceAttributes.add(new Attribute("f" + a));
+        Instances header = new Instances("bag", instanceAttributes, 0);
+
+        ArrayList<String> ids = new ArrayList<>(numBags);
+        for (int i = 0; i < numBags; ++i)
+            ids.add("b" + i);
+        ArrayList<String> classes = new ArrayList<>(numClasses);
+        for (int c = 0; c < numClasses; ++c)
+            classes.add(String.valueOf(c));
+
+        ArrayList<Attribute> attributes = new ArrayList<>(3);
+        attributes.add(new Attribute("bag_id", ids));
+        attributes.add(new Attribute("bag", header));
+        attributes.add(new Attribute("class", classes));
+        String name = "synthetic-" + numBags + "x" + instancesPerBag + "x" + numAttributes;
+        Instances dataset = new Instances(name, attributes, numBags);
+        dataset.setClassIndex(2);
+
+        double[][] centers = new double[numClasses][numAttributes];
+        for (int c = 0; c < numClasses; ++c) {
+            for (int a = 0; a < numAttributes; ++a)
+                centers[c][a] = 4 * random.nextDouble() - 2;
+        }
+
+        int minInstances = Math.max(1, instancesPerBag / 2);
+        int maxInstances = Math.max(minInstances, instancesPerBag + instancesPerBag / 2);
+        for (int i = 0; i < numBags; ++i) {
+            int label = random.nextInt(numClasses);
+            int size = minInstances + random.nextInt(maxInstances - minInstances + 1);
+            Instances bag = new Instances(header, size);
+            for (int j = 0; j < size; ++j) {
+                double[] values = new double[numAttributes];
+                for (int a = 0; a < numAttributes; ++a)
+                    values[a] = centers[label][a] + random.nextGaussian();
+                bag.add(new DenseInstance(1.0D, values));
+            }
+            Instance instance = new DenseInstance(3);
+            instance.setDataset(dataset);
+            instance.setValue(0, i);
+            instance.setValue(1, dataset.attribute(1).addRelation(bag));
+            instance.setValue(2, label);
+            dataset.add(instance);
+        }
+        return dataset;
+    }
+
+    /**
+     * Assignment of the bags to NUM_CLUSTERS clusters, with at least one bag in each of them.
+     */
+    public static int[] randomAssignments(int numBags) {
+        Random random = new Random(SEED);
+        int[] assignments = new int[numBags];
+        for (int i = 0; i < numBags; ++i)
+            assignments[i] = i < NUM_CLUSTERS ? i : random.nextInt(NUM_CLUSTERS);
+        return assignments;
+    }
+
+    /**
+     * Writes the dataset to a temporary ARFF file, for the algorithms that load the dataset from its path.
+     */
+    public static File save(Instances dataset) throws IOException {
+        File file = File.createTempFile(dataset.relationName() + "-", ".arff");
+        file.deleteOnExit();
+        ArffSaver saver = new ArffSaver();
+        saver.setInstances(dataset);
+        saver.setFile(file);
+        saver.writeBatch();
+        return file;
+    }
+}
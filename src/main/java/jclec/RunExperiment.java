@@ -1,5 +1,7 @@
 package jclec;
 
+import jclec.algorithm.islands.IslandModel;
+import jclec.util.JobScheduler;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.XMLConfiguration;
 
@@ -38,10 +40,14 @@ public class RunExperiment {
             System.out.println("Initializing job");
 
             // Expand the processes and execute them
+            JobScheduler scheduler = new JobScheduler();
             for (String experiment : builder.buildExperiment(args[0])) {
-                System.out.println("Algorithm started");
-                executeJob(experiment);
-                System.out.println("Algorithm finished");
+                addJob(scheduler, experiment);
+            }
+            try {
+                scheduler.run();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
             }
             double time = (System.nanoTime() - start) * 1e-9;
             System.out.println("Job finished");
@@ -50,13 +56,13 @@ public class RunExperiment {
     }
 
     /**
-     * Execute experiment
+     * Add an experiment to the scheduler, grouped with the rest of experiments over the same dataset
      *
+     * @param scheduler   Scheduler of the job
      * @param jobFilename Configuration file of the experiment
      */
 
-    @SuppressWarnings("unchecked")
-    private static void executeJob(String jobFilename) {
+    private static void addJob(JobScheduler scheduler, String jobFilename) {
         // Try open job file
         File jobFile = new File(jobFilename);
         if (jobFile.exists()) {
@@ -65,24 +71,63 @@ public class RunExperiment {
                 XMLConfiguration jobConf = new XMLConfiguration(jobFile);
                 // Process header
                 String header = "process";
-                // Create and configure algorithms
-                String aname = jobConf.getString(header + "[@algorithm-type]");
-                Class<IAlgorithm> aclass = (Class<IAlgorithm>) Class.forName(aname);
-                IAlgorithm algorithm = aclass.getDeclaredConstructor().newInstance();
-                // Configure runner
-                if (algorithm instanceof IConfigure) {
-                    ((IConfigure) algorithm).configure(jobConf.subset(header));
+                // Dataset of the job and memory estimated for it and for the job populations
+                String dataset = jobConf.getString(header + ".evaluator.dataset", "");
+                long datasetMemory = 0;
+                long jobMemory = 0;
+                if (!dataset.isEmpty()) {
+                    File datasetFile = new File(dataset);
+                    long examples = JobScheduler.countExamples(datasetFile);
+                    int populationSize = jobConf.getInt(header + ".population-size", 100);
+                    int k = jobConf.getInt(header + ".evaluator.num-clusters", jobConf.getInt(header + ".evaluator.kmax", 2));
+                    datasetMemory = JobScheduler.estimateDatasetMemory(datasetFile);
+                    // Genotypes and evaluation states of parents, sons and survivors
+                    jobMemory = 3L * populationSize * examples * 8 * (k + 1);
+                    // Islands in threads keep their populations in this process
+                    if (!"processes".equals(jobConf.getString(header + ".islands.mode", "threads")))
+                        jobMemory *= Math.max(1, jobConf.getInt(header + ".islands.number-of-islands", 1));
                 }
-                // Execute algorithm runner
-                algorithm.execute();
+                scheduler.add(jobFilename, dataset, datasetMemory, jobMemory, () -> executeJob(jobConf, jobFilename, header));
             } catch (ConfigurationException e) {
                 System.out.println("Configuration exception ");
-            } catch (Exception e) {
-                e.printStackTrace();
             }
         } else {
             System.out.println("Job file not found");
             System.exit(1);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Execute experiment
+     *
+     * @param jobConf     Configuration of the experiment
+     * @param jobFilename Configuration file of the experiment
+     * @param header      Process header
+     */
+
+    @SuppressWarnings("unchecked")
+    private static void executeJob(XMLConfiguration jobConf, String jobFilename, String header) {
+        try {
+            // Island model of the algorithm
+            if (jobConf.getInt(header + ".islands.number-of-islands", 1) > 1) {
+                IslandModel model = new IslandModel();
+                model.setJobFilename(jobFilename);
+                model.configure(jobConf.configurationAt(header));
+                model.execute();
+                return;
+            }
+            // Create and configure algorithms
+            String aname = jobConf.getString(header + "[@algorithm-type]");
+            Class<IAlgorithm> aclass = (Class<IAlgorithm>) Class.forName(aname);
+            IAlgorithm algorithm = aclass.getDeclaredConstructor().newInstance();
+            // Configure runner
+            if (algorithm instanceof IConfigure) {
+                ((IConfigure) algorithm).configure(jobConf.subset(header));
+            }
+            // Execute algorithm runner
+            algorithm.execute();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package jclec.algorithm.islands;
+
+import jclec.IIndividual;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Migration channel that keeps the migrants received from each source island in order of arrival until the island
+ * asks for them.
+ */
+
+public abstract class AbstractMigrationChannel implements IMigrationChannel {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Marks the end of the migrants of a source */
+    private static final List<IIndividual> END = new ArrayList<>(0);
+
+    /** Island of this end of the channel */
+    protected final int island;
+
+    /** Migrants received and not yet taken, by source island */
+    private final Map<Integer, BlockingQueue<List<IIndividual>>> inbox = new HashMap<>();
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Channel of an island.
+     *
+     * @param island  Island of this end of the channel
+     * @param sources Islands from which it receives migrants
+     */
+
+    protected AbstractMigrationChannel(int island, int[] sources) {
+        this.island = island;
+        for (int source : sources)
+            inbox.put(source, new LinkedBlockingQueue<>());
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    public int getIsland() {
+        return island;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    public List<IIndividual> immigrate(int source) throws InterruptedException {
+        BlockingQueue<List<IIndividual>> queue = inbox(source);
+        List<IIndividual> migrants = queue.take();
+        if (migrants == END) {
+            // Later calls find the end too
+            queue.add(END);
+            return null;
+        }
+        return migrants;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // -------------------------------------------- Protected methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Keeps migrants received from an island.
+     */
+
+    protected void deliver(int source, List<IIndividual> migrants) {
+        inbox(source).add(migrants);
+    }
+
+    /**
+     * Notes that an island will not send more migrants.
+     */
+
+    protected void deliverEnd(int source) {
+        inbox(source).add(END);
+    }
+
+    /**
+     * Notes that no island will send more migrants.
+     */
+
+    protected void deliverEnd() {
+        for (BlockingQueue<List<IIndividual>> queue : inbox.values())
+            queue.add(END);
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    private BlockingQueue<List<IIndividual>> inbox(int source) {
+        BlockingQueue<List<IIndividual>> queue = inbox.get(source);
+        if (queue == null)
+            throw new IllegalArgumentException("Island " + source + " does not send migrants to island " + island);
+        return queue;
+    }
+}
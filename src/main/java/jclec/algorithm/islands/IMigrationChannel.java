@@ -0,0 +1,39 @@
+package jclec.algorithm.islands;
+
+import jclec.IIndividual;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Connection of an island with the islands it exchanges migrants with.
+ * <p>
+ * Migrants travel with their fitness, so the receiving island does not evaluate them again.
+ */
+
+public interface IMigrationChannel extends Closeable {
+    /**
+     * Sends migrants to all the islands that receive migrants from this one. They are copied, so the sender keeps
+     * its own individuals.
+     *
+     * @param migrants Evaluated individuals
+     */
+
+    void emigrate(List<IIndividual> migrants) throws IOException;
+
+    /**
+     * Waits for the next migrants sent by an island.
+     *
+     * @param source Sending island
+     * @return the migrants, or null if the source island has finished and will not send more
+     */
+
+    List<IIndividual> immigrate(int source) throws IOException, InterruptedException;
+
+    /**
+     * Tells the receiving islands that this one will not send more migrants. It may be called more than once.
+     */
+
+    void close() throws IOException;
+}
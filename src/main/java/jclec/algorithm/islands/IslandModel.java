@@ -0,0 +1,280 @@
+package jclec.algorithm.islands;
+
+import jclec.IConfigure;
+import jclec.algorithm.PopulationAlgorithm;
+import jclec.util.random.AbstractRandGenFactory;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationRuntimeException;
+import org.apache.commons.configuration.ConfigurationUtils;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Island model of a population algorithm: several populations evolve at the same time, each one with its own instance
+ * of the algorithm, and every few generations they send copies of their best individuals to other islands, that
+ * replace their worst ones with them.
+ * <p>
+ * The islands are configured with the same process section of the experiment, which holds the island settings in an
+ * <code>islands</code> element. Each island uses a different seed and its own report titles, suffixed with its number.
+ * The islands run in threads of this process, or in separate processes of the same machine that exchange their
+ * migrants through local sockets.
+ */
+
+public class IslandModel implements IConfigure {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------- Serialization constant
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Generated by Eclipse
+     */
+
+    private static final long serialVersionUID = -4918207625463790318L;
+
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Distance between the seeds of consecutive islands */
+    private static final int SEED_STRIDE = 1000;
+
+    /** System property with the number of workers of each process */
+    private static final String PARALLELISM_PROPERTY = "jclec.parallelism";
+
+    /** Settings of the process, islands included */
+    private HierarchicalConfiguration configuration;
+
+    /** Number of islands */
+    private int numberOfIslands;
+
+    /** Islands to which each island sends its migrants */
+    private MigrationTopology topology;
+
+    /** Generations between migrations */
+    private int migrationInterval;
+
+    /** Individuals sent by each island at each migration */
+    private int numberOfMigrants;
+
+    /** Run each island in its own process? */
+    private boolean separateProcesses;
+
+    /** Configuration file of the experiment, read by the island processes */
+    private String jobFilename;
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------- Setting and getting properties
+    /////////////////////////////////////////////////////////////////
+
+    public int getNumberOfIslands() {
+        return numberOfIslands;
+    }
+
+    public MigrationTopology getTopology() {
+        return topology;
+    }
+
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    public int getNumberOfMigrants() {
+        return numberOfMigrants;
+    }
+
+    public void setJobFilename(String jobFilename) {
+        this.jobFilename = jobFilename;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    // IConfigure interface
+
+    /**
+     * Configuration parameters for IslandModel class are the ones of the algorithm of the islands, and in the
+     * <code>islands</code> element:
+     *
+     * <ul>
+     * <li>
+     * <code>number-of-islands (int)</code></p>
+     * Number of islands
+     * </li><li>
+     * <code>topology (ring, bidirectional-ring or complete)</code></p>
+     * Islands to which each island sends its migrants (default: ring)
+     * </li><li>
+     * <code>migration-interval (int)</code></p>
+     * Generations between migrations (default: 10)
+     * </li><li>
+     * <code>migrants (int)</code></p>
+     * Individuals sent by each island at each migration (default: 1)
+     * </li><li>
+     * <code>mode (threads or processes)</code></p>
+     * Run the islands in threads of this process, or each one in its own process (default: threads)
+     * </li>
+     * </ul>
+     */
+
+    public void configure(Configuration settings) {
+        // Listeners and other repeated elements are only kept apart by hierarchical configurations
+        configuration = new HierarchicalConfiguration(ConfigurationUtils.convertToHierarchical(settings));
+        numberOfIslands = configuration.getInt("islands.number-of-islands", 1);
+        if (numberOfIslands < 1)
+            throw new ConfigurationRuntimeException("Illegal number of islands " + numberOfIslands);
+        topology = MigrationTopology.of(configuration.getString("islands.topology", "ring"));
+        migrationInterval = configuration.getInt("islands.migration-interval", 10);
+        if (migrationInterval < 1)
+            throw new ConfigurationRuntimeException("Illegal migration interval " + migrationInterval);
+        numberOfMigrants = configuration.getInt("islands.migrants", 1);
+        if (numberOfMigrants < 0)
+            throw new ConfigurationRuntimeException("Illegal number of migrants " + numberOfMigrants);
+        String mode = configuration.getString("islands.mode", "threads");
+        if (!mode.equals("threads") && !mode.equals("processes"))
+            throw new ConfigurationRuntimeException("Illegal island mode " + mode);
+        separateProcesses = mode.equals("processes");
+    }
+
+    /**
+     * Runs all the islands and waits for them to finish.
+     */
+
+    public void execute() {
+        if (separateProcesses)
+            executeProcesses();
+        else
+            executeThreads();
+    }
+
+    /**
+     * Algorithm of an island, configured with its own seed and report titles.
+     *
+     * @param island Number of the island
+     */
+
+    @SuppressWarnings("unchecked")
+    public PopulationAlgorithm createIsland(int island) {
+        HierarchicalConfiguration islandSettings = new HierarchicalConfiguration(configuration);
+        islandSettings.clearTree("islands");
+        int seed = islandSettings.getInt("rand-gen-factory[@seed]", AbstractRandGenFactory.DEFAULT_SEED);
+        islandSettings.setProperty("rand-gen-factory[@seed]", seed + island * SEED_STRIDE);
+        int numberOfListeners = islandSettings.getList("listener[@type]").size();
+        for (int i = 0; i < numberOfListeners; i++) {
+            String key = "listener(" + i + ").report-title";
+            if (islandSettings.containsKey(key))
+                islandSettings.setProperty(key, islandSettings.getString(key) + "_island" + island);
+        }
+        try {
+            String algorithmClassname = islandSettings.getString("[@algorithm-type]");
+            Class<? extends PopulationAlgorithm> algorithmClass =
+                    (Class<? extends PopulationAlgorithm>) Class.forName(algorithmClassname);
+            PopulationAlgorithm algorithm = algorithmClass.getDeclaredConstructor().newInstance();
+            algorithm.configure(islandSettings);
+            return algorithm;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new ConfigurationRuntimeException("Illegal island algorithm classname", e);
+        } catch (ReflectiveOperationException e) {
+            throw new ConfigurationRuntimeException("Problems creating an instance of island algorithm", e);
+        }
+    }
+
+    /**
+     * Runs the algorithm of an island, exchanging migrants through a channel, which is closed when it finishes.
+     *
+     * @param algorithm Algorithm of the island
+     * @param island    Number of the island
+     * @param channel   Connection with the rest of islands
+     */
+
+    public void runIsland(PopulationAlgorithm algorithm, int island, IMigrationChannel channel) {
+        try {
+            algorithm.addListener(new MigrationListener(channel, topology.sources(island, numberOfIslands), migrationInterval, numberOfMigrants));
+            algorithm.execute();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    private void executeThreads() {
+        LocalMigrationChannel[] channels = LocalMigrationChannel.connect(numberOfIslands, topology);
+        List<Thread> threads = new ArrayList<>(numberOfIslands);
+        try {
+            for (int i = 0; i < numberOfIslands; ++i) {
+                int island = i;
+                PopulationAlgorithm algorithm = createIsland(island);
+                threads.add(new Thread(() -> runIsland(algorithm, island, channels[island]), "island-" + island));
+            }
+        } catch (RuntimeException e) {
+            for (LocalMigrationChannel channel : channels)
+                channel.close();
+            throw e;
+        }
+        for (Thread thread : threads)
+            thread.start();
+        try {
+            for (Thread thread : threads)
+                thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void executeProcesses() {
+        if (jobFilename == null)
+            throw new IllegalStateException("Islands in separate processes need the configuration file of the job");
+        try (MigrationHub hub = new MigrationHub(numberOfIslands, topology)) {
+            hub.start();
+            List<Process> processes = new ArrayList<>(numberOfIslands);
+            for (int i = 0; i < numberOfIslands; ++i)
+                processes.add(new ProcessBuilder(islandCommand(i, hub.getPort())).inheritIO().start());
+            for (int i = 0; i < numberOfIslands; ++i) {
+                int status = processes.get(i).waitFor();
+                if (status != 0)
+                    System.err.println("Island " + i + " finished with status " + status);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Command that runs an island in a new JVM with the same options and class path as this one. Unless set, the
+     * processors are split among the islands.
+     */
+
+    private List<String> islandCommand(int island, int port) {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // A debugger can only listen in one process
+            if (!argument.contains("jdwp"))
+                command.add(argument);
+        }
+        if (System.getProperty(PARALLELISM_PROPERTY) == null) {
+            int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / numberOfIslands);
+            command.add("-D" + PARALLELISM_PROPERTY + "=" + parallelism);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(IslandProcess.class.getName());
+        command.add(jobFilename);
+        command.add(String.valueOf(island));
+        command.add(String.valueOf(port));
+        return command;
+    }
+}
@@ -0,0 +1,50 @@
+package jclec.algorithm.islands;
+
+import org.apache.commons.configuration.XMLConfiguration;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Process that runs one island of an {@link IslandModel} in separate processes. It is started by the model with the
+ * configuration file of the experiment, the number of the island and the port of the {@link MigrationHub}.
+ */
+
+public class IslandProcess {
+    /**
+     * Usage message error
+     */
+
+    private static final String USAGE_MES = "\tjclec.algorithm.islands.IslandProcess <experiment file> <island> <hub port>";
+
+    /**
+     * Main method
+     *
+     * @param args Configuration file, island and port of the hub
+     */
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage:" + USAGE_MES);
+            System.exit(1);
+        }
+        int status = 0;
+        try {
+            int island = Integer.parseInt(args[1]);
+            int port = Integer.parseInt(args[2]);
+            IslandModel model = new IslandModel();
+            model.configure(new XMLConfiguration(new File(args[0])).configurationAt("process"));
+            int[] sources = model.getTopology().sources(island, model.getNumberOfIslands());
+            // Connect before loading the dataset, so the hub knows soon about all the islands
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            try (SocketMigrationChannel channel = new SocketMigrationChannel(socket, island, sources)) {
+                model.runIsland(model.createIsland(island), island, channel);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        System.exit(status);
+    }
+}
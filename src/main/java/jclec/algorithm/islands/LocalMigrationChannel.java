@@ -0,0 +1,81 @@
+package jclec.algorithm.islands;
+
+import jclec.IIndividual;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migration channel between islands that run in threads of the same process. Each receiving island gets its own
+ * copies of the migrants, fitness included.
+ */
+
+public class LocalMigrationChannel extends AbstractMigrationChannel {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Channels of the islands that receive migrants from this one */
+    private final LocalMigrationChannel[] targets;
+
+    /** If this island will not send more migrants */
+    private boolean closed;
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    private LocalMigrationChannel(int island, int[] sources, int numberOfTargets) {
+        super(island, sources);
+        this.targets = new LocalMigrationChannel[numberOfTargets];
+    }
+
+    /**
+     * Connects the channels of all the islands of a model.
+     *
+     * @param numberOfIslands Number of islands
+     * @param topology        Islands to which each island sends its migrants
+     * @return the channel of each island
+     */
+
+    public static LocalMigrationChannel[] connect(int numberOfIslands, MigrationTopology topology) {
+        LocalMigrationChannel[] channels = new LocalMigrationChannel[numberOfIslands];
+        for (int i = 0; i < numberOfIslands; ++i)
+            channels[i] = new LocalMigrationChannel(i, topology.sources(i, numberOfIslands), topology.targets(i, numberOfIslands).length);
+        for (int i = 0; i < numberOfIslands; ++i) {
+            int[] targets = topology.targets(i, numberOfIslands);
+            for (int t = 0; t < targets.length; ++t)
+                channels[i].targets[t] = channels[targets[t]];
+        }
+        return channels;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     */
+
+    public void emigrate(List<IIndividual> migrants) {
+        for (LocalMigrationChannel target : targets) {
+            List<IIndividual> copies = new ArrayList<>(migrants.size());
+            for (IIndividual migrant : migrants)
+                copies.add(migrant.copy());
+            target.deliver(island, copies);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        for (LocalMigrationChannel target : targets)
+            target.deliverEnd(island);
+    }
+}
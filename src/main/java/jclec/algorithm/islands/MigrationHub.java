@@ -0,0 +1,177 @@
+package jclec.algorithm.islands;
+
+import jclec.IIndividual;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Relay of the migrants between islands that run in different processes of the same machine. Each island connects
+ * to the hub with a {@link SocketMigrationChannel}, and the hub forwards its messages to the islands that receive
+ * migrants from it, according to the topology of the model.
+ */
+
+public class MigrationHub implements Closeable {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Maximum time to wait for the connection of all the islands, in milliseconds */
+    private static final int CONNECTION_TIMEOUT = 120000;
+
+    /** Number of islands */
+    private final int numberOfIslands;
+
+    /** Islands to which each island sends its migrants */
+    private final MigrationTopology topology;
+
+    /** Socket where the islands connect */
+    private final ServerSocket server;
+
+    /** Connection of each island */
+    private final Socket[] sockets;
+
+    /** Messages to each island */
+    private final DataOutputStream[] outputs;
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Hub listening in a free port of the loopback interface.
+     *
+     * @param numberOfIslands Number of islands
+     * @param topology        Islands to which each island sends its migrants
+     */
+
+    public MigrationHub(int numberOfIslands, MigrationTopology topology) throws IOException {
+        this.numberOfIslands = numberOfIslands;
+        this.topology = topology;
+        this.server = new ServerSocket(0, numberOfIslands, InetAddress.getLoopbackAddress());
+        this.sockets = new Socket[numberOfIslands];
+        this.outputs = new DataOutputStream[numberOfIslands];
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Port where the islands must connect.
+     */
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts accepting the islands in the background. Messages are forwarded once all of them are connected.
+     */
+
+    public void start() {
+        Thread acceptor = new Thread(this::accept, "migration-hub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Stops listening and closes the connections with the islands.
+     */
+
+    public void close() throws IOException {
+        server.close();
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                if (socket != null)
+                    socket.close();
+            }
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    private void accept() {
+        DataInputStream[] inputs = new DataInputStream[numberOfIslands];
+        try {
+            server.setSoTimeout(CONNECTION_TIMEOUT);
+            for (int connected = 0; connected < numberOfIslands; ++connected) {
+                Socket socket = server.accept();
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                int island = in.readInt();
+                if (island < 0 || island >= numberOfIslands || inputs[island] != null)
+                    throw new IOException("Unexpected connection of island " + island);
+                synchronized (sockets) {
+                    sockets[island] = socket;
+                }
+                inputs[island] = in;
+                outputs[island] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            }
+        } catch (IOException e) {
+            // The islands already connected must not wait for the rest
+            e.printStackTrace();
+            try {
+                close();
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        for (int i = 0; i < numberOfIslands; ++i) {
+            int island = i;
+            Thread relay = new Thread(() -> relay(island, inputs[island]), "migration-relay-" + island);
+            relay.setDaemon(true);
+            relay.start();
+        }
+    }
+
+    /**
+     * Forwards the messages of an island until it finishes.
+     */
+
+    private void relay(int island, DataInputStream in) {
+        int[] targets = topology.targets(island, numberOfIslands);
+        try {
+            while (in.readInt() == SocketMigrationChannel.MIGRANTS) {
+                List<IIndividual> migrants = SocketMigrationChannel.readMigrants(in);
+                for (int target : targets)
+                    forward(target, island, migrants);
+            }
+        } catch (IOException e) {
+            // Closed connection: the island will not send more migrants
+        }
+        for (int target : targets)
+            forward(target, island, null);
+    }
+
+    /**
+     * Sends the migrants of an island to another, or the end of its migrants if they are null.
+     */
+
+    private void forward(int target, int source, List<IIndividual> migrants) {
+        DataOutputStream out = outputs[target];
+        synchronized (out) {
+            try {
+                out.writeInt(source);
+                if (migrants != null) {
+                    out.writeInt(SocketMigrationChannel.MIGRANTS);
+                    SocketMigrationChannel.writeMigrants(out, migrants);
+                } else {
+                    out.writeInt(SocketMigrationChannel.END);
+                }
+                out.flush();
+            } catch (IOException e) {
+                // The target has already finished
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package jclec.algorithm.islands;
+
+import jclec.AlgorithmEvent;
+import jclec.IAlgorithmListener;
+import jclec.IFitness;
+import jclec.IIndividual;
+import jclec.algorithm.PopulationAlgorithm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Listener that makes an island of an island model exchange migrants with the rest every few generations.
+ * <p>
+ * At each migration, the island sends copies of its best individuals and then waits for the migrants of each of its
+ * source islands, which replace its worst individuals keeping their fitness. All the islands migrate in the same
+ * generations and take the migrants of their sources in the same order, so the evolution of each island only depends
+ * on its seed and on the migrants it receives, and not on the speed of the rest.
+ */
+
+public class MigrationListener implements IAlgorithmListener {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Connection with the rest of islands */
+    private final IMigrationChannel channel;
+
+    /** Islands from which this island receives migrants */
+    private final int[] sources;
+
+    /** Generations between migrations */
+    private final int migrationInterval;
+
+    /** Individuals sent at each migration */
+    private final int numberOfMigrants;
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Migrations of an island.
+     *
+     * @param channel           Connection with the rest of islands
+     * @param sources           Islands from which the island receives migrants
+     * @param migrationInterval Generations between migrations
+     * @param numberOfMigrants  Individuals sent at each migration
+     */
+
+    public MigrationListener(IMigrationChannel channel, int[] sources, int migrationInterval, int numberOfMigrants) {
+        this.channel = channel;
+        this.sources = sources;
+        this.migrationInterval = migrationInterval;
+        this.numberOfMigrants = numberOfMigrants;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    // IAlgorithmListener interface
+
+    @Override
+    public void algorithmStarted(AlgorithmEvent event) {
+    }
+
+    @Override
+    public void iterationCompleted(AlgorithmEvent event) {
+        PopulationAlgorithm algorithm = (PopulationAlgorithm) event.getAlgorithm();
+        if (algorithm.getGeneration() % migrationInterval != 0)
+            return;
+        try {
+            migrate(algorithm);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            algorithm.terminate();
+        }
+    }
+
+    @Override
+    public void algorithmFinished(AlgorithmEvent event) {
+        close();
+    }
+
+    @Override
+    public void algorithmTerminated(AlgorithmEvent event) {
+        close();
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    private void migrate(PopulationAlgorithm algorithm) throws IOException, InterruptedException {
+        List<IIndividual> inhabitants = new ArrayList<>(algorithm.getInhabitants());
+        // Positions of the inhabitants from the best to the worst
+        Comparator<IFitness> comparator = algorithm.getEvaluator().getComparator();
+        List<Integer> ranking = new ArrayList<>(inhabitants.size());
+        for (int i = 0; i < inhabitants.size(); ++i)
+            ranking.add(i);
+        ranking.sort((a, b) -> comparator.compare(inhabitants.get(b).getFitness(), inhabitants.get(a).getFitness()));
+
+        List<IIndividual> emigrants = new ArrayList<>(numberOfMigrants);
+        for (int r = 0; r < Math.min(numberOfMigrants, ranking.size()); ++r)
+            emigrants.add(inhabitants.get(ranking.get(r)));
+        channel.emigrate(emigrants);
+
+        List<IIndividual> immigrants = new ArrayList<>();
+        for (int source : sources) {
+            List<IIndividual> migrants = channel.immigrate(source);
+            if (migrants != null)
+                immigrants.addAll(migrants);
+        }
+        // Immigrants replace the worst inhabitants
+        for (int r = 0; r < Math.min(immigrants.size(), ranking.size()); ++r)
+            inhabitants.set(ranking.get(ranking.size() - 1 - r), immigrants.get(r));
+        algorithm.setInhabitants(inhabitants);
+    }
+
+    private void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package jclec.algorithm.islands;
+
+import org.apache.commons.configuration.ConfigurationRuntimeException;
+
+import java.util.Arrays;
+
+/**
+ * Islands to which each island of an island model sends its migrants.
+ */
+
+public enum MigrationTopology {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Topologies
+    /////////////////////////////////////////////////////////////////
+
+    /** Each island sends its migrants to the next one */
+    RING {
+        @Override
+        public int[] targets(int island, int numberOfIslands) {
+            return numberOfIslands > 1 ? new int[]{(island + 1) % numberOfIslands} : new int[0];
+        }
+    },
+
+    /** Each island sends its migrants to the previous and the next ones */
+    BIDIRECTIONAL_RING {
+        @Override
+        public int[] targets(int island, int numberOfIslands) {
+            int previous = (island + numberOfIslands - 1) % numberOfIslands;
+            int next = (island + 1) % numberOfIslands;
+            return Arrays.stream(new int[]{previous, next}).filter(i -> i != island).distinct().sorted().toArray();
+        }
+    },
+
+    /** Each island sends its migrants to all the rest */
+    COMPLETE {
+        @Override
+        public int[] targets(int island, int numberOfIslands) {
+            int[] targets = new int[numberOfIslands - 1];
+            for (int i = 0, t = 0; i < numberOfIslands; ++i) {
+                if (i != island)
+                    targets[t++] = i;
+            }
+            return targets;
+        }
+    };
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Islands to which an island sends its migrants, in increasing order.
+     *
+     * @param island          Sending island
+     * @param numberOfIslands Number of islands of the model
+     */
+
+    public abstract int[] targets(int island, int numberOfIslands);
+
+    /**
+     * Islands from which an island receives migrants, in increasing order.
+     *
+     * @param island          Receiving island
+     * @param numberOfIslands Number of islands of the model
+     */
+
+    public int[] sources(int island, int numberOfIslands) {
+        int[] sources = new int[numberOfIslands];
+        int count = 0;
+        for (int i = 0; i < numberOfIslands; ++i) {
+            if (Arrays.binarySearch(targets(i, numberOfIslands), island) >= 0)
+                sources[count++] = i;
+        }
+        return Arrays.copyOf(sources, count);
+    }
+
+    /**
+     * Topology with the given name, as written in the configuration (ring, bidirectional-ring or complete).
+     *
+     * @param name Name of the topology
+     */
+
+    public static MigrationTopology of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationRuntimeException("Illegal migration topology " + name);
+        }
+    }
+}
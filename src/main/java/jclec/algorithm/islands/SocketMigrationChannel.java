@@ -0,0 +1,166 @@
+package jclec.algorithm.islands;
+
+import jclec.IIndividual;
+import jclec.fitness.IValueFitness;
+import jclec.fitness.SimpleValueFitness;
+import jclec.intarray.IntArrayIndividual;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migration channel of an island that runs in its own process, connected to the {@link MigrationHub} of the model
+ * through a local socket.
+ * <p>
+ * Migrants must be <code>IntArrayIndividual</code>s with a value fitness. They travel as their genotype and their
+ * fitness value, and are received with a <code>SimpleValueFitness</code>.
+ */
+
+public class SocketMigrationChannel extends AbstractMigrationChannel {
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------ Message types
+    /////////////////////////////////////////////////////////////////
+
+    /** Message with migrants */
+    static final int MIGRANTS = 0;
+
+    /** The sending island will not send more migrants */
+    static final int END = 1;
+
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Connection with the hub */
+    private final Socket socket;
+
+    /** Messages to the hub */
+    private final DataOutputStream out;
+
+    /** Messages from the hub */
+    private final DataInputStream in;
+
+    /** If this island will not send more migrants */
+    private boolean closed;
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Channel of an island through a socket connected to the hub of the model. The island introduces itself to the
+     * hub, and then the messages from the hub are received in the background.
+     *
+     * @param socket  Connection with the hub
+     * @param island  Island of this end of the channel
+     * @param sources Islands from which it receives migrants
+     */
+
+    public SocketMigrationChannel(Socket socket, int island, int[] sources) throws IOException {
+        super(island, sources);
+        this.socket = socket;
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out.writeInt(island);
+        out.flush();
+        Thread receiver = new Thread(this::receive, "migration-receiver-" + island);
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * {@inheritDoc}
+     */
+
+    public synchronized void emigrate(List<IIndividual> migrants) throws IOException {
+        out.writeInt(MIGRANTS);
+        writeMigrants(out, migrants);
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            out.writeInt(END);
+            out.flush();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Package methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Writes the genotype and the fitness value of each migrant.
+     */
+
+    static void writeMigrants(DataOutputStream out, List<IIndividual> migrants) throws IOException {
+        out.writeInt(migrants.size());
+        for (IIndividual migrant : migrants) {
+            if (!(migrant instanceof IntArrayIndividual) || !(migrant.getFitness() instanceof IValueFitness))
+                throw new IllegalArgumentException("Only evaluated IntArrayIndividuals can migrate between processes");
+            int[] genotype = ((IntArrayIndividual) migrant).getGenotype();
+            out.writeInt(genotype.length);
+            for (int gene : genotype)
+                out.writeInt(gene);
+            out.writeDouble(((IValueFitness) migrant.getFitness()).getValue());
+        }
+    }
+
+    /**
+     * Reads migrants written by {@link #writeMigrants(DataOutputStream, List)}.
+     */
+
+    static List<IIndividual> readMigrants(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<IIndividual> migrants = new ArrayList<>(size);
+        for (int m = 0; m < size; ++m) {
+            int[] genotype = new int[in.readInt()];
+            for (int i = 0; i < genotype.length; ++i)
+                genotype[i] = in.readInt();
+            migrants.add(new IntArrayIndividual(genotype, new SimpleValueFitness(in.readDouble())));
+        }
+        return migrants;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Keeps the messages forwarded by the hub until the connection is closed.
+     */
+
+    private void receive() {
+        try {
+            while (true) {
+                int source = in.readInt();
+                if (in.readInt() == MIGRANTS)
+                    deliver(source, readMigrants(in));
+                else
+                    deliverEnd(source);
+            }
+        } catch (IOException e) {
+            // Closed connection: nothing more will arrive
+            deliverEnd();
+        }
+    }
+}
@@ -81,7 +81,7 @@ public abstract class AbstractMutator implements IMutator {
             // Contextualize this operator
             this.context = (IPopulation) context;
             // Attach a random generator to this object
-            this.randgen = context.createRandGen();
+            this.randgen = createRandGen(context);
         } else {
             throw new IllegalArgumentException("This object uses a population as execution context");
         }
@@ -122,6 +122,17 @@ public abstract class AbstractMutator implements IMutator {
     // -------------------------------------------- Protected methods
     /////////////////////////////////////////////////////////////////
 
+    /**
+     * Random generator attached to this object when it is contextualized.
+     *
+     * @param context Execution context
+     * @return the random generator
+     */
+
+    protected IRandGen createRandGen(ISystem context) {
+        return context.createRandGen();
+    }
+
     /**
      * Prepare mutation process.
      */
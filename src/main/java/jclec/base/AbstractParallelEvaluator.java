@@ -1,6 +1,7 @@
 package jclec.base;
 
 import jclec.IIndividual;
+import jclec.util.ComputeRuntime;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -46,7 +47,6 @@ public abstract class AbstractParallelEvaluator extends AbstractEvaluator {
     public void evaluate(List<IIndividual> inds) {
         long time = System.currentTimeMillis();
 
-        ExecutorService threadExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         Collection<Callable<Void>> collection = new ArrayList<>(inds.size());
         for (IIndividual ind : inds) {
             if (ind.getFitness() == null) {
@@ -55,25 +55,34 @@ public abstract class AbstractParallelEvaluator extends AbstractEvaluator {
             }
         }
         try {
-            List<Future<Void>> futures = threadExecutor.invokeAll(collection);
+            List<Future<Void>> futures = ComputeRuntime.invokeAll(ComputeRuntime.EVALUATION, collection);
             for (Future<Void> future : futures) {
                 future.get();
             }
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
         }
-        threadExecutor.shutdown();
-
-        try {
-            if (!threadExecutor.awaitTermination(30, TimeUnit.DAYS))
-                System.out.println("Threadpool timeout occurred");
-        } catch (InterruptedException ie) {
-            System.out.println("Threadpool prematurely terminated due to interruption in thread that created pool");
-        }
 
         executionTime += System.currentTimeMillis() - time;
     }
 
+    /**
+     * Evaluates an individual if its fitness is null. Unlike evaluate(List),
+     * it may be called from several threads at the same time, so that the
+     * algorithms can evaluate each individual as soon as it is created.
+     *
+     * @param ind Individual to evaluate
+     */
+
+    public void evaluateIndividual(IIndividual ind) {
+        if (ind.getFitness() == null) {
+            evaluate(ind);
+            synchronized (this) {
+                numberOfEvaluations++;
+            }
+        }
+    }
+
     /////////////////////////////////////////////////////////////////
     // -------------------------------------------- Evaluation Thread
     /////////////////////////////////////////////////////////////////
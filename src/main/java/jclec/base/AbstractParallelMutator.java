@@ -1,6 +1,10 @@
 package jclec.base;
 
 import jclec.IIndividual;
+import jclec.ISystem;
+import jclec.util.ComputeRuntime;
+import jclec.util.random.IRandGen;
+import jclec.util.random.ParallelRandGen;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -8,13 +12,28 @@ import java.util.List;
 import java.util.concurrent.*;
 
 /**
- * IMutator abstract implementation.
+ * IMutator abstract implementation, that mutates the individuals in parallel.
+ * <p>
+ * The random generator of the operator is a ParallelRandGen: each individual
+ * is mutated with its own stream, given by its index and a seed taken in each
+ * call to mutate, so the sons only depend on the seed of the algorithm and not
+ * on the number of threads.
  *
  * @author Sebastian Ventura
  */
 
 public abstract class AbstractParallelMutator extends AbstractMutator {
 
+    /**
+     * Streams of the random generator, one per mutated individual
+     */
+    private ParallelRandGen streams;
+
+    /**
+     * Seed of the streams of the individuals being mutated
+     */
+    private long streamsSeed;
+
     /**
      * {@inheritDoc}
      */
@@ -23,48 +42,73 @@ public abstract class AbstractParallelMutator extends AbstractMutator {
         // Sets p list to actual parents
         parentsBuffer = parents;
         // Prepare recombination process
-        prepareMutation();
+        prepareMutations();
         // Create a new list to put sons in it
         sonsBuffer = new ArrayList<>();
 
-        ExecutorService threadExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         Collection<Callable<IIndividual>> collection = new ArrayList<>(parentsBuffer.size());
-        for (IIndividual ind : parents) {
-            collection.add(new MutationThread(ind));
+        for (int i = 0; i < parents.size(); ++i) {
+            collection.add(new MutationThread(parents.get(i), i));
         }
         try {
-            List<Future<IIndividual>> futures = threadExecutor.invokeAll(collection);
+            List<Future<IIndividual>> futures = ComputeRuntime.invokeAll(ComputeRuntime.OPERATORS, collection);
             for (Future<IIndividual> future : futures) {
                 sonsBuffer.add(future.get());
             }
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
         }
-        threadExecutor.shutdown();
-
-        try {
-            if (!threadExecutor.awaitTermination(30, TimeUnit.DAYS))
-                System.out.println("Threadpool timeout occurred");
-        } catch (InterruptedException ie) {
-            System.out.println("Threadpool prematurely terminated due to interruption in thread that created pool");
-        }
 
         // Returns sons list
         return sonsBuffer;
     }
 
+    /**
+     * Prepares the mutation of a set of individuals that are mutated one by
+     * one with {@link #mutate(IIndividual, int)}, as mutate(List) does before
+     * mutating its parents. It must be called from the algorithm thread.
+     */
+    public void prepareMutations() {
+        prepareMutation();
+        streamsSeed = streams.nextStreamsSeed();
+    }
+
+    /**
+     * Mutates the individual with the given index in the set prepared with
+     * {@link #prepareMutations()}. It may be called from several threads at
+     * the same time: the son only depends on the parent and its index.
+     *
+     * @param parent Individual to mutate
+     * @param index  Index of the individual in the set
+     * @return the mutated individual
+     */
+    public IIndividual mutate(IIndividual parent, int index) {
+        return streams.run(() -> mutateInd(parent), streamsSeed, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IRandGen createRandGen(ISystem context) {
+        streams = new ParallelRandGen(context.createRandGen());
+        return streams;
+    }
+
     protected abstract IIndividual mutateInd(IIndividual individual);
 
     private class MutationThread implements Callable<IIndividual> {
         private IIndividual individual;
+        private int index;
 
-        MutationThread(IIndividual individual) {
+        MutationThread(IIndividual individual, int index) {
             this.individual = individual;
+            this.index = index;
         }
 
         @Override
         public IIndividual call() throws Exception {
-            return mutateInd(individual);
+            return mutate(individual, index);
         }
     }
 }
@@ -3,6 +3,10 @@ package jclec.base;
 
 import jclec.IIndividual;
 import jclec.IRecombinator;
+import jclec.ISystem;
+import jclec.util.ComputeRuntime;
+import jclec.util.random.IRandGen;
+import jclec.util.random.ParallelRandGen;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -10,12 +14,28 @@ import java.util.List;
 import java.util.concurrent.*;
 
 /**
- * IRecombinator abstract implementation.
+ * IRecombinator abstract implementation, that recombines the litters in
+ * parallel.
+ * <p>
+ * The random generator of the operator is a ParallelRandGen: each litter is
+ * recombined with its own stream, given by its index and a seed taken in each
+ * call to recombine, so the sons only depend on the seed of the algorithm and
+ * not on the number of threads.
  *
  * @author Sebastian Ventura
  */
 
 public abstract class AbstractParallelRecombinator  extends AbstractRecombinator implements IRecombinator {
+    /**
+     * Streams of the random generator, one per litter
+     */
+    private ParallelRandGen streams;
+
+    /**
+     * Seed of the streams of the litters being recombined
+     */
+    private long streamsSeed;
+
     /**
      * {@inheritDoc}
      */
@@ -25,51 +45,80 @@ public abstract class AbstractParallelRecombinator  extends AbstractRecombinator
         // Sets p list to actual parents
         parentsBuffer = parents;
         // Prepare recombination process
-        prepareRecombination();
+        prepareRecombinations();
         // Create a new list to put sons in it
         sonsBuffer = new ArrayList<>();
 
-        ExecutorService threadExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         Collection<Callable<List<IIndividual>>> collection = new ArrayList<>(parentsBuffer.size());
         for (parentsCounter = 0; parentsCounter <= parents.size() - ppl; parentsCounter += ppl) {
             List<IIndividual> individuals = new ArrayList<>(ppl);
             for (int i = parentsCounter; i < parentsCounter + ppl; ++i)
                 individuals.add(parentsBuffer.get(i));
-            collection.add(new RecombinationThread(individuals));
+            collection.add(new RecombinationThread(individuals, parentsCounter / ppl));
         }
         try {
-            List<Future<List<IIndividual>>> futures = threadExecutor.invokeAll(collection);
+            List<Future<List<IIndividual>>> futures = ComputeRuntime.invokeAll(ComputeRuntime.OPERATORS, collection);
             for (Future<List<IIndividual>> future : futures) {
                 sonsBuffer.addAll(future.get());
             }
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
         }
-        threadExecutor.shutdown();
-
-        try {
-            if (!threadExecutor.awaitTermination(30, TimeUnit.DAYS))
-                System.out.println("Threadpool timeout occurred");
-        } catch (InterruptedException ie) {
-            System.out.println("Threadpool prematurely terminated due to interruption in thread that created pool");
-        }
 
         // Returns sons list
         return sonsBuffer;
     }
 
+    /**
+     * Prepares the recombination of a set of litters that are recombined one
+     * by one with {@link #recombine(List, int)}, as recombine(List) does
+     * before recombining its parents. It must be called from the algorithm
+     * thread.
+     */
+
+    public void prepareRecombinations() {
+        prepareRecombination();
+        streamsSeed = streams.nextStreamsSeed();
+    }
+
+    /**
+     * Recombines the litter with the given index in the set prepared with
+     * {@link #prepareRecombinations()}. It may be called from several threads
+     * at the same time: the sons only depend on the parents and the index.
+     *
+     * @param litter Parents of the litter (ppl individuals)
+     * @param index  Index of the litter in the set
+     * @return the sons of the litter
+     */
+
+    public List<IIndividual> recombine(List<IIndividual> litter, int index) {
+        return streams.run(() -> recombineInd(litter), streamsSeed, index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    protected IRandGen createRandGen(ISystem context) {
+        streams = new ParallelRandGen(context.createRandGen());
+        return streams;
+    }
+
     protected abstract List<IIndividual> recombineInd(List<IIndividual> individuals);
 
     private class RecombinationThread implements Callable<List<IIndividual>> {
         private final List<IIndividual> individuals;
+        private final int index;
 
-        RecombinationThread(List<IIndividual> individuals) {
+        RecombinationThread(List<IIndividual> individuals, int index) {
             this.individuals = individuals;
+            this.index = index;
         }
 
         @Override
         public List<IIndividual> call() {
-            return recombineInd(individuals);
+            return recombine(individuals, index);
         }
     }
 }
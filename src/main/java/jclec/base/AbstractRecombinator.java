@@ -101,7 +101,7 @@ public abstract class AbstractRecombinator implements IRecombinator {
         }
         // Attach a random generator to this object
         if (randgen == null) {
-            this.randgen = context.createRandGen();
+            this.randgen = createRandGen(context);
         }
     }
 
@@ -160,6 +160,17 @@ public abstract class AbstractRecombinator implements IRecombinator {
     // -------------------------------------------- Protected methods
     /////////////////////////////////////////////////////////////////
 
+    /**
+     * Random generator attached to this object when it is contextualized.
+     *
+     * @param context Execution context
+     * @return the random generator
+     */
+
+    protected IRandGen createRandGen(ISystem context) {
+        return context.createRandGen();
+    }
+
     /**
      * Sets the ppl parameter (that  represents the number of parents
      * per litter).
@@ -137,7 +137,7 @@ public class FilteredMutator extends DecoratedMutator {
         sterile.clear();
         // Build fertile and sterile sets
         for (IIndividual ind : parents) {
-            if (randgen.coin(mutProb)) {
+            if (nextIsFertile()) {
                 fertile.add(ind);
             } else {
                 sterile.add(ind);
@@ -149,6 +149,18 @@ public class FilteredMutator extends DecoratedMutator {
 
     // Additional methods
 
+    /**
+     * Decides if the next individual of the parents set is mutated, drawing
+     * the same random number as mutate() does for it. Used by the algorithms
+     * that mutate each individual apart with the decorated mutator.
+     *
+     * @return true if the individual has to be mutated
+     */
+
+    public boolean nextIsFertile() {
+        return randgen.coin(mutProb);
+    }
+
     /**
      * Access to the sterile parents set.
      *
@@ -2,7 +2,6 @@ package jclec.intarray;
 
 import jclec.ISpecies;
 import jclec.base.AbstractCreator;
-import jclec.util.intset.IIntegerSet;
 
 /**
  * Creation of IntArrayIndividual (and subclasses).
@@ -21,11 +20,6 @@ public class IntArrayCreator extends AbstractCreator {
      */
     protected transient IntArraySpecies species;
 
-    /**
-     * Genotype schema
-     */
-    protected transient IIntegerSet[] schema;
-
     /////////////////////////////////////////////////////////////////
     // ------------------------------------------------- Constructors
     /////////////////////////////////////////////////////////////////
@@ -59,8 +53,6 @@ public class IntArrayCreator extends AbstractCreator {
         if (spc instanceof IntArraySpecies) {
             // Sets individual species
             this.species = (IntArraySpecies) spc;
-            // Sets genotype schema
-            this.schema = this.species.getGenotypeSchema();
         } else {
             throw new IllegalStateException("Illegal species in context");
         }
@@ -79,10 +71,10 @@ public class IntArrayCreator extends AbstractCreator {
      * Create a int [] genotype, filling it randomly
      */
     protected int[] createGenotype() {
-        int gl = schema.length;
+        int gl = species.getGenotypeLength();
         int[] result = new int[gl];
         for (int i = 0; i < gl; i++) {
-            result[i] = schema[i].getRandom(randgen);
+            result[i] = species.getLocusSchema(i).getRandom(randgen);
         }
         return result;
     }
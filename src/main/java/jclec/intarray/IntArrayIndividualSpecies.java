@@ -75,28 +75,48 @@ public class IntArrayIndividualSpecies extends IntArraySpecies implements IConfi
         IIntegerSet[] genotypeSchema = new IIntegerSet[genotypeLength];
         // Set genotype schema components
         for (int i = 0; i < genotypeLength; i++) {
-            // Get component classname
-            String componentClassname = settings.getString("genotype-schema.locus(" + i + ")[@type]");
-            try {
-                Class<?> componentClass = Class.forName(componentClassname);
-                // Set schema component
-                genotypeSchema[i] = (IIntegerSet) componentClass.newInstance();
-                // Configure component
-                if (genotypeSchema[i] instanceof IConfigure) {
-                    ((IConfigure) genotypeSchema[i]).configure(settings.subset("genotype-schema.locus(" + i + ")"));
-                }
-            } catch (ClassNotFoundException e) {
-                throw new ConfigurationRuntimeException
-                        ("Illegal schema classname");
-            } catch (InstantiationException | IllegalAccessException e) {
-                throw new ConfigurationRuntimeException
-                        ("Problems creating an instance of schema", e);
-            }
+            genotypeSchema[i] = createLocusSchema(settings.subset("genotype-schema.locus(" + i + ")"));
         }
         // Assign genotype schema
         setGenotypeSchema(genotypeSchema);
     }
 
+    /////////////////////////////////////////////////////////////////
+    // -------------------------------------------- Protected methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Creates and configures the schema of a locus.
+     *
+     * @param settings Locus configuration, with the schema classname in its type attribute
+     * @return Locus schema
+     */
+
+    protected static IIntegerSet createLocusSchema(Configuration settings) {
+        // Get component classname
+        String componentClassname = settings.getString("[@type]");
+        try {
+            Class<?> componentClass = Class.forName(componentClassname);
+            // Set schema component
+            IIntegerSet result = (IIntegerSet) componentClass.newInstance();
+            // Configure component
+            if (result instanceof IConfigure) {
+                ((IConfigure) result).configure(settings);
+            }
+            return result;
+        } catch (ClassNotFoundException e) {
+            throw new ConfigurationRuntimeException
+                    ("Illegal schema classname");
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new ConfigurationRuntimeException
+                    ("Problems creating an instance of schema", e);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
     // java.lang.Object methods
 
     /**
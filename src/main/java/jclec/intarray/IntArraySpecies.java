@@ -67,4 +67,15 @@ public abstract class IntArraySpecies implements ISpecies {
     public IIntegerSet[] getGenotypeSchema() {
         return genotypeSchema;
     }
+
+    /**
+     * Schema of a locus, without building the whole genotype schema.
+     *
+     * @param locus Locus index
+     * @return getGenotypeSchema()[locus]
+     */
+
+    public IIntegerSet getLocusSchema(int locus) {
+        return genotypeSchema[locus];
+    }
 }
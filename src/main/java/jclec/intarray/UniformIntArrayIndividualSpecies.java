@@ -0,0 +1,247 @@
+package jclec.intarray;
+
+import jclec.util.intset.IIntegerSet;
+import jclec.util.intset.Interval;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.Arrays;
+
+/**
+ * IntArrayIndividual species whose loci share the same schema, optionally followed by some loci with their own schema.
+ * <p>
+ * Only one schema object is kept for the uniform loci, whatever the genotype length. It is configured with a single
+ * element:
+ * <pre>
+ * &lt;genotype-schema&gt;
+ *     &lt;uniform-locus type="jclec.util.intset.Interval" length="1000" left="0" right="4" closure="closed-closed"/&gt;
+ *     &lt;locus type="jclec.util.intset.Interval" left="2" right="5"/&gt;
+ * &lt;/genotype-schema&gt;
+ * </pre>
+ * where the <code>locus</code> elements, as in {@link IntArrayIndividualSpecies}, are the loci after the uniform ones.
+ */
+
+public class UniformIntArrayIndividualSpecies extends IntArrayIndividualSpecies {
+
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------- Serialization constant
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Generated by Eclipse
+     */
+
+    private static final long serialVersionUID = 7032264615082431759L;
+
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Schema shared by the uniform loci
+     */
+
+    protected IIntegerSet uniformSchema;
+
+    /**
+     * Number of uniform loci
+     */
+
+    protected int uniformLength;
+
+    /**
+     * Schema of the loci after the uniform ones
+     */
+
+    protected IIntegerSet[] tailSchema = new IIntegerSet[0];
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Empty constructor
+     */
+
+    public UniformIntArrayIndividualSpecies() {
+        super();
+    }
+
+    /**
+     * Constructor that sets the uniform schema.
+     *
+     * @param uniformSchema Schema of all the loci
+     * @param uniformLength Genotype length
+     */
+
+    public UniformIntArrayIndividualSpecies(IIntegerSet uniformSchema, int uniformLength) {
+        super();
+        setUniformSchema(uniformSchema, uniformLength);
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    // Setting properties
+
+    /**
+     * Set the uniform schema
+     *
+     * @param uniformSchema Schema of the uniform loci
+     * @param uniformLength Number of uniform loci
+     */
+
+    public void setUniformSchema(IIntegerSet uniformSchema, int uniformLength) {
+        this.uniformSchema = uniformSchema;
+        this.uniformLength = uniformLength;
+        this.genotypeSchema = null;
+    }
+
+    /**
+     * Set the schema of the loci after the uniform ones
+     *
+     * @param tailSchema Schema of the last loci
+     */
+
+    public void setTailSchema(IIntegerSet[] tailSchema) {
+        this.tailSchema = tailSchema;
+        this.genotypeSchema = null;
+    }
+
+    /**
+     * Sets a genotype schema of loci with their own schema, without uniform loci.
+     */
+
+    @Override
+    public void setGenotypeSchema(IIntegerSet[] genotypeSchema) {
+        setUniformSchema(null, 0);
+        setTailSchema(genotypeSchema);
+    }
+
+    // Genotype information
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public int getGenotypeLength() {
+        return uniformLength + tailSchema.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public IIntegerSet getLocusSchema(int locus) {
+        return locus < uniformLength ? uniformSchema : tailSchema[locus - uniformLength];
+    }
+
+    /**
+     * Genotype schema as an array, for the operators that need it. The uniform loci reference the same schema, but the
+     * array takes memory proportional to the genotype length, so {@link #getLocusSchema(int)} should be preferred.
+     */
+
+    @Override
+    public synchronized IIntegerSet[] getGenotypeSchema() {
+        if (genotypeSchema == null) {
+            IIntegerSet[] result = new IIntegerSet[getGenotypeLength()];
+            Arrays.fill(result, 0, uniformLength, uniformSchema);
+            System.arraycopy(tailSchema, 0, result, uniformLength, tailSchema.length);
+            genotypeSchema = result;
+        }
+        return genotypeSchema;
+    }
+
+    // IConfigure interface
+
+    @Override
+    public void configure(Configuration settings) {
+        // Uniform loci
+        IIntegerSet uniformSchema = null;
+        int uniformLength = settings.getInt("genotype-schema.uniform-locus[@length]", 0);
+        if (uniformLength > 0) {
+            uniformSchema = createLocusSchema(settings.subset("genotype-schema.uniform-locus"));
+        }
+        // Last loci
+        int tailLength = settings.getList("genotype-schema.locus[@type]").size();
+        IIntegerSet[] tailSchema = new IIntegerSet[tailLength];
+        for (int i = 0; i < tailLength; i++) {
+            tailSchema[i] = createLocusSchema(settings.subset("genotype-schema.locus(" + i + ")"));
+        }
+        // Assign genotype schema
+        setTailSchema(tailSchema);
+        setUniformSchema(uniformSchema, uniformLength);
+    }
+
+    /**
+     * Adds to an algorithm configuration a species of interval loci.
+     *
+     * @param settings Algorithm configuration
+     * @param length   Genotype length
+     * @param left     Left extremum of the loci
+     * @param right    Right extremum of the loci
+     */
+
+    public static void addToConfiguration(Configuration settings, int length, int left, int right) {
+        settings.addProperty("species[@type]", UniformIntArrayIndividualSpecies.class.getName());
+        settings.addProperty("species.genotype-schema.uniform-locus[@type]", Interval.class.getName());
+        settings.addProperty("species.genotype-schema.uniform-locus[@length]", Integer.toString(length));
+        settings.addProperty("species.genotype-schema.uniform-locus[@left]", Integer.toString(left));
+        settings.addProperty("species.genotype-schema.uniform-locus[@right]", Integer.toString(right));
+        settings.addProperty("species.genotype-schema.uniform-locus[@closure]", "closed-closed");
+    }
+
+    // java.lang.Object methods
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public String toString() {
+        // Performs Schema rendering
+        ToStringBuilder tsb = new ToStringBuilder(this);
+        // Append schema
+        tsb.append("uniform-schema", uniformSchema);
+        tsb.append("uniform-length", uniformLength);
+        tsb.append("tail-schema", tailSchema);
+        // Returns rendered schema
+        return tsb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public int hashCode() {
+        HashCodeBuilder hcb = new HashCodeBuilder();
+        hcb.append(uniformSchema);
+        hcb.append(uniformLength);
+        hcb.append(tailSchema);
+        return hcb.toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof UniformIntArrayIndividualSpecies) {
+            EqualsBuilder eb = new EqualsBuilder();
+            UniformIntArrayIndividualSpecies uoth = (UniformIntArrayIndividualSpecies) other;
+            eb.append(this.uniformSchema, uoth.uniformSchema);
+            eb.append(this.uniformLength, uoth.uniformLength);
+            eb.append(this.tailSchema, uoth.tailSchema);
+            return eb.isEquals();
+        } else {
+            return false;
+        }
+    }
+}
@@ -4,7 +4,6 @@ import jclec.ISpecies;
 import jclec.base.AbstractParallelMutator;
 import jclec.intarray.IntArrayIndividual;
 import jclec.intarray.IntArraySpecies;
-import jclec.util.intset.IIntegerSet;
 
 
 /**
@@ -24,11 +23,6 @@ public abstract class IntArrayMutator extends AbstractParallelMutator {
      */
     protected transient IntArraySpecies species;
 
-    /**
-     * Individuals schema
-     */
-    protected transient IIntegerSet[] schema;
-
     /////////////////////////////////////////////////////////////////
     // ------------------------------------------------- Constructors
     /////////////////////////////////////////////////////////////////
@@ -55,8 +49,6 @@ public abstract class IntArrayMutator extends AbstractParallelMutator {
         if (spc instanceof IntArraySpecies) {
             // Sets individual species
             this.species = (IntArraySpecies) spc;
-            // Sets genotype schema
-            this.schema = this.species.getGenotypeSchema();
         } else {
             throw new IllegalStateException("Invalid species in context");
         }
@@ -74,12 +66,12 @@ public abstract class IntArrayMutator extends AbstractParallelMutator {
      * Gets a mutate locus in represented individuals
      */
     protected final int getMutableLocus() {
-        int genotypeLength = schema.length;
+        int genotypeLength = species.getGenotypeLength();
         int ml;
         do {
             ml = randgen.choose(0, genotypeLength);
         }
-        while (schema[ml].size() == 1);
+        while (species.getLocusSchema(ml).size() == 1);
         // Return mutation point
         return ml;
     }
@@ -95,7 +87,7 @@ public abstract class IntArrayMutator extends AbstractParallelMutator {
         int newval;
         // Choose mutated value
         do {
-            newval = schema[locus].getRandom(randgen);
+            newval = species.getLocusSchema(locus).getRandom(randgen);
         }
         while (chrom[locus] == newval);
         // Assigns new value
@@ -3,6 +3,7 @@ package jclec.listener;
 import jclec.*;
 import jclec.algorithm.PopulationAlgorithm;
 import jclec.util.IndividualStatistics;
+import jclec.util.ReportFiles;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.lang.builder.EqualsBuilder;
 
@@ -11,13 +12,22 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * This class is a listener for PopulationAlgorithms, that performs a report of
  * the actual population. This report consists on ...
+ * <p>
+ * With asynchronous-report, the algorithm only takes a snapshot of the
+ * individuals needed by the report, and a dedicated thread writes it while the
+ * next generations run. The reports are queued in a bounded queue, so the
+ * algorithm waits when the reporter falls behind, and they are written in
+ * order.
  *
  * @author Sebastian Ventura
  */
@@ -53,6 +63,16 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
      */
     protected boolean saveCompletePopulation;
 
+    /**
+     * Write the reports in a dedicated thread?
+     */
+    protected boolean asynchronousReport;
+
+    /**
+     * Maximum number of reports waiting to be written
+     */
+    protected int reportQueueSize;
+
     /////////////////////////////////////////////////////////////////
     // ------------------------------------------- Internal variables
     /////////////////////////////////////////////////////////////////
@@ -73,6 +93,22 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
      */
     protected File reportDirectory;
 
+    /**
+     * Reports waiting to be written by the reporter thread
+     */
+    private BlockingQueue<Runnable> reportQueue;
+
+    /**
+     * Thread that writes the reports, if they are asynchronous
+     */
+    private Thread reportThread;
+
+    /**
+     * Marks the end of the reports in the queue
+     */
+    private static final Runnable END_OF_REPORTS = () -> {
+    };
+
     /////////////////////////////////////////////////////////////////
     // ------------------------------------------------- Constructors
     /////////////////////////////////////////////////////////////////
@@ -101,6 +137,12 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
     private void setSaveCompletePopulation(boolean saveCompletePopulation) {
         this.saveCompletePopulation = saveCompletePopulation;
     }
+    private void setAsynchronousReport(boolean asynchronousReport) {
+        this.asynchronousReport = asynchronousReport;
+    }
+    private void setReportQueueSize(int reportQueueSize) {
+        this.reportQueueSize = reportQueueSize;
+    }
 
     // IConfigure interface
 
@@ -121,6 +163,12 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
         // Set save individuals (default false)
         boolean saveCompletePopulation = settings.getBoolean("save-complete-population", false);
         setSaveCompletePopulation(saveCompletePopulation);
+        // Set asynchronous report (default off)
+        boolean asynchronousReport = settings.getBoolean("asynchronous-report", false);
+        setAsynchronousReport(asynchronousReport);
+        // Set size of the queue of pending reports (default 4)
+        int reportQueueSize = settings.getInt("report-queue-size", 4);
+        setReportQueueSize(reportQueueSize);
     }
 
     // IAlgorithmListener interface
@@ -131,7 +179,8 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
         DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HHmmss");
         Date date = new Date(System.currentTimeMillis());
         String dateString = dateFormat.format(date);
-        actualReportTitle = reportTitle + "_" + dateString;
+        // Jobs with the same report title may be started in the same second
+        actualReportTitle = ReportFiles.uniqueTitle(reportTitle + "_" + dateString, "", ".report.txt");
 
         // If save complete population create a directory for storing
         // individual population files
@@ -156,6 +205,10 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
                 e.printStackTrace();
             }
         }
+        // Start the reporter thread (if necessary)
+        if (asynchronousReport) {
+            startReportThread();
+        }
         // Do an iteration report
         doIterationReport((PopulationAlgorithm) event.getAlgorithm(), true);
     }
@@ -169,6 +222,8 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
     public void algorithmFinished(AlgorithmEvent event) {
         // Do last generation report
         doIterationReport((PopulationAlgorithm) event.getAlgorithm(), true);
+        // Wait for the pending reports
+        stopReportThread();
         // Close report file if necessary
         if (reportOnFile && reportFile != null) {
             try {
@@ -181,7 +236,7 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
 
     @Override
     public void algorithmTerminated(AlgorithmEvent e) {
-
+        stopReportThread();
     }
 
     // java.lang.Object methods
@@ -201,33 +256,79 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
             eb.append(reportOnFile, cother.reportOnFile);
             // saveCompletePopulation
             eb.append(saveCompletePopulation, cother.saveCompletePopulation);
+            // asynchronousReport
+            eb.append(asynchronousReport, cother.asynchronousReport);
+            // reportQueueSize
+            eb.append(reportQueueSize, cother.reportQueueSize);
             return eb.isEquals();
         } else {
             return false;
         }
     }
 
-    protected void doIterationReport(PopulationAlgorithm algorithm, boolean force) {
-        // Fitness comparator
-        Comparator<IFitness> comparator = algorithm.getEvaluator().getComparator();
-        // Population individuals
-        List<IIndividual> inhabitants = algorithm.getInhabitants();
-        // Actual generation
-        int generation = algorithm.getGeneration();
+    /////////////////////////////////////////////////////////////////
+    // -------------------------------------------- Protected methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Reports the actual population, if this generation has to be reported
+     *
+     * @param algorithm Algorithm to report
+     * @param force     Report even if this is not a report generation
+     */
 
+    protected void doIterationReport(PopulationAlgorithm algorithm, boolean force) {
         // Check if this is correct generation
-        if (!force && generation % reportFrequency != 0) {
+        if (!force && algorithm.getGeneration() % reportFrequency != 0) {
             return;
         }
+        submitReport(createReport(algorithm));
+    }
+
+    /**
+     * Takes what the report of the actual population needs from the
+     * algorithm, and returns the task that writes it. The task may run in
+     * another thread while the algorithm goes on, so it must not access the
+     * algorithm.
+     *
+     * @param algorithm Algorithm to report
+     * @return the task that writes the report
+     */
+
+    protected Runnable createReport(PopulationAlgorithm algorithm) {
+        PopulationSnapshot snapshot = new PopulationSnapshot(algorithm, saveCompletePopulation);
+        return () -> {
+            savePopulation(snapshot);
+            // Do population report
+            StringBuilder sb = new StringBuilder("Generation " + snapshot.getGeneration() + " Report\n");
+            // Best individual
+            sb.append("Best individual: ").append(snapshot.getBest()).append("\n");
+            // Worst individual
+            sb.append("Worst individual: ").append(snapshot.getWorst()).append("\n");
+            // Median individual
+            sb.append("Median individual: ").append(snapshot.getMedian()).append("\n");
+            // Average fitness and fitness variance
+            sb.append("Average fitness = ").append(snapshot.getAverageFitness()).append("\n");
+            sb.append("Fitness variance = ").append(snapshot.getFitnessVariance()).append("\n");
+            writeReport(sb.toString());
+        };
+    }
+
+    /**
+     * Saves the population individuals of a snapshot (if this option was
+     * chosen)
+     *
+     * @param snapshot Snapshot of the population
+     */
 
-        // Save population individuals (if this option was chosen)
+    protected void savePopulation(PopulationSnapshot snapshot) {
         if (saveCompletePopulation) {
-            String filename = "generation" + generation + ".individuals.txt";
+            String filename = "generation" + snapshot.getGeneration() + ".individuals.txt";
             File file = new File(reportDirectory, filename);
             FileWriter filewriter;
             try {
                 filewriter = new FileWriter(file);
-                for (IIndividual ind : inhabitants) {
+                for (IIndividual ind : snapshot.getInhabitants()) {
                     filewriter.flush();
                     filewriter.write(ind + "\n");
                 }
@@ -236,36 +337,185 @@ public class PopulationReporter implements IAlgorithmListener, IConfigure {
                 e.printStackTrace();
             }
         }
+    }
 
-        // Do population report
-        StringBuilder sb = new StringBuilder("Generation " + generation + " Report\n");
-        // Best individual
-        IIndividual best = IndividualStatistics.bestIndividual(inhabitants, comparator);
-        sb.append("Best individual: ").append(best).append("\n");
-        // Worst individual
-        IIndividual worst = IndividualStatistics.worstIndividual(inhabitants, comparator);
-        sb.append("Worst individual: ").append(worst).append("\n");
-        // Median individual
-        IIndividual median = IndividualStatistics.medianIndividual(inhabitants, comparator);
-        sb.append("Median individual: ").append(median).append("\n");
-        // Average fitness and fitness variance
-        double[] avgvar = IndividualStatistics.averageFitnessAndFitnessVariance(inhabitants);
-        sb.append("Average fitness = ").append(avgvar[0]).append("\n");
-        sb.append("Fitness variance = ").append(avgvar[1]).append("\n");
+    /**
+     * Writes a report on the console and the report file (if necessary)
+     *
+     * @param report Report to write
+     */
 
+    protected void writeReport(String report) {
         // Write report string to the standard output (if necessary)
         if (reportOnConsole) {
-            System.out.println(sb.toString());
+            System.out.println(report);
         }
 
         // Write string to the report file (if necessary)
         if (reportOnFile) {
             try {
-                reportFileWriter.write(sb.toString());
+                reportFileWriter.write(report);
                 reportFileWriter.flush();
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
+
+    /**
+     * Writes a report now, or queues it for the reporter thread if the
+     * reports are asynchronous. The algorithm waits if the queue is full.
+     *
+     * @param report Task that writes the report
+     */
+
+    protected void submitReport(Runnable report) {
+        if (reportThread == null) {
+            report.run();
+            return;
+        }
+        try {
+            reportQueue.put(report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.run();
+        }
+    }
+
+    /**
+     * Waits for the reporter thread to write the queued reports, then stops it.
+     * Subclasses that override algorithmFinished must call it before closing
+     * the report file
+     */
+
+    protected void stopReportThread() {
+        if (reportThread == null) {
+            return;
+        }
+        try {
+            reportQueue.put(END_OF_REPORTS);
+            reportThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        reportThread = null;
+        reportQueue = null;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Starts the thread that writes the queued reports
+     */
+
+    private void startReportThread() {
+        reportQueue = new ArrayBlockingQueue<>(Math.max(1, reportQueueSize));
+        reportThread = new Thread(() -> {
+            try {
+                Runnable report;
+                while ((report = reportQueue.take()) != END_OF_REPORTS) {
+                    try {
+                        report.run();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "population-reporter");
+        reportThread.setDaemon(true);
+        reportThread.start();
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------ Inner classes
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Copy of the individuals and statistics of a population that a report
+     * needs, so that the report can be written while the algorithm goes on
+     */
+
+    protected static class PopulationSnapshot {
+        /**
+         * Generation of the population
+         */
+        private final int generation;
+
+        /**
+         * Best, worst and median individuals
+         */
+        private final IIndividual best, worst, median;
+
+        /**
+         * Average fitness and fitness variance
+         */
+        private final double[] avgvar;
+
+        /**
+         * Population individuals, if they are saved
+         */
+        private final List<IIndividual> inhabitants;
+
+        /**
+         * Takes a snapshot of the actual population of an algorithm
+         *
+         * @param algorithm       Algorithm to report
+         * @param withInhabitants Copy all the population individuals?
+         */
+
+        public PopulationSnapshot(PopulationAlgorithm algorithm, boolean withInhabitants) {
+            // Fitness comparator
+            Comparator<IFitness> comparator = algorithm.getEvaluator().getComparator();
+            // Population individuals
+            List<IIndividual> inhabitants = algorithm.getInhabitants();
+            generation = algorithm.getGeneration();
+            best = IndividualStatistics.bestIndividual(inhabitants, comparator).copy();
+            worst = IndividualStatistics.worstIndividual(inhabitants, comparator).copy();
+            median = IndividualStatistics.medianIndividual(inhabitants, comparator).copy();
+            avgvar = IndividualStatistics.averageFitnessAndFitnessVariance(inhabitants);
+            if (withInhabitants) {
+                this.inhabitants = new ArrayList<>(inhabitants.size());
+                for (IIndividual ind : inhabitants) {
+                    this.inhabitants.add(ind.copy());
+                }
+            } else {
+                this.inhabitants = null;
+            }
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        public IIndividual getBest() {
+            return best;
+        }
+
+        public IIndividual getWorst() {
+            return worst;
+        }
+
+        public IIndividual getMedian() {
+            return median;
+        }
+
+        public double getAverageFitness() {
+            return avgvar[0];
+        }
+
+        public double getFitnessVariance() {
+            return avgvar[1];
+        }
+
+        /**
+         * Population individuals, or null if they were not copied
+         */
+        public List<IIndividual> getInhabitants() {
+            return inhabitants;
+        }
+    }
 }
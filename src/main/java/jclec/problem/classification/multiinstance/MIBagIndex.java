@@ -0,0 +1,85 @@
+package jclec.problem.classification.multiinstance;
+
+import jclec.problem.util.dataset.IExample;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the bags of a multi-instance dataset by their identification, used while loading it to find the bag of
+ * each instance without going through all the bags already loaded.
+ */
+
+public class MIBagIndex {
+    /////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////
+
+    /**
+     * Examples of the dataset, where the new bags are added
+     */
+
+    private final List<IExample> examples;
+
+    /**
+     * Bags by identification
+     */
+
+    private final Map<Double, MIBag> bags = new HashMap<>();
+
+    /////////////////////////////////////////////////////////////
+    // --------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////
+
+    /**
+     * Index of the bags of a list of examples
+     *
+     * @param examples Examples of the dataset. All of them must be bags.
+     */
+
+    public MIBagIndex(List<IExample> examples) {
+        this.examples = examples;
+        for (IExample example : examples)
+            bags.put(key(((MIBag) example).getBagID()), (MIBag) example);
+    }
+
+    /////////////////////////////////////////////////////////////
+    // ------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////
+
+    /**
+     * Returns the bag with the given identification, creating it and adding it to the examples if it does not exist
+     *
+     * @param bagID Bag identification
+     * @return the bag
+     */
+
+    public MIBag getOrCreate(double bagID) {
+        // A NaN identification never equals any bag, so each one starts a new bag
+        MIBag bag = Double.isNaN(bagID) ? null : bags.get(key(bagID));
+        if (bag == null) {
+            bag = new MIBag();
+            bag.setBagID(bagID);
+            examples.add(bag);
+            if (!Double.isNaN(bagID))
+                bags.put(key(bagID), bag);
+        }
+        return bag;
+    }
+
+    /////////////////////////////////////////////////////////////
+    // ------------------------------------------ Private methods
+    /////////////////////////////////////////////////////////////
+
+    /**
+     * Key of an identification, with the same equality as comparing them with ==
+     *
+     * @param bagID Bag identification
+     * @return the key
+     */
+
+    private static Double key(double bagID) {
+        return bagID == 0 ? 0D : bagID;
+    }
+}
@@ -1,8 +1,14 @@
 package jclec.problem.util.dataset;
 
+import jclec.util.ComputeRuntime;
 import org.apache.commons.configuration.Configuration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * IDataset abstract implementation
@@ -42,6 +48,14 @@ public abstract class AbstractDataset implements IDataset
 	
 	protected ArrayList<IExample> examples;
 	
+	/** Parse the lines of the data section in parallel */
+	
+	protected boolean parallelParsing;
+	
+	/** Number of lines parsed by each parallel task */
+	
+	private static final int PARALLEL_CHUNK = 256;
+	
 	/////////////////////////////////////////////////////////////////
 	// ------------------------------------------------- Constructors
 	/////////////////////////////////////////////////////////////////
@@ -140,5 +154,78 @@ public abstract class AbstractDataset implements IDataset
 	{
 		// Set file name
 		setFileName(settings.getString(""));
+		// Set parallel parsing
+		setParallelParsing(settings.getBoolean("[@parallel]", false));
+	}
+	
+	/**
+	 * Access to parallel parsing
+	 * 
+	 * @return true if the data section is parsed in parallel
+	 */
+	
+	public boolean isParallelParsing() 
+	{
+		return parallelParsing;
+	}
+	
+	/**
+	 * Set parallel parsing
+	 * 
+	 * @param parallelParsing Parse the data section in parallel
+	 */
+	
+	public void setParallelParsing(boolean parallelParsing) 
+	{
+		this.parallelParsing = parallelParsing;
+	}
+	
+	/////////////////////////////////////////////////////////////////
+	// -------------------------------------------- Protected methods
+	/////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Parses the lines of the data section, in parallel if parallel
+	 * parsing is enabled. Results keep the order of the lines, so the
+	 * dataset is the same either way.
+	 * 
+	 * @param lines Lines of the data section
+	 * @param parser Parser of one line
+	 * 
+	 * @return the result of parsing each line
+	 */
+	
+	protected <T> List<T> parseLines(List<String> lines, Function<String, T> parser) throws Exception
+	{
+		Object[] results = new Object[lines.size()];
+		
+		if (!parallelParsing || lines.size() < 2 * PARALLEL_CHUNK)
+		{
+			for (int i = 0; i < results.length; i++)
+				results[i] = parser.apply(lines.get(i));
+		}
+		else
+		{
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			
+			for (int from = 0; from < results.length; from += PARALLEL_CHUNK)
+			{
+				final int start = from;
+				final int end = Math.min(from + PARALLEL_CHUNK, results.length);
+				
+				tasks.add(() -> {
+					for (int i = start; i < end; i++)
+						results[i] = parser.apply(lines.get(i));
+					return null;
+				});
+			}
+			
+			for (Future<Void> future : ComputeRuntime.invokeAll(ComputeRuntime.LOADING, tasks))
+				future.get();
+		}
+		
+		@SuppressWarnings("unchecked")
+		List<T> list = (List<T>) Arrays.asList(results);
+		return list;
 	}
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package jclec.problem.util.dataset;
 import jclec.problem.classification.classic.ClassicClassificationMetadata;
 import jclec.problem.classification.classic.ClassicInstance;
 import jclec.problem.classification.multiinstance.MIBag;
+import jclec.problem.classification.multiinstance.MIBagIndex;
 import jclec.problem.classification.multiinstance.MIClassificationMetadata;
 import jclec.problem.classification.multilabel.MLClassificationMetadata;
 import jclec.problem.classification.multilabel.MLInstance;
@@ -108,6 +109,7 @@ public class ArffDataSet extends AbstractDataset {
         BufferedReader fileReader;
 
         examples = new ArrayList<>();
+        List<String> dataLines = new ArrayList<>();
 
         try {
             // Open dataset
@@ -183,80 +185,15 @@ public class ArffDataSet extends AbstractDataset {
                     continue;
                 }
 
-                tokenizer = new StringTokenizer(line, separationValue);
-
                 if (metadata instanceof MIClassificationMetadata) {
-                    // Bag of instances
-                    MIBag bag = null;
-
-                    // Parse the bag identification
-                    String bagStr = line.substring(0, line.indexOf(separationValue));
-                    IAttribute attribute = metadata.getAttribute(0);
-                    double bagID = attribute.parse(bagStr);
-
-                    // Check if the bag has been already created
-                    for (IExample iterator : examples)
-                        if (((MIBag) iterator).getBagID() == bagID)
-                            bag = (MIBag) iterator;
-
-                    // Create the bag if not found
-                    if (bag == null) {
-                        bag = new MIBag();
-
-                        // Set bag identification
-                        bag.setBagID(bagID);
-
-                        // Add the bag to the dataset
-                        examples.add(bag);
-                    }
+                    // Bags are assembled once the whole data section has been read
+                    dataLines.add(line);
+                    continue;
+                }
 
-                    if (((MIClassificationMetadata) metadata).getClassIndex() == -1)
-                        ((MIClassificationMetadata) metadata).setClassIndex(metadata.numberOfAttributes());
+                tokenizer = new StringTokenizer(line, separationValue);
 
-                    // Parse class value
-                    String Class = line.substring(line.lastIndexOf(separationValue) + 1);
-                    attribute = ((MIClassificationMetadata) metadata).getClassAttribute();
-                    double classValue = attribute.parse(Class);
-
-                    // Set the bag class value
-                    bag.setClassValue(classValue);
-
-                    // Obtain instances values
-                    String valuesStr = line.substring(line.indexOf(separationValue) + 2, line.lastIndexOf(separationValue) - 1);
-
-                    // Split instances
-                    //StringTokenizer token = new StringTokenizer(valuesStr, Pattern.quote("\n"));
-                    StringTokenizer token = new StringTokenizer(valuesStr, "\\n");
-                    while (token.hasMoreTokens()) {
-                        String[] valuesInstanceStr = token.nextToken().trim().split(separationValue);
-                        //System.out.println(Arrays.toString(valuesInstanceStr));
-                        double[] values = new double[metadata.numberOfAttributes()];
-
-                        // Set the bag ID
-                        values[0] = bagID;
-
-                        // Obtain instance values
-                        for (int i = 1; i < metadata.numberOfAttributes(); i++) {
-                            attribute = metadata.getAttribute(i);
-                            values[i] = attribute.parse(valuesInstanceStr[i - 1].trim());
-                        }
-
-                        // Fix (if required) last attribute value
-                        attribute = metadata.getAttribute(metadata.numberOfAttributes() - 1);
-
-                        if (valuesInstanceStr[metadata.numberOfAttributes() - 2].contains(","))
-                            values[values.length - 1] = attribute.parse(valuesInstanceStr[metadata.numberOfAttributes() - 2].substring(0, valuesInstanceStr[metadata.numberOfAttributes() - 2].length() - 1).trim());
-                        else
-                            values[values.length - 1] = attribute.parse(valuesInstanceStr[metadata.numberOfAttributes() - 2].trim());
-
-                        // Create instance
-                        Instance instance = new Instance(metadata.numberOfAttributes());
-                        instance.setValues(values);
-
-                        // Add the instance to the bag
-                        bag.addInstance(instance);
-                    }
-                } else if (metadata instanceof MLClassificationMetadata) {
+                if (metadata instanceof MLClassificationMetadata) {
                     // Instance values
                     double[] values = new double[metadata.numberOfAttributes()];
 
@@ -312,6 +249,9 @@ public class ArffDataSet extends AbstractDataset {
 
             fileReader.close();
 
+            if (metadata instanceof MIClassificationMetadata)
+                loadBags(dataLines);
+
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -399,6 +339,108 @@ public class ArffDataSet extends AbstractDataset {
         }
     }
 
+    /**
+     * Assemble the bags of a multi-instance dataset from the lines of its data section
+     * <p>
+     * Each line has the bag identification, the instances of the bag quoted and separated by \n, and the class. Lines
+     * with the same identification are added to the same bag.
+     *
+     * @param lines Lines of the data section
+     */
+
+    private void loadBags(List<String> lines) throws Exception {
+        if (!lines.isEmpty() && ((MIClassificationMetadata) metadata).getClassIndex() == -1)
+            ((MIClassificationMetadata) metadata).setClassIndex(metadata.numberOfAttributes());
+
+        List<ParsedBag> parsedBags = parseLines(lines, this::parseBag);
+
+        MIBagIndex index = new MIBagIndex(examples);
+        for (ParsedBag parsedBag : parsedBags) {
+            MIBag bag = index.getOrCreate(parsedBag.bagID);
+
+            // Set the bag class value
+            bag.setClassValue(parsedBag.classValue);
+
+            for (double[] values : parsedBag.instances) {
+                Instance instance = new Instance(metadata.numberOfAttributes());
+                instance.setValues(values);
+                bag.addInstance(instance);
+            }
+        }
+    }
+
+    /**
+     * Parse a line of the data section of a multi-instance dataset, going through it once
+     *
+     * @param line Line to parse
+     * @return the bag identification, class and instance values of the line
+     */
+
+    private ParsedBag parseBag(String line) {
+        char separator = separationValue.charAt(0);
+        int first = line.indexOf(separator);
+        int last = line.lastIndexOf(separator);
+
+        ParsedBag parsedBag = new ParsedBag();
+        parsedBag.bagID = metadata.getAttribute(0).parse(line.substring(0, first));
+        parsedBag.classValue = ((MIClassificationMetadata) metadata).getClassAttribute().parse(line.substring(last + 1));
+
+        // Instances, without the quotes
+        int from = first + 2;
+        int to = last - 1;
+
+        int numInstances = 0;
+        for (int start = from, end; start < to; start = end + 2) {
+            end = nextInstanceEnd(line, start, to);
+            if (!isBlank(line, start, end))
+                numInstances++;
+        }
+
+        parsedBag.instances = new double[numInstances][];
+        int numAttributes = metadata.numberOfAttributes();
+        int k = 0;
+        for (int start = from, end; start < to; start = end + 2) {
+            end = nextInstanceEnd(line, start, to);
+            if (isBlank(line, start, end))
+                continue;
+
+            double[] values = new double[numAttributes];
+
+            // Set the bag ID
+            values[0] = parsedBag.bagID;
+
+            // Obtain instance values
+            ValueTokenizer tokenizer = new ValueTokenizer(line, start, end, separator);
+            for (int i = 1; i < numAttributes; i++)
+                values[i] = metadata.getAttribute(i).parse(tokenizer.nextValue());
+
+            parsedBag.instances[k++] = values;
+        }
+        return parsedBag;
+    }
+
+    /**
+     * End of the instance that starts at a position, that is, the next \n or the end of the instances
+     */
+
+    private static int nextInstanceEnd(String line, int start, int to) {
+        for (int i = start; i < to - 1; i++)
+            if (line.charAt(i) == '\\' && line.charAt(i + 1) == 'n')
+                return i;
+        return to;
+    }
+
+    /**
+     * Checks if a region of a line has only white spaces
+     */
+
+    private static boolean isBlank(String line, int from, int to) {
+        for (int i = from; i < to; i++)
+            if (line.charAt(i) > ' ')
+                return false;
+        return true;
+    }
+
     /**
      * Compute attribute domains
      */
@@ -474,4 +516,14 @@ public class ArffDataSet extends AbstractDataset {
 
         return dataset;
     }
-}
\ No newline at end of file
+
+    /**
+     * Values of a line of the data section of a multi-instance dataset
+     */
+
+    private static class ParsedBag {
+        double bagID;
+        double classValue;
+        double[][] instances;
+    }
+}
@@ -3,6 +3,7 @@ package jclec.problem.util.dataset;
 import jclec.problem.classification.classic.ClassicClassificationMetadata;
 import jclec.problem.classification.classic.ClassicInstance;
 import jclec.problem.classification.multiinstance.MIBag;
+import jclec.problem.classification.multiinstance.MIBagIndex;
 import jclec.problem.classification.multiinstance.MIClassificationMetadata;
 import jclec.problem.classification.multilabel.MLClassificationMetadata;
 import jclec.problem.classification.multilabel.MLInstance;
@@ -107,6 +108,7 @@ public class KeelDataSet extends AbstractDataset
 		Reader fileReader;
 		
 		examples = new ArrayList<IExample>();
+		List<String> dataLines = new ArrayList<String>();
 
 		try {
 			// Open dataset
@@ -207,64 +209,16 @@ public class KeelDataSet extends AbstractDataset
 					continue;
 				}
 				
-				tokenizer = new StringTokenizer(line, separationValue);
-				
 				if(metadata instanceof MIClassificationMetadata)
 				{
-					// Bag of instances
-					MIBag bag = null;
-					
-					// Parse the bag identification
-					IAttribute bagAttribute = metadata.getAttribute(0);
-					double bagID = bagAttribute.parse(tokenizer.nextToken().trim());
-					
-					// Check if the bag has been already created
-					for(IExample iterator : examples)
-						if(((MIBag) iterator).getBagID() == bagID)
-							bag = (MIBag) iterator;
-					
-					// Create the bag if not found
-					if(bag == null)
-					{
-						bag = new MIBag();
-						
-						// Set bag identification
-						bag.setBagID(bagID);
-						
-						// Add the bag to the dataset
-						examples.add(bag);
-					}
-					
-					// Instance values
-					double[] values = new double[metadata.numberOfAttributes()];
-					
-					// Set the bag ID
-					values[0] = bagID;
-					
-					// Parse each attribute value
-					for(int i = 1; i < metadata.numberOfAttributes(); i++)
-					{
-						IAttribute attribute = metadata.getAttribute(i);
-						values[i] = attribute.parse(tokenizer.nextToken().trim());
-					}
-					
-					// Parse class value
-					IAttribute attribute = ((MIClassificationMetadata) metadata).getClassAttribute();
-					double classValue = attribute.parse(tokenizer.nextToken().trim());
-					
-					// Create instance
-					Instance instance = new ClassicInstance(metadata.numberOfAttributes());
-					instance.setValues(values);				
-					
-					// Set the bag class value
-					bag.setClassValue(classValue);
-					
-					// Add the instance to the bag
-					bag.addInstance(instance);
-					
+					// Bags are assembled once the whole data section has been read
+					dataLines.add(line);
 					continue;
 				}
-				else if (metadata instanceof MLClassificationMetadata)
+				
+				tokenizer = new StringTokenizer(line, separationValue);
+				
+				if (metadata instanceof MLClassificationMetadata)
 				{
 					// Instance values
 					double[] values = new double[metadata.numberOfAttributes()];
@@ -330,6 +284,9 @@ public class KeelDataSet extends AbstractDataset
 			
 			fileReader.close();
 			
+			if(metadata instanceof MIClassificationMetadata)
+				loadBags(dataLines);
+			
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 		} catch (Exception e){
@@ -464,6 +421,67 @@ public class KeelDataSet extends AbstractDataset
 		}
 	}
 	
+	/**
+	 * Assemble the bags of a multi-instance dataset from the lines of its
+	 * data section. Each line has the bag identification, the values of
+	 * one instance and the class.
+	 * 
+	 * @param lines Lines of the data section
+	 */
+	
+	private void loadBags(List<String> lines) throws Exception
+	{
+		List<ParsedInstance> parsedInstances = parseLines(lines, this::parseInstance);
+		
+		MIBagIndex index = new MIBagIndex(examples);
+		for(ParsedInstance parsedInstance : parsedInstances)
+		{
+			MIBag bag = index.getOrCreate(parsedInstance.bagID);
+			
+			// Create instance
+			Instance instance = new ClassicInstance(metadata.numberOfAttributes());
+			instance.setValues(parsedInstance.values);
+			
+			// Set the bag class value
+			bag.setClassValue(parsedInstance.classValue);
+			
+			// Add the instance to the bag
+			bag.addInstance(instance);
+		}
+	}
+	
+	/**
+	 * Parse a line of the data section of a multi-instance dataset,
+	 * going through it once
+	 * 
+	 * @param line Line to parse
+	 * 
+	 * @return the bag identification, instance values and class of the line
+	 */
+	
+	private ParsedInstance parseInstance(String line)
+	{
+		ValueTokenizer tokenizer = new ValueTokenizer(line, 0, line.length(), separationValue.charAt(0));
+		ParsedInstance parsedInstance = new ParsedInstance();
+		
+		// Instance values
+		parsedInstance.values = new double[metadata.numberOfAttributes()];
+		
+		// Parse the bag identification
+		parsedInstance.bagID = metadata.getAttribute(0).parse(tokenizer.nextValue());
+		parsedInstance.values[0] = parsedInstance.bagID;
+		
+		// Parse each attribute value
+		for(int i = 1; i < metadata.numberOfAttributes(); i++)
+			parsedInstance.values[i] = metadata.getAttribute(i).parse(tokenizer.nextValue());
+		
+		// Parse class value
+		IAttribute attribute = ((MIClassificationMetadata) metadata).getClassAttribute();
+		parsedInstance.classValue = attribute.parse(tokenizer.nextValue());
+		
+		return parsedInstance;
+	}
+	
    /**
     * Copy method
     * 
@@ -487,4 +505,15 @@ public class KeelDataSet extends AbstractDataset
 			
 		return dataset;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Values of a line of the data section of a multi-instance dataset
+	 */
+	
+	private static class ParsedInstance
+	{
+		double bagID;
+		double[] values;
+		double classValue;
+	}
+}
@@ -0,0 +1,109 @@
+package jclec.problem.util.dataset;
+
+/**
+ * Tokenizer of the values of a region of a data line, that goes through its characters once instead of splitting the
+ * line in intermediate strings and arrays.
+ * <p>
+ * As <code>StringTokenizer</code>, empty values between consecutive separators are skipped. Values are trimmed.
+ */
+
+final class ValueTokenizer {
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------- Internal Variables
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Line to tokenize
+     */
+
+    private final String line;
+
+    /**
+     * End (exclusive) of the region to tokenize
+     */
+
+    private final int end;
+
+    /**
+     * Separation between values
+     */
+
+    private final char separator;
+
+    /**
+     * Start of the next value
+     */
+
+    private int position;
+
+    /////////////////////////////////////////////////////////////////
+    // -------------------------------------------------- Constructor
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Tokenizer of the region [from, to) of a line
+     *
+     * @param line      Line to tokenize
+     * @param from      Start of the region
+     * @param to        End (exclusive) of the region
+     * @param separator Separation between values
+     */
+
+    ValueTokenizer(String line, int from, int to, char separator) {
+        this.line = line;
+        this.end = to;
+        this.separator = separator;
+        this.position = from;
+        skipSeparators();
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Checks if there are more values
+     *
+     * @return true if there are more values
+     */
+
+    boolean hasMoreValues() {
+        return position < end;
+    }
+
+    /**
+     * Returns the next value, trimmed
+     *
+     * @return the next value
+     */
+
+    String nextValue() {
+        if (position >= end)
+            throw new IllegalArgumentException("Missing values in line: " + line);
+        int from = position;
+        int to = from;
+        while (to < end && line.charAt(to) != separator)
+            to++;
+        position = to;
+        skipSeparators();
+
+        while (from < to && line.charAt(from) <= ' ')
+            from++;
+        while (to > from && line.charAt(to - 1) <= ' ')
+            to--;
+        return line.substring(from, to);
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private Methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Skips the separators before the next value
+     */
+
+    private void skipSeparators() {
+        while (position < end && line.charAt(position) == separator)
+            position++;
+    }
+}
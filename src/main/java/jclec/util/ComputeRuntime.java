@@ -0,0 +1,194 @@
+package jclec.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Work-stealing pool shared by all the parallel stages (evaluation, genetic operators, clustering steps, distances...).
+ * <p>
+ * Tasks submitted from a task already running in the pool are forked in the current worker and joined helping the
+ * rest of workers, so nested parallel stages compose instead of oversubscribing the machine.
+ * <p>
+ * The number of workers is taken from the system property <code>jclec.parallelism</code> (default: number of
+ * available processors) when the pool is first used. Each stage can be limited to fewer concurrent tasks with
+ * <code>jclec.parallelism.&lt;stage&gt;</code> or {@link #setStageParallelism(String, int)}.
+ */
+
+public final class ComputeRuntime {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Stage names
+    /////////////////////////////////////////////////////////////////
+
+    /** Evaluation of the individuals of a population */
+    public static final String EVALUATION = "evaluation";
+
+    /** Mutation and recombination of individuals */
+    public static final String OPERATORS = "operators";
+
+    /** Computation of centroids and assignment of bags to clusters */
+    public static final String CLUSTERING = "clustering";
+
+    /** Clustering validity indices */
+    public static final String INDICES = "indices";
+
+    /** Distances matrices */
+    public static final String DISTANCES = "distances";
+
+    /** Parsing of the data section of the datasets */
+    public static final String LOADING = "loading";
+
+    /** System property with the number of workers, suffixed with ".stage" for the stage limits */
+    private static final String PROPERTY = "jclec.parallelism";
+
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Shared pool, created on first use */
+    private static volatile ForkJoinPool pool;
+
+    /** Number of workers of the pool (0 for default) */
+    private static int parallelism = Integer.getInteger(PROPERTY, 0);
+
+    /** Maximum number of concurrent tasks of each stage */
+    private static final Map<String, Integer> stageParallelism = new ConcurrentHashMap<>();
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    private ComputeRuntime() {
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Shared pool.
+     */
+
+    public static ForkJoinPool pool() {
+        ForkJoinPool result = pool;
+        if (result == null) {
+            synchronized (ComputeRuntime.class) {
+                result = pool;
+                if (result == null) {
+                    int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+                    result = pool = new ForkJoinPool(Math.max(1, workers));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the number of workers. It must be called before the pool is used for the first time.
+     *
+     * @param parallelism Number of workers
+     */
+
+    public static synchronized void setParallelism(int parallelism) {
+        if (pool != null)
+            throw new IllegalStateException("Compute pool already started with " + pool.getParallelism() + " workers");
+        ComputeRuntime.parallelism = parallelism;
+    }
+
+    /**
+     * Number of workers of the pool.
+     */
+
+    public static int getParallelism() {
+        return pool().getParallelism();
+    }
+
+    /**
+     * Limits the number of tasks of a stage that are run at the same time.
+     *
+     * @param stage       Stage name
+     * @param parallelism Maximum concurrent tasks, 0 or less to use the whole pool
+     */
+
+    public static void setStageParallelism(String stage, int parallelism) {
+        if (parallelism > 0)
+            stageParallelism.put(stage, parallelism);
+        else
+            stageParallelism.remove(stage);
+    }
+
+    /**
+     * Maximum concurrent tasks of a stage.
+     *
+     * @param stage Stage name
+     */
+
+    public static int getStageParallelism(String stage) {
+        Integer result = stageParallelism.get(stage);
+        if (result == null)
+            result = Integer.getInteger(PROPERTY + "." + stage, 0);
+        int workers = getParallelism();
+        return result > 0 ? Math.min(result, workers) : workers;
+    }
+
+    /**
+     * Runs all the tasks in the shared pool and waits for them, as {@link java.util.concurrent.ExecutorService#invokeAll}.
+     *
+     * @param stage Stage the tasks belong to
+     * @param tasks Tasks to run
+     *
+     * @return Completed futures, in the same order as the tasks
+     */
+
+    public static <T> List<Future<T>> invokeAll(String stage, Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return invokeAll(stage, tasks, true);
+    }
+
+    /**
+     * Same as {@link #invokeAll(String, Collection)}, but running the tasks in the calling thread if parallelize is
+     * false.
+     */
+
+    public static <T> List<Future<T>> invokeAll(String stage, Collection<? extends Callable<T>> tasks, boolean parallelize) throws InterruptedException {
+        List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks)
+            futures.add(new FutureTask<>(task));
+
+        int groups = parallelize ? Math.min(getStageParallelism(stage), futures.size()) : 1;
+        if (groups <= 1) {
+            for (FutureTask<T> future : futures)
+                future.run();
+        } else {
+            // Each group takes the next pending task until there are none left
+            AtomicInteger next = new AtomicInteger();
+            Runnable group = () -> {
+                for (int k = next.getAndIncrement(); k < futures.size(); k = next.getAndIncrement())
+                    futures.get(k).run();
+            };
+            List<ForkJoinTask<?>> forked = new ArrayList<>(groups);
+            for (int g = 0; g < groups; ++g)
+                forked.add(ForkJoinTask.adapt(group));
+            ForkJoinPool shared = pool();
+            if (ForkJoinTask.getPool() == shared) {
+                for (ForkJoinTask<?> task : forked)
+                    task.fork();
+            } else {
+                for (ForkJoinTask<?> task : forked)
+                    shared.execute(task);
+            }
+            for (int g = groups - 1; g >= 0; --g)
+                forked.get(g).quietlyJoin();
+        }
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        return new ArrayList<>(futures);
+    }
+}
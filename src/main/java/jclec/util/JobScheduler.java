@@ -0,0 +1,281 @@
+package jclec.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the independent jobs of an experiment (the expanded configurations of a multi-valued experiment file, the
+ * combinations of datasets and configurations of a batch...) several at the same time.
+ * <p>
+ * Jobs are grouped by the dataset they use. The jobs of a group are started one after the other, and a new group is
+ * only started when there is no room for more jobs of the groups already running, so that the jobs that share a
+ * dataset run together and find its caches warm. When all the jobs of a group are finished the group listener is
+ * notified, so that the caches of its dataset can be released.
+ * <p>
+ * A job is started only if the number of running jobs is below the concurrency limit and the memory estimated for all
+ * of them fits in the memory budget. The memory of the dataset is counted once for all the jobs of its group. One job is
+ * always allowed to run, whatever its estimation.
+ * <p>
+ * The concurrency limit is taken from the system property <code>jclec.jobs</code> (default: 1, that is, the jobs are
+ * run sequentially) and the memory budget from <code>jclec.jobs.memory</code>, in MB (default: three quarters of the
+ * maximum heap). The parallel stages of the jobs share the workers of {@link ComputeRuntime}, so running more jobs does
+ * not add more threads computing at the same time.
+ */
+
+public class JobScheduler {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** System property with the maximum number of concurrent jobs */
+    private static final String JOBS_PROPERTY = "jclec.jobs";
+
+    /** System property with the memory budget in MB */
+    private static final String MEMORY_PROPERTY = "jclec.jobs.memory";
+
+    /** Maximum number of concurrent jobs */
+    private final int concurrency;
+
+    /** Memory budget in bytes */
+    private final long memoryBudget;
+
+    /** Pending jobs by group, in order of arrival */
+    private final Map<String, Deque<Job>> pending = new LinkedHashMap<>();
+
+    /** Running jobs by group */
+    private final Map<String, Integer> running = new HashMap<>();
+
+    /** Memory of the datasets of the running groups */
+    private final Map<String, Long> groupMemory = new HashMap<>();
+
+    /** Memory estimated for the running jobs and their datasets */
+    private long usedMemory;
+
+    /** Number of running jobs */
+    private int runningJobs;
+
+    /** Notified with the name of each group when all its jobs are finished */
+    private Consumer<String> groupListener;
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Scheduler configured from the system properties.
+     */
+
+    public JobScheduler() {
+        this(Integer.getInteger(JOBS_PROPERTY, 1), Long.getLong(MEMORY_PROPERTY, Runtime.getRuntime().maxMemory() / 4 * 3 >> 20) << 20);
+    }
+
+    /**
+     * @param concurrency  Maximum number of concurrent jobs
+     * @param memoryBudget Maximum memory estimated for the running jobs, in bytes
+     */
+
+    public JobScheduler(int concurrency, long memoryBudget) {
+        this.concurrency = Math.max(1, concurrency);
+        this.memoryBudget = memoryBudget;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Adds a job.
+     *
+     * @param name          Name shown in the log
+     * @param group         Dataset shared with other jobs
+     * @param datasetMemory Memory estimated for the dataset and its caches, shared by all the jobs of the group
+     * @param memory        Memory estimated for the job itself
+     * @param task          Job
+     */
+
+    public synchronized void add(String name, String group, long datasetMemory, long memory, Runnable task) {
+        pending.computeIfAbsent(group, g -> new ArrayDeque<>()).add(new Job(name, group, datasetMemory, memory, task));
+    }
+
+    /**
+     * Sets the listener notified when all the jobs of a group are finished.
+     */
+
+    public void setGroupListener(Consumer<String> groupListener) {
+        this.groupListener = groupListener;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Runs all the jobs added and waits for them. An exception of a job is printed and does not stop the rest.
+     */
+
+    public void run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            Job job;
+            while ((job = next()) != null) {
+                final Job started = job;
+                executor.execute(() -> execute(started));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+    }
+
+    /**
+     * Rough estimation of the memory of a dataset once loaded: its instances and the matrix of distances between its
+     * examples.
+     *
+     * @param file ARFF file
+     */
+
+    public static long estimateDatasetMemory(File file) {
+        long examples = countExamples(file);
+        return 8 * file.length() + 8 * examples * examples;
+    }
+
+    /**
+     * Number of examples of an ARFF file, counted as the lines of its data section. 0 if it cannot be read.
+     *
+     * @param file ARFF file
+     */
+
+    public static long countExamples(File file) {
+        long examples = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            boolean data = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!data)
+                    data = line.regionMatches(true, 0, "@data", 0, 5);
+                else if (!line.isEmpty() && line.charAt(0) != '%')
+                    examples++;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return examples;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Waits until a job can be started and reserves its memory. Null if there are no jobs left.
+     */
+
+    private synchronized Job next() throws InterruptedException {
+        while (!pending.isEmpty()) {
+            Job job = candidate();
+            if (job != null) {
+                pending.get(job.group).poll();
+                if (pending.get(job.group).isEmpty())
+                    pending.remove(job.group);
+                if (running.merge(job.group, 1, Integer::sum) == 1) {
+                    groupMemory.put(job.group, job.datasetMemory);
+                    usedMemory += job.datasetMemory;
+                }
+                usedMemory += job.memory;
+                runningJobs++;
+                return job;
+            }
+            wait();
+        }
+        return null;
+    }
+
+    /**
+     * Next job that fits, from the groups already running or else from the next group. Null if none of them fits.
+     */
+
+    private Job candidate() {
+        if (runningJobs >= concurrency)
+            return null;
+        Job next = null;
+        for (Deque<Job> jobs : pending.values()) {
+            Job job = jobs.peek();
+            if (running.containsKey(job.group)) {
+                if (fits(job.memory))
+                    return job;
+            } else if (next == null) {
+                next = job;
+            }
+        }
+        if (next != null && fits(next.datasetMemory + next.memory))
+            return next;
+        return null;
+    }
+
+    private boolean fits(long memory) {
+        return runningJobs == 0 || usedMemory + memory <= memoryBudget;
+    }
+
+    private void execute(Job job) {
+        System.out.println("Algorithm started: " + job.name);
+        try {
+            job.task.run();
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+        System.out.println("Algorithm finished: " + job.name);
+        if (finished(job) && groupListener != null)
+            groupListener.accept(job.group);
+    }
+
+    /**
+     * Releases the memory of a finished job.
+     *
+     * @return true if it was the last job of its group
+     */
+
+    private synchronized boolean finished(Job job) {
+        runningJobs--;
+        usedMemory -= job.memory;
+        boolean last = false;
+        if (running.merge(job.group, -1, Integer::sum) == 0) {
+            running.remove(job.group);
+            usedMemory -= groupMemory.remove(job.group);
+            last = !pending.containsKey(job.group);
+        }
+        notifyAll();
+        return last;
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------ Inner classes
+    /////////////////////////////////////////////////////////////////
+
+    private static final class Job {
+        private final String name;
+        private final String group;
+        private final long datasetMemory;
+        private final long memory;
+        private final Runnable task;
+
+        private Job(String name, String group, long datasetMemory, long memory, Runnable task) {
+            this.name = name;
+            this.group = group;
+            this.datasetMemory = datasetMemory;
+            this.memory = memory;
+            this.task = task;
+        }
+    }
+}
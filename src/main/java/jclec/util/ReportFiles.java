@@ -0,0 +1,102 @@
+package jclec.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Report files shared by jobs that may run at the same time, in the same process (see {@link JobScheduler}) or in
+ * different ones.
+ */
+
+public final class ReportFiles {
+    /////////////////////////////////////////////////////////////////
+    // --------------------------------------------------- Properties
+    /////////////////////////////////////////////////////////////////
+
+    /** Lock of each file in this process, by canonical path */
+    private static final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /** Report titles already given in this process */
+    private static final Set<String> titles = new HashSet<>();
+
+    /////////////////////////////////////////////////////////////////
+    // ------------------------------------------------- Constructors
+    /////////////////////////////////////////////////////////////////
+
+    private ReportFiles() {
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ----------------------------------------------- Public methods
+    /////////////////////////////////////////////////////////////////
+
+    /**
+     * Appends a row to a report file in a single write, while holding a lock on the file. If the file is empty the
+     * header is written before the row, otherwise the row is written after a line separator.
+     *
+     * @param file   Report file
+     * @param header Header of the file, with its line separator
+     * @param row    Row, without line separator
+     */
+
+    public static void appendRow(File file, String header, String row) throws IOException {
+        synchronized (lock(file)) {
+            try (FileOutputStream out = new FileOutputStream(file, true)) {
+                FileChannel channel = out.getChannel();
+                FileLock fileLock = channel.lock();
+                try {
+                    String text = channel.size() == 0 ? header + row : System.getProperty("line.separator") + row;
+                    out.write(text.getBytes());
+                } finally {
+                    fileLock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Report title not given before in this process and with no existing file. If title is already taken, a number is
+     * appended to it.
+     *
+     * @param title    Report title
+     * @param suffixes Suffixes of the files that will be created with the title
+     */
+
+    public static String uniqueTitle(String title, String... suffixes) {
+        synchronized (titles) {
+            String result = title;
+            for (int n = 2; !titles.add(result) || exists(result, suffixes); ++n)
+                result = title + "_" + n;
+            return result;
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////
+    // ---------------------------------------------- Private methods
+    /////////////////////////////////////////////////////////////////
+
+    private static Object lock(File file) {
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            path = file.getAbsolutePath();
+        }
+        return locks.computeIfAbsent(path, p -> new Object());
+    }
+
+    private static boolean exists(String title, String... suffixes) {
+        for (String suffix : suffixes) {
+            if (new File(title + suffix).exists())
+                return true;
+        }
+        return false;
+    }
+}
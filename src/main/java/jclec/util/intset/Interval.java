@@ -4,6 +4,7 @@ import jclec.IConfigure;
 import jclec.util.random.IRandGen;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationRuntimeException;
+import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
 /**
@@ -248,6 +249,14 @@ public class Interval implements IIntegerSet, IConfigure {
         }
     }
 
+    public int hashCode() {
+        HashCodeBuilder hcb = new HashCodeBuilder();
+        hcb.append(closure);
+        hcb.append(left);
+        hcb.append(right);
+        return hcb.toHashCode();
+    }
+
     public String toString() {
         ToStringBuilder tsb = new ToStringBuilder(this);
         tsb.append(closure);
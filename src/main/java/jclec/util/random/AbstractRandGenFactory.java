@@ -13,6 +13,14 @@ import org.apache.commons.configuration.Configuration;
 @SuppressWarnings("serial")
 public abstract class AbstractRandGenFactory implements IRandGenFactory, IConfigure 
 {
+	/////////////////////////////////////////////////////////////////
+	// --------------------------------------------------- Constants
+	/////////////////////////////////////////////////////////////////
+
+	/** Seed used when the configuration does not set one */
+
+	public static final int DEFAULT_SEED = 1234567890;
+
 	/////////////////////////////////////////////////////////////////
 	// ------------------------------------------- Internal variables
 	/////////////////////////////////////////////////////////////////
@@ -75,7 +83,7 @@ public abstract class AbstractRandGenFactory implements IRandGenFactory, IConfig
 	public void configure(Configuration settings) 
 	{
 		// Getting seed parameter
-		int seed = settings.getInt("[@seed]", 1234567890);
+		int seed = settings.getInt("[@seed]", DEFAULT_SEED);
 		// Setting seed
 		setSeed(seed);
 	}
@@ -0,0 +1,249 @@
+package jclec.util.random;
+
+import java.util.function.Supplier;
+
+/**
+ * Random generator of the operators that run their tasks on several threads.
+ * </p>
+ * Before running the tasks, the operator takes a seed from the base generator
+ * with {@link #nextStreamsSeed()}, and runs each task bound to the stream of
+ * that seed given by its index with {@link #run(Supplier, long, long)}. While
+ * the task runs, this generator gives the values of its stream, so the results
+ * do not depend on the number of threads nor on the order in which the tasks
+ * run, and the threads never share the state of a generator. Out of the tasks,
+ * it gives the values of the base generator.
+ */
+
+public class ParallelRandGen implements IRandGen
+{
+	/////////////////////////////////////////////////////////////////
+	// --------------------------------------- Serialization constant
+	/////////////////////////////////////////////////////////////////
+
+	/** Generated by Eclipse */
+
+	private static final long serialVersionUID = -3127059461380735302L;
+
+	/////////////////////////////////////////////////////////////////
+	// --------------------------------------------------- Attributes
+	/////////////////////////////////////////////////////////////////
+
+	/** Generator used out of the tasks, and to seed their streams */
+
+	private final IRandGen base;
+
+	/** Stream of the task running in each thread */
+
+	private final transient ThreadLocal<IRandGen> streams = new ThreadLocal<IRandGen>();
+
+	/////////////////////////////////////////////////////////////////
+	// ------------------------------------------------- Constructors
+	/////////////////////////////////////////////////////////////////
+
+	/**
+	 * Constructor that sets the base generator.
+	 *
+	 * @param base Generator used out of the tasks
+	 */
+
+	public ParallelRandGen(IRandGen base)
+	{
+		super();
+		this.base = base;
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// ----------------------------------------------- Public methods
+	/////////////////////////////////////////////////////////////////
+
+	/**
+	 * Access to the base generator.
+	 *
+	 * @return Generator used out of the tasks
+	 */
+
+	public IRandGen getBase()
+	{
+		return base;
+	}
+
+	/**
+	 * Takes the seed of the streams of a new set of tasks from the base
+	 * generator. It must be called from the thread that creates the tasks.
+	 *
+	 * @return Seed of the streams
+	 */
+
+	public long nextStreamsSeed()
+	{
+		return SplittableRandGen.nextSeed(base);
+	}
+
+	/**
+	 * Runs a task bound to a stream, so that this generator gives the values
+	 * of that stream while the task runs. It may be called from several
+	 * threads at the same time.
+	 *
+	 * @param task Task to run
+	 * @param seed Seed of the streams of the set of tasks
+	 * @param stream Stream of the task, usually its index in the set
+	 *
+	 * @return Result of the task
+	 */
+
+	public <T> T run(Supplier<T> task, long seed, long stream)
+	{
+		IRandGen previous = streams.get();
+		streams.set(new SplittableRandGen(seed, stream));
+		try {
+			return task.get();
+		}
+		finally {
+			if (previous == null) {
+				streams.remove();
+			}
+			else {
+				streams.set(previous);
+			}
+		}
+	}
+
+	// IRandGen interface
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public double raw()
+	{
+		return current().raw();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public void raw(double[] d, int n)
+	{
+		current().raw(d, n);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public void raw(double[] d)
+	{
+		current().raw(d);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public int choose(int hi)
+	{
+		return current().choose(hi);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public int choose(int lo, int hi)
+	{
+		return current().choose(lo, hi);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public boolean coin()
+	{
+		return current().coin();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public boolean coin(double p)
+	{
+		return current().coin(p);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public double uniform(double lo, double hi)
+	{
+		return current().uniform(lo, hi);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public double gaussian()
+	{
+		return current().gaussian();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public double gaussian(double sd)
+	{
+		return current().gaussian(sd);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public double powlaw(double alpha, double cut)
+	{
+		return current().powlaw(alpha, cut);
+	}
+
+	// java.lang.Object methods
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public String toString()
+	{
+		return current().toString();
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// ---------------------------------------------- Private methods
+	/////////////////////////////////////////////////////////////////
+
+	/**
+	 * Deserialized generators start without bound streams.
+	 *
+	 * @return A new generator with the same base
+	 */
+
+	private Object readResolve()
+	{
+		return new ParallelRandGen(base);
+	}
+
+	/**
+	 * Generator of the calling thread.
+	 *
+	 * @return Stream of the running task, or the base generator
+	 */
+
+	private IRandGen current()
+	{
+		IRandGen stream = streams.get();
+		return stream != null ? stream : base;
+	}
+}
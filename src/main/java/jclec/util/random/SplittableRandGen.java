@@ -0,0 +1,234 @@
+package jclec.util.random;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * Xoroshiro128++ random generator, whose state is initialized with SplitMix64
+ * from a seed and a stream number. Generators with the same seed and different
+ * streams produce independent sequences, so that each task of a parallel
+ * operator can have its own generator, derived from its index, without sharing
+ * any state with the rest.
+ * </p>
+ * The algorithms were described in
+ * </p>
+ * G. L. Steele, D. Lea, C. H. Flood, <CITE>Fast splittable pseudorandom number
+ * generators</CITE>, OOPSLA 2014
+ * </p>
+ * D. Blackman, S. Vigna, <CITE>Scrambled linear pseudorandom number
+ * generators</CITE>, ACM Trans. Math. Softw. 47 (2021)
+ */
+
+public class SplittableRandGen extends AbstractRandGen
+{
+	/////////////////////////////////////////////////////////////////
+	// --------------------------------------- Serialization constant
+	/////////////////////////////////////////////////////////////////
+
+	/** Generated by Eclipse */
+
+	private static final long serialVersionUID = 4215893076214360819L;
+
+	/////////////////////////////////////////////////////////////////
+	// --------------------------------------------------- Constants
+	/////////////////////////////////////////////////////////////////
+
+	/** Increment of SplitMix64 (odd integer closest to 2^64 / phi) */
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/////////////////////////////////////////////////////////////////
+	// --------------------------------------------------- Attributes
+	/////////////////////////////////////////////////////////////////
+
+	/** First half of the state */
+
+	private long s0;
+
+	/** Second half of the state */
+
+	private long s1;
+
+	/////////////////////////////////////////////////////////////////
+	// ------------------------------------------------- Constructors
+	/////////////////////////////////////////////////////////////////
+
+	/**
+	 * Empty constructor
+	 */
+
+	protected SplittableRandGen()
+	{
+		super();
+	}
+
+	/**
+	 * Constructor that sets the seed (used by SplittableRandGenFactory).
+	 *
+	 * @param seed Generator seed
+	 */
+
+	public SplittableRandGen(long seed)
+	{
+		this(seed, 0);
+	}
+
+	/**
+	 * Constructor of one of the streams of a seed.
+	 *
+	 * @param seed Generator seed
+	 * @param stream Stream number
+	 */
+
+	public SplittableRandGen(long seed, long stream)
+	{
+		super();
+		// Each stream starts SplitMix64 at a different point of the sequence
+		long x = seed + mix64(stream + 1) * GOLDEN_GAMMA;
+		s0 = mix64(x += GOLDEN_GAMMA);
+		s1 = mix64(x += GOLDEN_GAMMA);
+		// The state of xoroshiro must not be all zeros
+		if ((s0 | s1) == 0) {
+			s1 = GOLDEN_GAMMA;
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// ----------------------------------------------- Public methods
+	/////////////////////////////////////////////////////////////////
+
+	/**
+	 * Returns the next 64 random bits.
+	 *
+	 * @return Random long value
+	 */
+
+	public long nextLong()
+	{
+		long s0 = this.s0;
+		long s1 = this.s1;
+		long result = Long.rotateLeft(s0 + s1, 17) + s0;
+		s1 ^= s0;
+		this.s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+		this.s1 = Long.rotateLeft(s1, 28);
+		return result;
+	}
+
+	/**
+	 * New generator whose sequence is independent of the rest of the
+	 * sequence of this one. It consumes one value of this generator.
+	 *
+	 * @return A new generator
+	 */
+
+	public SplittableRandGen split()
+	{
+		return new SplittableRandGen(nextLong(), 0);
+	}
+
+	/**
+	 * Takes a 64 bits seed from any generator, to derive streams from it.
+	 *
+	 * @param randgen Random generator
+	 *
+	 * @return New seed
+	 */
+
+	public static long nextSeed(IRandGen randgen)
+	{
+		// Some generators only give 31 or 32 random bits per value
+		long high = Double.doubleToLongBits(randgen.raw());
+		long low = Double.doubleToLongBits(randgen.raw());
+		return mix64(high) ^ Long.rotateLeft(mix64(low), 32);
+	}
+
+	// IRanGen interface
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public double raw()
+	{
+		// 53 high bits, as the mantissa of a double in [0,1)
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * This method has been overwrited to improve performance.
+	 */
+
+	@Override
+	public final void raw(double d[], int n)
+	{
+		for (int i = 0; i < n; i++) {
+			d[i] = (nextLong() >>> 11) * 0x1.0p-53;
+		}
+	}
+
+	// java.lang.Object methods
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public String toString()
+	{
+		ToStringBuilder tsb = new ToStringBuilder(this);
+		tsb.append("s0", s0);
+		tsb.append("s1", s1);
+		return tsb.toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public int hashCode()
+	{
+		HashCodeBuilder hcb = new HashCodeBuilder();
+		hcb.append(s0);
+		hcb.append(s1);
+		return hcb.toHashCode();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public boolean equals(Object other)
+	{
+		if (other instanceof SplittableRandGen) {
+			SplittableRandGen o = (SplittableRandGen) other;
+			EqualsBuilder eb = new EqualsBuilder();
+			eb.append(s0, o.s0);
+			eb.append(s1, o.s1);
+			return eb.isEquals();
+		}
+		else {
+			return false;
+		}
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// ---------------------------------------------- Private methods
+	/////////////////////////////////////////////////////////////////
+
+	/**
+	 * Output function of SplitMix64 (variant 13 of Stafford's mixer).
+	 *
+	 * @param z Value to mix
+	 *
+	 * @return Mixed value
+	 */
+
+	private static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,44 @@
+package jclec.util.random;
+
+/**
+ * SplittableRandGen factory
+ */
+
+public class SplittableRandGenFactory extends AbstractRandGenFactory 
+{
+	/////////////////////////////////////////////////////////////////
+	// --------------------------------------- Serialization constant
+	/////////////////////////////////////////////////////////////////
+	
+	/** Generated by Eclipse */
+	
+	private static final long serialVersionUID = 2690315482175334927L;
+
+	/////////////////////////////////////////////////////////////////
+	// ------------------------------------------------- Constructors
+	/////////////////////////////////////////////////////////////////
+	
+	/**
+	 * Empty constructor.
+	 */
+	
+	public SplittableRandGenFactory() 
+	{
+		super();
+	}
+
+	/////////////////////////////////////////////////////////////////
+	// ------------------------- Implementing IRandGenFactory methods 
+	/////////////////////////////////////////////////////////////////
+	
+	/**
+	 * {@inheritDoc}
+	 */
+
+	public IRandGen createRandGen() 
+	{
+		long high = seedGenerator.nextSeed();
+		long low = seedGenerator.nextSeed();
+		return new SplittableRandGen((high << 32) | (low & 0xffffffffL));
+	}
+}
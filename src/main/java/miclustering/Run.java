@@ -71,7 +71,7 @@ public class Run {
             for (String z : standardization) {
                 for (String c : clustering) {
                     MIClusterer clusterer = (MIClusterer) LoadByName.clusterer("miclustering.algorithms." + c);
-                    String pathDataset = "datasets/" + d + z + ".arff";
+                    String pathDataset = ProcessDataset.datasetPath("datasets/" + d + z);
                     try {
                         clusterer.setOptions(Utils.splitOptions(options.get(c)));
                     } catch (Exception e) {
@@ -86,7 +86,7 @@ public class Run {
                     System.out.println("=========================================");
 
                     try {
-                        clusterer.buildClusterer(ProcessDataset.readArff(pathDataset));
+                        clusterer.buildClusterer(ProcessDataset.read(pathDataset));
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
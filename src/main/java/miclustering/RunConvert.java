@@ -0,0 +1,52 @@
+package miclustering;
+
+import miclustering.filters.MIStandardization;
+import miclustering.utils.BinaryDataset;
+import miclustering.utils.ProcessDataset;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts ARFF datasets to the binary format of {@link BinaryDataset}:
+ * <pre>RunConvert [-z z1|z5] dataset.arff...</pre>
+ * Each dataset is written next to the ARFF with the extension of the binary format and, if it is standardized, the
+ * suffix of the standardization, as RunPreprocess names its outputs.
+ */
+public class RunConvert {
+    public static void main(String[] args) {
+        String standardization = "";
+        try {
+            standardization = Utils.getOption('z', args);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        MIStandardization filter = new MIStandardization();
+        for (String path : args) {
+            if (path.isEmpty())
+                continue;
+            Instances data = ProcessDataset.readArff(path);
+            String ext = "";
+            switch (standardization) {
+                case "z1":
+                    filter.z1(data);
+                    ext = "-z1";
+                    break;
+                case "z5":
+                    filter.z5(data);
+                    ext = "-z5";
+                    break;
+            }
+            String output = path.replaceAll("\\.arff$", "") + ext + BinaryDataset.EXTENSION;
+            try {
+                BinaryDataset.write(data, new File(output));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            System.out.println("Converted " + path + " to " + output);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package miclustering;
 
+import jclec.util.JobScheduler;
+import jclec.util.ReportFiles;
 import miclustering.algorithms.MIClusterer;
 import miclustering.evaluators.ClusterEvaluation;
 import miclustering.evaluators.ExtEvalResult;
+import miclustering.utils.DatasetRegistry;
 import miclustering.utils.LoadByName;
 import miclustering.utils.PrintConfusionMatrix;
+import miclustering.utils.ProcessDataset;
 import weka.clusterers.Clusterer;
 import weka.core.Utils;
 
@@ -42,6 +46,8 @@ public class RunExperiment {
         int totalIterations = dataset.length * standardization.length * nConfigs;
         int currentIteration = 0;
 
+        // Each run is a job, and the runs over the same dataset share it and its distances matrices
+        JobScheduler scheduler = new JobScheduler();
         for (String c : clustering) {
             for (String d : dataset) {
                 for (String z : standardization) {
@@ -54,62 +60,21 @@ public class RunExperiment {
                                 " | configuration: " + config +
                                 " | dataset: " + d +
                                 " | standardization: " + z;
-                        System.out.println(control);
 
-                        MIClusterer clusterer = (MIClusterer) LoadByName.clusterer("miclustering.algorithms." + c);
-                        try {
-                            clusterer.setOptions(Utils.splitOptions(config));
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-
-                        String pathDataset = "datasets/" + d + z + ".arff";
-                        String evalOptions = "-d " + pathDataset + " -c last -k 2 -parallelize";
-                        ClusterEvaluation eval = new ClusterEvaluation();
-                        try {
-                            eval.setOptions(Utils.splitOptions(evalOptions));
-                            eval.evaluateClusterer(clusterer, true);
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-
-                        String distance = clusterer.getDistanceFunction().toString();
-                        int actualNClusters = eval.getActualNumClusters();
-                        int clusteredBags = eval.getInstances().numInstances() - eval.getUnclusteredInstances();
-                        int unclusteredBags = eval.getUnclusteredInstances();
-                        double rmsstd = eval.getRmssd();
-                        double silhouette = eval.getSilhouette();
-                        double xb = eval.getXb();
-                        double db = eval.getDb();
-                        double sdbw = eval.getSdbw();
-                        double dbcv = eval.getDbcv();
-                        ExtEvalResult cer = eval.getExtEvalResult();
-                        double entropy = eval.getEntropy();
-                        double purity = eval.getPurity();
-                        double rand = eval.getRand();
-                        double precision = eval.getMacroPrecision();
-                        double recall = eval.getMacroRecall();
-                        double f1 = eval.getMacroF1();
-                        double specificity = eval.getMacroSpecificity();
-                        double time = clusterer.getElapsedTime();
-                        String reportTitle = saveFullReport(clusterer, eval);
-                        String report = String.join(",", c, config, d + z, distance, String.valueOf(actualNClusters),
-                                String.valueOf(clusteredBags), String.valueOf(unclusteredBags), String.valueOf(rmsstd), String.valueOf(silhouette),
-                                String.valueOf(xb), String.valueOf(db), String.valueOf(sdbw), String.valueOf(dbcv),
-                                String.valueOf(entropy), String.valueOf(purity), String.valueOf(rand), String.valueOf(precision),
-                                String.valueOf(recall), String.valueOf(f1), String.valueOf(specificity), PrintConfusionMatrix.singleLine(cer),
-                                String.valueOf(time), reportTitle);
-                        try {
-                            reportFileWriter.write(report + "\n");
-                            reportFileWriter.flush();
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                        System.gc();
+                        String pathDataset = ProcessDataset.datasetPath("datasets/" + d + z);
+                        File datasetFile = new File(pathDataset);
+                        scheduler.add(control, pathDataset, ProcessDataset.estimateMemory(pathDataset), 8 * datasetFile.length(),
+                                () -> runJob(c, config, d, z));
                     }
                 }
             }
         }
+        scheduler.setGroupListener(pathDataset -> DatasetRegistry.release(pathDataset, ""));
+        try {
+            scheduler.run();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
         System.out.println("Finish");
         try {
             reportFileWriter.close();
@@ -118,6 +83,61 @@ public class RunExperiment {
         }
     }
 
+    private static void runJob(String c, String config, String d, String z) {
+        MIClusterer clusterer = (MIClusterer) LoadByName.clusterer("miclustering.algorithms." + c);
+        try {
+            clusterer.setOptions(Utils.splitOptions(config));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        String pathDataset = ProcessDataset.datasetPath("datasets/" + d + z);
+        String evalOptions = "-d " + pathDataset + " -c last -k 2 -parallelize -distances-dir distances";
+        ClusterEvaluation eval = new ClusterEvaluation();
+        try {
+            eval.setOptions(Utils.splitOptions(evalOptions));
+            eval.evaluateClusterer(clusterer, true);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        String distance = clusterer.getDistanceFunction().toString();
+        int actualNClusters = eval.getActualNumClusters();
+        int clusteredBags = eval.getInstances().numInstances() - eval.getUnclusteredInstances();
+        int unclusteredBags = eval.getUnclusteredInstances();
+        double rmsstd = eval.getRmssd();
+        double silhouette = eval.getSilhouette();
+        double xb = eval.getXb();
+        double db = eval.getDb();
+        double sdbw = eval.getSdbw();
+        double dbcv = eval.getDbcv();
+        ExtEvalResult cer = eval.getExtEvalResult();
+        double entropy = eval.getEntropy();
+        double purity = eval.getPurity();
+        double rand = eval.getRand();
+        double precision = eval.getMacroPrecision();
+        double recall = eval.getMacroRecall();
+        double f1 = eval.getMacroF1();
+        double specificity = eval.getMacroSpecificity();
+        double time = clusterer.getElapsedTime();
+        String reportTitle = saveFullReport(clusterer, eval);
+        String report = String.join(",", c, config, d + z, distance, String.valueOf(actualNClusters),
+                String.valueOf(clusteredBags), String.valueOf(unclusteredBags), String.valueOf(rmsstd), String.valueOf(silhouette),
+                String.valueOf(xb), String.valueOf(db), String.valueOf(sdbw), String.valueOf(dbcv),
+                String.valueOf(entropy), String.valueOf(purity), String.valueOf(rand), String.valueOf(precision),
+                String.valueOf(recall), String.valueOf(f1), String.valueOf(specificity), PrintConfusionMatrix.singleLine(cer),
+                String.valueOf(time), reportTitle);
+        // Rows of the jobs running at the same time are not mixed
+        synchronized (reportFileWriter) {
+            try {
+                reportFileWriter.write(report + "\n");
+                reportFileWriter.flush();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     private static void setExperiments() {
         dataset = new String[]{
 //                "DirectionEastwest",
@@ -242,7 +262,7 @@ public class RunExperiment {
         DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
         Date date = new Date(System.currentTimeMillis());
         String dateString = dateFormat.format(date);
-        String actualReportTitle = reportTitle + "_" + dateString + ".report.txt";
+        String actualReportTitle = ReportFiles.uniqueTitle(reportTitle + "_" + dateString, ".report.txt") + ".report.txt";
         File file = new File(actualReportTitle);
         FileWriter filewriter;
         try {
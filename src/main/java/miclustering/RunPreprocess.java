@@ -1,10 +1,16 @@
 package miclustering;
 
 import miclustering.filters.MIStandardization;
+import miclustering.utils.BagStreamReader;
+import miclustering.utils.BinaryDataset;
 import miclustering.utils.ProcessDataset;
 import weka.core.Instances;
+import weka.core.Utils;
 import weka.core.converters.ConverterUtils;
 
+import java.io.File;
+import java.io.IOException;
+
 public class RunPreprocess {
     public static void main(String[] args) {
         String[] datasets = {
@@ -44,9 +50,24 @@ public class RunPreprocess {
                 "musk2",
         };
 
+        // With -binary the standardized datasets are written in the binary format instead of ARFF. With -stream they are
+        // also written in the binary format, but reading the datasets bag by bag instead of loading them in memory
+        boolean binary = false;
+        boolean stream = false;
+        try {
+            binary = Utils.getFlag("binary", args);
+            stream = Utils.getFlag("stream", args);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
         MIStandardization filter = new MIStandardization();
         for (String d : datasets) {
             for (int i = 1; i < 2; ++i) {
+                if (stream) {
+                    streamStandardization(filter, "/home/aurora/Escritorio/datasets/" + d + ".arff", "datasets/" + d, i);
+                    continue;
+                }
                 Instances data = ProcessDataset.readArff("/home/aurora/Escritorio/datasets/" + d + ".arff");
                 String ext = "";
                 switch (i) {
@@ -60,7 +81,10 @@ public class RunPreprocess {
                         break;
                 }
                 try {
-                    ConverterUtils.DataSink.write("datasets/" + d + ext + ".arff", data);
+                    if (binary)
+                        BinaryDataset.write(data, new File("datasets/" + d + ext + BinaryDataset.EXTENSION));
+                    else
+                        ConverterUtils.DataSink.write("datasets/" + d + ext + ".arff", data);
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -68,4 +92,22 @@ public class RunPreprocess {
             System.out.println("Finished dataset " + d);
         }
     }
+
+    private static void streamStandardization(MIStandardization filter, String input, String output, int i) {
+        try {
+            BagStreamReader reader = new BagStreamReader(input);
+            MIStandardization.Statistics statistics = new MIStandardization.Statistics();
+            reader.stream(statistics);
+            switch (i) {
+                case 0:
+                    reader.stream(filter.z1(statistics, new BinaryDataset.Writer(new File(output + "-z1" + BinaryDataset.EXTENSION))));
+                    break;
+                case 1:
+                    reader.stream(filter.z5(statistics, new BinaryDataset.Writer(new File(output + "-z5" + BinaryDataset.EXTENSION))));
+                    break;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package miclustering;
+
+import miclustering.evaluators.StreamingEvaluation;
+import miclustering.utils.BagStreamReader;
+import miclustering.utils.LoadByName;
+import weka.core.DistanceFunction;
+import weka.core.Utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes twcv, ftwcv and rmssd of clusterings of a dataset that does not fit in memory, reading it bag by bag with
+ * {@link StreamingEvaluation}:
+ * <pre>RunStreamingEvaluation [-A "HausdorffDistance -hausdorff-type 0"] dataset assignments...</pre>
+ * Each assignments file has the cluster of each bag of the dataset, in order, separated by blanks or new lines, with -1
+ * for the bags without cluster. The dataset may be an ARFF or a binary dataset, and the summary of its bags is only
+ * computed once for all the assignments.
+ */
+public class RunStreamingEvaluation {
+    public static void main(String[] args) {
+        String distance = "HausdorffDistance -hausdorff-type 0";
+        try {
+            String option = Utils.getOption('A', args);
+            if (!option.isEmpty())
+                distance = option;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        List<String> paths = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.isEmpty())
+                paths.add(arg);
+        }
+        if (paths.size() < 2) {
+            System.err.println("Format: [-A <distance>] <dataset> <assignments>...");
+            System.exit(1);
+        }
+
+        try {
+            List<int[]> assignments = new ArrayList<>(paths.size() - 1);
+            int maxNumClusters = 0;
+            for (String path : paths.subList(1, paths.size())) {
+                int[] clusterAssignments = readAssignments(path);
+                for (int cluster : clusterAssignments)
+                    maxNumClusters = Math.max(maxNumClusters, cluster + 1);
+                assignments.add(clusterAssignments);
+            }
+
+            String[] distanceSpec = Utils.splitOptions(distance);
+            String distanceClass = distanceSpec[0].contains(".") ? distanceSpec[0] : "miclustering.distances." + distanceSpec[0];
+            DistanceFunction distanceFunction = LoadByName.distanceFunction(distanceClass,
+                    Arrays.copyOfRange(distanceSpec, 1, distanceSpec.length));
+            StreamingEvaluation evaluation = new StreamingEvaluation(new BagStreamReader(paths.get(0)), maxNumClusters, distanceFunction);
+            int numBags = evaluation.getSummary().numBags();
+
+            for (int i = 0; i < assignments.size(); ++i) {
+                int[] clusterAssignments = assignments.get(i);
+                String path = paths.get(i + 1);
+                if (clusterAssignments.length != numBags) {
+                    System.err.println(path + ": " + clusterAssignments.length + " assignments for " + numBags + " bags");
+                    continue;
+                }
+                double[] centroidDistances = evaluation.centroidDistances(clusterAssignments);
+                System.out.println(path + ": twcv " + evaluation.twcv(centroidDistances) +
+                        ", ftwcv " + evaluation.ftwcv(clusterAssignments) +
+                        ", rmssd " + evaluation.rmssd(clusterAssignments, centroidDistances));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static int[] readAssignments(String path) throws IOException {
+        String text = new String(Files.readAllBytes(Paths.get(path))).trim();
+        if (text.isEmpty())
+            return new int[0];
+        String[] values = text.split("\\s+");
+        int[] clusterAssignments = new int[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            clusterAssignments[i] = Integer.parseInt(values[i]);
+            if (clusterAssignments[i] < -1)
+                throw new IOException(path + ": invalid cluster " + values[i]);
+        }
+        return clusterAssignments;
+    }
+}
@@ -1,5 +1,6 @@
 package miclustering.algorithms;
 
+import jclec.util.ComputeRuntime;
 import miclustering.utils.ProcessDataset;
 import weka.classifiers.rules.DecisionTableHashKey;
 import weka.core.Instance;
@@ -57,11 +58,6 @@ public class BAMIC extends MIKMeans {
         groupBag.relationalValue(1).delete();
         groupBag.relationalValue(1).addAll(groupInstances);
 
-        ExecutorService executor;
-        if (parallelize)
-            executor = Executors.newFixedThreadPool((int) (Runtime.getRuntime().availableProcessors() * 0.25));
-        else
-            executor = Executors.newFixedThreadPool(1);
         Collection<Callable<Map<Integer, Double>>> collection = new ArrayList<>(cluster.numInstances());
         for (int i = 0; i < cluster.numInstances(); ++i)
             collection.add(new ParallelizeComputeCentroid(i, cluster.get(i), groupBag));
@@ -69,7 +65,7 @@ public class BAMIC extends MIKMeans {
         int minimal = -1;
         try {
             Map<Integer, Double> distances = new HashMap<>(cluster.numInstances());
-            List<Future<Map<Integer, Double>>> futures = executor.invokeAll(collection);
+            List<Future<Map<Integer, Double>>> futures = ComputeRuntime.invokeAll(ComputeRuntime.CLUSTERING, collection, parallelize);
             for (Future<Map<Integer, Double>> future : futures) {
                 Map<Integer, Double> result = future.get();
                 distances.putAll(result);
@@ -78,7 +74,6 @@ public class BAMIC extends MIKMeans {
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
         }
-        executor.shutdown();
 
         return cluster.get(minimal);
     }
@@ -0,0 +1,268 @@
+package miclustering.algorithms;
+
+import jclec.util.ComputeRuntime;
+import miclustering.distances.BagDistanceBound;
+import miclustering.utils.BagStore;
+import weka.core.DistanceFunction;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assignment of the bags to their nearest centroid along the iterations of k-means, giving the same result as
+ * {@link OneStepKMeans#assignBags(Map, boolean)} but skipping the distances that cannot change the cluster of a bag
+ * (Hamerly's algorithm).
+ * <p>
+ * Each bag keeps an upper bound of the distance to its centroid and a lower bound of the distance to the rest of them.
+ * When the centroids move, the bounds are loosened by how much they have moved, and only the bags whose upper bound
+ * reaches their lower bound are checked again. The distance must satisfy the triangle inequality (see
+ * {@link miclustering.utils.DistancesMatrix#isDistance}). It may be asymmetric, as the maximal minimal Hausdorff
+ * distance is: the upper bounds grow with the distance from the old to the new centroid and the lower bounds shrink with
+ * the distance from the new to the old one.
+ * <p>
+ * When a bag has to be checked, the distances to the centroids discarded by the {@link BagDistanceBound} of the
+ * distance are not computed either, and their bound is kept as lower bound.
+ */
+public class HamerlyAssignment {
+    private static final double TOLERANCE = 1E-12;
+    private final Instances dataset;
+    private final DistanceFunction distanceFunction;
+    private final OneStepKMeans oneStepKMeans;
+    private final int numClusters;
+    private final boolean checkValidSolution;
+    private final BagDistanceBound bound;
+    private final AtomicLong computed = new AtomicLong();
+    private final AtomicLong avoided = new AtomicLong();
+
+    private Instance[] previous;
+    private int[] assignments;
+    private double[] upper;
+    private double[] lower;
+
+    public HamerlyAssignment(Instances dataset, DistanceFunction distanceFunction, int numClusters, boolean checkValidSolution) {
+        this.dataset = dataset;
+        this.distanceFunction = distanceFunction;
+        this.numClusters = numClusters;
+        this.checkValidSolution = checkValidSolution;
+        oneStepKMeans = new OneStepKMeans(dataset, distanceFunction, numClusters, checkValidSolution);
+        bound = BagDistanceBound.of(distanceFunction);
+        assignments = new int[dataset.numInstances()];
+        upper = new double[dataset.numInstances()];
+        lower = new double[dataset.numInstances()];
+    }
+
+    public List<Integer> assignBagsToClusters(Map<Integer, Instance> centroids, boolean parallelize) {
+        int[] result = assignBags(centroids, parallelize);
+        List<Integer> list = new ArrayList<>(result.length);
+        for (int clusterIdx : result)
+            list.add(clusterIdx);
+        return list;
+    }
+
+    /**
+     * Assigns each bag to its nearest centroid, as {@link OneStepKMeans#assignBags(Map, boolean)} does, using the bounds
+     * of the previous call.
+     */
+    public int[] assignBags(Map<Integer, Instance> centroids, boolean parallelize) {
+        Instance[] current = new Instance[numClusters];
+        for (int i = 0; i < numClusters; ++i) {
+            current[i] = centroids.get(i);
+            if (current[i] == null) {
+                // Without all the centroids the bounds cannot be kept
+                previous = null;
+                return oneStepKMeans.assignBags(centroids, parallelize);
+            }
+        }
+
+        double[] growth = new double[numClusters];
+        double[] shrink = new double[numClusters];
+        if (previous != null) {
+            for (int i = 0; i < numClusters; ++i) {
+                if (current[i] != previous[i]) {
+                    growth[i] = distanceFunction.distance(previous[i], current[i]);
+                    shrink[i] = distanceFunction.distance(current[i], previous[i]);
+                }
+            }
+        }
+
+        BagStore centroidStore = centroidStore(current);
+        int numBags = dataset.numInstances();
+        int numTasks = parallelize ? Math.min(numBags, 4 * ComputeRuntime.getStageParallelism(ComputeRuntime.CLUSTERING)) : 1;
+        Collection<Callable<Void>> collection = new ArrayList<>(numTasks);
+        for (int t = 0; t < numTasks; ++t) {
+            int from = (int) ((long) numBags * t / numTasks);
+            int to = (int) ((long) numBags * (t + 1) / numTasks);
+            boolean first = previous == null;
+            collection.add(() -> {
+                for (int i = from; i < to; ++i)
+                    update(current, centroidStore, i, first, growth, shrink);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : ComputeRuntime.invokeAll(ComputeRuntime.CLUSTERING, collection, parallelize))
+                future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+
+        if (checkValidSolution)
+            fillEmptyClusters(current);
+
+        previous = current;
+        return assignments.clone();
+    }
+
+    /**
+     * Number of distances from bags to centroids computed.
+     */
+    public long getComputed() {
+        return computed.get();
+    }
+
+    /**
+     * Number of distances from bags to centroids avoided by the bounds.
+     */
+    public long getAvoided() {
+        return avoided.get();
+    }
+
+    public String countersToString() {
+        long total = getComputed() + getAvoided();
+        return "Distances avoided by the assignment bounds: " + getAvoided() + " of " + total + " ("
+                + (total > 0 ? Math.round(100D * getAvoided() / total) : 0) + "%)";
+    }
+
+    /**
+     * Store of the centroids to compute their bounds, or null if the distance has no bound or they cannot be compared
+     * with the bags of the dataset.
+     */
+    private BagStore centroidStore(Instance[] centroids) {
+        BagStore store = BagStore.lookup(dataset);
+        if (bound == null || store == null)
+            return null;
+        try {
+            BagStore centroidStore = BagStore.ofBags(centroids);
+            return centroidStore.numAttributes() == store.numAttributes() ? centroidStore : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void update(Instance[] centroids, BagStore centroidStore, int bagIdx, boolean first, double[] growth, double[] shrink) {
+        if (!first) {
+            int cluster = assignments[bagIdx];
+            double maxShrink = 0D;
+            for (int i = 0; i < numClusters; ++i) {
+                if (i != cluster)
+                    maxShrink = Math.max(maxShrink, shrink[i]);
+            }
+            upper[bagIdx] += growth[cluster];
+            lower[bagIdx] -= maxShrink;
+            if (separated(bagIdx)) {
+                avoided.addAndGet(numClusters);
+                return;
+            }
+            upper[bagIdx] = distanceFunction.distance(dataset.get(bagIdx), centroids[cluster]);
+            computed.incrementAndGet();
+            if (separated(bagIdx)) {
+                avoided.addAndGet(numClusters - 1);
+                return;
+            }
+        }
+
+        // Exact distances, or lower bounds for the centroids discarded by them
+        double[] distances = computeDistances(centroids, centroidStore, bagIdx);
+
+        // Same choice as OneStepKMeans: the first nearest centroid. Discarded ones are farther than the nearest.
+        int nearest = 0;
+        for (int i = 1; i < numClusters; ++i) {
+            if (distances[i] < distances[nearest])
+                nearest = i;
+        }
+        double second = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < numClusters; ++i) {
+            if (i != nearest)
+                second = Math.min(second, distances[i]);
+        }
+        assignments[bagIdx] = nearest;
+        upper[bagIdx] = distances[nearest];
+        lower[bagIdx] = second;
+    }
+
+    private double[] computeDistances(Instance[] centroids, BagStore centroidStore, int bagIdx) {
+        Instance bag = dataset.get(bagIdx);
+        double[] distances = new double[numClusters];
+        if (centroidStore == null) {
+            for (int i = 0; i < numClusters; ++i)
+                distances[i] = distanceFunction.distance(bag, centroids[i]);
+            computed.addAndGet(numClusters);
+            return distances;
+        }
+
+        BagStore store = BagStore.lookup(dataset);
+        double[] bounds = new double[numClusters];
+        int first = 0;
+        for (int i = 0; i < numClusters; ++i) {
+            bounds[i] = bound.lowerBound(store, bagIdx, centroidStore, i);
+            if (bounds[i] < bounds[first])
+                first = i;
+        }
+        distances[first] = distanceFunction.distance(bag, centroids[first]);
+        double nearest = distances[first];
+        int numComputed = 1;
+        for (int i = 0; i < numClusters; ++i) {
+            if (i == first)
+                continue;
+            if (bound.exceeds(bounds[i], nearest)) {
+                distances[i] = bounds[i];
+            } else {
+                distances[i] = distanceFunction.distance(bag, centroids[i]);
+                nearest = Math.min(nearest, distances[i]);
+                numComputed++;
+            }
+        }
+        computed.addAndGet(numComputed);
+        avoided.addAndGet(numClusters - numComputed);
+        return distances;
+    }
+
+    /**
+     * If the bag is certainly nearer to its centroid than to any other, so that it keeps its cluster. The bounds must
+     * be strictly separated, as the first centroid is chosen among several at the same distance.
+     */
+    private boolean separated(int bagIdx) {
+        return upper[bagIdx] + TOLERANCE * Math.max(1D, upper[bagIdx]) < lower[bagIdx];
+    }
+
+    /**
+     * Same repair as {@link OneStepKMeans#assignBags(Map, boolean)}: the bag nearest to each empty centroid is moved to
+     * it.
+     */
+    private void fillEmptyClusters(Instance[] centroids) {
+        int[] clusterCounts = new int[numClusters];
+        for (int clusterIdx : assignments)
+            clusterCounts[clusterIdx]++;
+        for (int i = 0; i < numClusters; ++i) {
+            if (clusterCounts[i] == 0) {
+                int closer = 0;
+                double closerDistance = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < dataset.numInstances(); ++j) {
+                    double distance = distanceFunction.distance(dataset.get(j), centroids[i]);
+                    if (distance < closerDistance) {
+                        closer = j;
+                        closerDistance = distance;
+                    }
+                }
+                computed.addAndGet(dataset.numInstances());
+                assignments[closer] = i;
+                upper[closer] = closerDistance;
+                // Its previous centroid may be nearer, so it has to be checked again
+                lower[closer] = 0D;
+            }
+        }
+    }
+}
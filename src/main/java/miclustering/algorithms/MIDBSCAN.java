@@ -2,6 +2,7 @@ package miclustering.algorithms;
 
 import miclustering.algorithms.utils.DataObject;
 import miclustering.algorithms.utils.Database;
+import miclustering.distances.BagDistanceBound;
 import miclustering.distances.HausdorffDistance;
 import miclustering.utils.LoadByName;
 import weka.clusterers.AbstractClusterer;
@@ -24,6 +25,7 @@ public class MIDBSCAN extends AbstractClusterer implements MIClusterer, OptionHa
     private double elapsedTime;
     private boolean printClusterAssignments;
     private List<Integer> clusterAssignments;
+    private boolean precomputeDistances = true;
 
     @Override
     public Capabilities getCapabilities() {
@@ -46,11 +48,14 @@ public class MIDBSCAN extends AbstractClusterer implements MIClusterer, OptionHa
         numGeneratedClusters = 0;
         numNoises = 0;
         clusterID = 0;
-        database = new Database(distFunction, instances);
+        database = new Database(distFunction, instances, precomputeDistances);
+        if (BagDistanceBound.of(distFunction) != null)
+            BagDistanceBound.of(distFunction).resetCounters();
         clusterAssignments = new ArrayList<>(instances.numInstances());
 
-        for (Instance instance : database.getInstances()) {
-            DataObject dataObject = new DataObject(instance, instance.stringValue(0));
+        for (int i = 0; i < database.getInstances().numInstances(); ++i) {
+            Instance instance = database.getInstances().instance(i);
+            DataObject dataObject = new DataObject(instance, instance.stringValue(0), i);
             database.insert(dataObject);
         }
 
@@ -126,6 +131,9 @@ public class MIDBSCAN extends AbstractClusterer implements MIClusterer, OptionHa
         result.append("Number of noisily instances: ").append(numNoises).append("\n");
         DecimalFormat decimalFormat = new DecimalFormat(".##");
         result.append("Elapsed time: ").append(decimalFormat.format(elapsedTime)).append("\n");
+        BagDistanceBound bound = BagDistanceBound.of(distFunction);
+        if (!precomputeDistances && bound != null)
+            result.append(bound.countersToString()).append("\n");
 
         if (printClusterAssignments) {
             result.append("Cluster assigntments:\n");
@@ -147,6 +155,7 @@ public class MIDBSCAN extends AbstractClusterer implements MIClusterer, OptionHa
         vector.addElement(new Option("\tminPoints (default = 6)", "M", 1, "-M <int>"));
         vector.add(new Option("\tDistance function to use.\n\t(default: HausdorffDistance)", "A", 1, "-A <classname and options>"));
         vector.add(new Option("\tOutput clusters assignments", "output-clusters", 0, "-output-clusters"));
+        vector.add(new Option("\tCompute the distances in each range query instead of precomputing the distances matrix.\n\tMetric distances are looked up through a vantage-point tree, the rest are abandoned once they exceed epsilon", "no-distances-matrix", 0, "-no-distances-matrix"));
         vector.add(new Option("\tNumber of threads to run in parallel", "num-slots", 1, "-num-slots <int>"));
         return vector.elements();
     }
@@ -163,6 +172,8 @@ public class MIDBSCAN extends AbstractClusterer implements MIClusterer, OptionHa
             this.setEpsilon(Double.parseDouble(epsilon));
         }
 
+        precomputeDistances = !Utils.getFlag("no-distances-matrix", options);
+
         String distFunctionClass = Utils.getOption('A', options);
         distFunction = LoadByName.distanceFunction(distFunctionClass, options);
 
@@ -180,6 +191,8 @@ public class MIDBSCAN extends AbstractClusterer implements MIClusterer, OptionHa
         result.add(Double.toString(epsilon));
         result.add("-A");
         result.add((distFunction.getClass().getName() + " " + Utils.joinOptions(distFunction.getOptions())).trim());
+        if (!precomputeDistances)
+            result.add("-no-distances-matrix");
         return result.toArray(new String[0]);
     }
 
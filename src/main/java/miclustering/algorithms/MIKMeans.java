@@ -1,7 +1,11 @@
 package miclustering.algorithms;
 
+import jclec.util.ComputeRuntime;
+import miclustering.distances.BagDistanceBound;
 import miclustering.distances.HausdorffDistance;
+import miclustering.utils.BagStore;
 import miclustering.utils.DatasetCentroids;
+import miclustering.utils.DistancesMatrix;
 import miclustering.utils.LoadByName;
 import org.apache.commons.math3.stat.descriptive.rank.Min;
 import weka.classifiers.rules.DecisionTableHashKey;
@@ -38,6 +42,8 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
     private double elapsedTime;
     private Instances instances;
     private OneStepKMeans oneStepKMeans;
+    private boolean accelerate = false;
+    private HamerlyAssignment hamerlyAssignment;
 
     public MIKMeans() {
         this.m_SeedDefault = 10;
@@ -62,6 +68,9 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         long startTime = System.currentTimeMillis();
         int numInstAttributes = data.get(0).relationalValue(1).numAttributes();
         instances = data;
+        BagStore.of(instances);
+        if (BagDistanceBound.of(distFunction) != null)
+            BagDistanceBound.of(distFunction).resetCounters();
 
         Instances aux = new Instances(instances.get(0).relationalValue(1));
         for (int i = 1; i < instances.size(); ++i) {
@@ -92,6 +101,8 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         currentNClusters = centroids.size();
 
         oneStepKMeans = new OneStepKMeans(instances, distFunction, numClusters, true);
+        // The bounds are only valid for distances that satisfy the triangle inequality
+        hamerlyAssignment = accelerate && DistancesMatrix.isDistance(distFunction) ? new HamerlyAssignment(instances, distFunction, numClusters, true) : null;
 
         this.iterations = 0;
         int index;
@@ -99,7 +110,11 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         Instances[] bagsPerCluster = new Instances[currentNClusters];
         while (!converged) {
             this.iterations++;
-            List<Integer> newAssignation = oneStepKMeans.assignBagsToClusters(centroids, parallelize);
+            List<Integer> newAssignation;
+            if (hamerlyAssignment != null)
+                newAssignation = hamerlyAssignment.assignBagsToClusters(centroids, parallelize);
+            else
+                newAssignation = oneStepKMeans.assignBagsToClusters(centroids, parallelize);
             converged = clusterAssignments.equals(newAssignation);
             clusterAssignments = newAssignation;
 
@@ -198,11 +213,6 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         int emptyClusterCount = 0;
         centroids = new HashMap<>(numClusters);
 
-        ExecutorService executor;
-        if (parallelize)
-            executor = Executors.newFixedThreadPool((int) (0.5 * Runtime.getRuntime().availableProcessors()));
-        else
-            executor = Executors.newFixedThreadPool(1);
         Collection<Callable<Map<Integer, Instance>>> collection = new ArrayList<>(numClusters);
         for (int i = 0; i < currentNClusters; ++i) {
             if (clusters[i].numInstances() == 0)
@@ -211,7 +221,7 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
                 collection.add(new ParallelizeComputeCentroids(i, clusters[i]));
         }
         try {
-            List<Future<Map<Integer, Instance>>> futures = executor.invokeAll(collection);
+            List<Future<Map<Integer, Instance>>> futures = ComputeRuntime.invokeAll(ComputeRuntime.CLUSTERING, collection, parallelize);
             for (Future<Map<Integer, Instance>> future : futures) {
                 Map<Integer, Instance> result = future.get();
                 centroids.putAll(result);
@@ -219,7 +229,6 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
         }
-        executor.shutdown();
 
         return emptyClusterCount;
     }
@@ -292,6 +301,7 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         result.add(new Option("\tMaximum number of iterations.\n", "I", 1, "-I <num>"));
         result.addElement(new Option("\tPreserve order of instances.\n", "O", 0, "-O"));
         result.addElement(new Option("\tEnables faster distance calculations, using cut-off values.\n\tDisables the calculation/output of squared errors/miclustering.distances.\n", "fast", 0, "-fast"));
+        result.addElement(new Option("\tKeep bounds of the distances from each bag to the centroids to skip the ones that\n\tcannot change its cluster (Hamerly). Only for distances that satisfy the triangle inequality.", "accelerate", 0, "-accelerate"));
         result.addElement(new Option("\tNumber of execution slots.\n\t(default 1 - i.e. no parallelism)", "num-slots", 1, "-num-slots <num>"));
         result.addAll(Collections.list(super.listOptions()));
         return result.elements();
@@ -392,6 +402,7 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         distFunction = LoadByName.distanceFunction(distFunctionClass, options);
 
         parallelize = Utils.getFlag("parallelize", options);
+        accelerate = Utils.getFlag("accelerate", options);
 
         super.setOptions(options);
         Utils.checkForRemainingOptions(options);
@@ -409,6 +420,8 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         result.add((distFunction.getClass().getName() + " " + Utils.joinOptions(distFunction.getOptions())).trim());
         result.add("-I");
         result.add(String.valueOf(this.getMaxIterations()));
+        if (accelerate)
+            result.add("-accelerate");
         Collections.addAll(result, super.getOptions());
         return result.toArray(new String[0]);
     }
@@ -451,6 +464,11 @@ public class MIKMeans extends RandomizableClusterer implements MIClusterer, Numb
         }
         DecimalFormat decimalFormat = new DecimalFormat(".##");
         result.append("Elapsed time: ").append(decimalFormat.format(elapsedTime)).append("\n");
+        BagDistanceBound bound = BagDistanceBound.of(distFunction);
+        if (bound != null)
+            result.append(bound.countersToString()).append("\n");
+        if (hamerlyAssignment != null)
+            result.append(hamerlyAssignment.countersToString()).append("\n");
 
         result.append(printSurvey());
 
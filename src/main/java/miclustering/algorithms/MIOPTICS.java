@@ -32,6 +32,7 @@ public class MIOPTICS extends AbstractClusterer implements MIClusterer, OptionHa
     private ArrayList<DataObject> resultVector;
     private boolean showGUI = true;
     private File databaseOutput = new File(".");
+    private boolean precomputeDistances = true;
 
     @Override
     public Capabilities getCapabilities() {
@@ -58,10 +59,10 @@ public class MIOPTICS extends AbstractClusterer implements MIClusterer, OptionHa
         ReplaceMissingValues replaceMissingValues_Filter = new ReplaceMissingValues();
         replaceMissingValues_Filter.setInputFormat(instances);
         Instances filteredInstances = Filter.useFilter(instances, replaceMissingValues_Filter);
-        this.database = new Database(this.getDistanceFunction(), filteredInstances);
+        this.database = new Database(this.getDistanceFunction(), filteredInstances, precomputeDistances);
 
         for (int i = 0; i < this.database.getInstances().numInstances(); ++i) {
-            DataObject dataObject = new DataObject(this.database.getInstances().instance(i), Integer.toString(i));
+            DataObject dataObject = new DataObject(this.database.getInstances().instance(i), Integer.toString(i), i);
             this.database.insert(dataObject);
         }
 
@@ -171,6 +172,7 @@ public class MIOPTICS extends AbstractClusterer implements MIClusterer, OptionHa
         vector.addElement(new Option("\tminPoints (default = 6)", "M", 1, "-M <int>"));
         vector.add(new Option("\tDistance function to use.\n\t(default: weka.core.EuclideanDistance)", "A", 1, "-A <classname and options>"));
         vector.addElement(new Option("\twrite results to OPTICS_#TimeStamp#.TXT - File", "F", 0, "-F"));
+        vector.add(new Option("\tCompute the distances in each query instead of precomputing the distances matrix", "no-distances-matrix", 0, "-no-distances-matrix"));
         vector.addElement(new Option("\tsuppress the display of the GUI after building the clusterer", "no-gui", 0, "-no-gui"));
         vector.addElement(new Option("\tThe file to save the generated database to. If a directory\n\tis provided, the database doesn't get saved.\n\tThe generated file can be viewed with the OPTICS Visualizer:\n\t  java " + OPTICS_Visualizer.class.getName() + " [file.ser]\n" + "\t(default: .)", "db-output", 1, "-db-output <file>"));
         return vector.elements();
@@ -190,6 +192,8 @@ public class MIOPTICS extends AbstractClusterer implements MIClusterer, OptionHa
             this.setMinPoints(Integer.parseInt(optionString));
         }
 
+        precomputeDistances = !Utils.getFlag("no-distances-matrix", options);
+
         String distFunctionClass = Utils.getOption('A', options);
         distFunction = LoadByName.distanceFunction(distFunctionClass, options);
 
@@ -220,6 +224,9 @@ public class MIOPTICS extends AbstractClusterer implements MIClusterer, OptionHa
             result.add("-no-gui");
         }
 
+        if (!precomputeDistances)
+            result.add("-no-distances-matrix");
+
         result.add("-db-output");
         result.add(String.valueOf(this.getDatabaseOutput()));
         return result.toArray(new String[0]);
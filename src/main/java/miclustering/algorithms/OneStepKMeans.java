@@ -1,10 +1,10 @@
 package miclustering.algorithms;
 
+import jclec.util.ComputeRuntime;
+import miclustering.distances.BagDistanceBound;
+import miclustering.utils.BagStore;
 import miclustering.utils.DatasetCentroids;
-import miclustering.utils.ProcessDataset;
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.stat.descriptive.rank.Min;
+import miclustering.utils.DatasetRegistry;
 import weka.core.DistanceFunction;
 import weka.core.Instance;
 import weka.core.Instances;
@@ -12,7 +12,6 @@ import weka.core.Utils;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
 
 public class OneStepKMeans {
     private final Instances dataset;
@@ -22,8 +21,7 @@ public class OneStepKMeans {
     private final boolean checkValidSolution;
 
     public OneStepKMeans(String datasetPath, String distanceClass, String distanceConfig, int numClusters, boolean checkValidSolution) {
-        Instances dataset = ProcessDataset.readArff(datasetPath);
-        dataset.setClassIndex(2);
+        Instances dataset = DatasetRegistry.get(datasetPath);
         try {
             distanceFunction = (DistanceFunction) Utils.forName(DistanceFunction.class, distanceClass, Utils.splitOptions(distanceConfig));
         } catch (Exception e) {
@@ -43,31 +41,43 @@ public class OneStepKMeans {
         datasetCentroids = new DatasetCentroids(dataset, numClusters, distanceFunction);
     }
 
-    public List<Integer> evaluate (List<Integer> clusterAssignments, boolean parallelize) {
+    public int[] evaluate(int[] clusterAssignments, boolean parallelize) {
         Map<Integer, Instance> centroids = datasetCentroids.compute(clusterAssignments, parallelize);
-        return assignBagsToClusters(centroids, parallelize);
+        return assignBags(centroids, parallelize);
     }
 
-    public List<Integer> assignBagsToClusters(int[] centroidsIdx, boolean parallelize) {
+    public List<Integer> evaluate (List<Integer> clusterAssignments, boolean parallelize) {
+        return toList(evaluate(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), parallelize));
+    }
+
+    public int[] assignBags(int[] centroidsIdx, boolean parallelize) {
         Map<Integer, Instance> centroids = new HashMap<>(centroidsIdx.length);
         for (int i = 0; i < centroidsIdx.length; ++i) {
             Instance centroid = dataset.get(centroidsIdx[i]);
             centroids.put(i, centroid);
         }
-        return assignBagsToClusters(centroids, parallelize);
+        return assignBags(centroids, parallelize);
+    }
+
+    public List<Integer> assignBagsToClusters(int[] centroidsIdx, boolean parallelize) {
+        return toList(assignBags(centroidsIdx, parallelize));
     }
 
     public List<Integer> assignBagsToClusters(Map<Integer, Instance> centroids, boolean parallelize) {
+        return toList(assignBags(centroids, parallelize));
+    }
+
+    public int[] assignBags(Map<Integer, Instance> centroids, boolean parallelize) {
         double[][] distances = new double[dataset.numInstances()][numClusters];
+        BagStore centroidStore = centroidStore(centroids);
 
         if (parallelize) {
-            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
             Collection<Callable<ResultAssignation>> collection = new ArrayList<>(dataset.numInstances());
             for (int i = 0; i < dataset.numInstances(); ++i) {
-                collection.add(new ParallelizeAssignation(centroids, dataset.get(i), i));
+                collection.add(new ParallelizeAssignation(centroids, centroidStore, i));
             }
             try {
-                List<Future<ResultAssignation>> futures = executor.invokeAll(collection);
+                List<Future<ResultAssignation>> futures = ComputeRuntime.invokeAll(ComputeRuntime.CLUSTERING, collection);
                 for (Future<ResultAssignation> future : futures) {
                     ResultAssignation result = future.get();
                     distances[result.getBagId()] = result.getDistances();
@@ -75,21 +85,21 @@ public class OneStepKMeans {
             } catch (InterruptedException | ExecutionException e) {
                 e.printStackTrace();
             }
-            executor.shutdown();
         } else {
             for (int i = 0; i < dataset.numInstances(); ++i) {
-                distances[i] = computeAssignation(centroids, dataset.get(i));
+                distances[i] = computeAssignation(centroids, centroidStore, i);
             }
         }
 
-        RealMatrix distMatrix = new Array2DRowRealMatrix(distances);
-        List<Integer> clusterAssignments = new ArrayList<>(dataset.numInstances());
+        int[] clusterAssignments = new int[dataset.numInstances()];
         int[] clusterCounts = new int[numClusters];
-        Min getMin = new Min();
         for (int i = 0; i < dataset.numInstances(); ++i) {
-            double min = getMin.evaluate(distMatrix.getRow(i));
-            int clusterIdx = Arrays.stream(distances[i]).boxed().collect(Collectors.toList()).indexOf(min);
-            clusterAssignments.add(clusterIdx);
+            int clusterIdx = 0;
+            for (int j = 1; j < numClusters; ++j) {
+                if (distances[i][j] < distances[i][clusterIdx])
+                    clusterIdx = j;
+            }
+            clusterAssignments[i] = clusterIdx;
             clusterCounts[clusterIdx]++;
         }
 
@@ -97,9 +107,17 @@ public class OneStepKMeans {
             //TODO esto puede fallar si hay más de un cluster vacío y coinciden en su bolsa más cercana.
             for (int i = 0; i < numClusters; ++i) {
                 if (clusterCounts[i] == 0) {
-                    double min = getMin.evaluate(distMatrix.getColumn(i));
-                    int closer = Arrays.stream(distMatrix.getColumn(i)).boxed().collect(Collectors.toList()).indexOf(min);
-                    clusterAssignments.set(closer, i);
+                    // The distances skipped by the bounds are needed here
+                    for (int j = 0; j < dataset.numInstances(); ++j) {
+                        if (distances[j][i] == Double.POSITIVE_INFINITY)
+                            distances[j][i] = distanceFunction.distance(dataset.get(j), centroids.get(i));
+                    }
+                    int closer = 0;
+                    for (int j = 1; j < dataset.numInstances(); ++j) {
+                        if (distances[j][i] < distances[closer][i])
+                            closer = j;
+                    }
+                    clusterAssignments[closer] = i;
                 }
             }
         }
@@ -107,22 +125,86 @@ public class OneStepKMeans {
         return clusterAssignments;
     }
 
+    private static List<Integer> toList(int[] clusterAssignments) {
+        List<Integer> result = new ArrayList<>(clusterAssignments.length);
+        for (int clusterIdx : clusterAssignments)
+            result.add(clusterIdx);
+        return result;
+    }
+
     private class ParallelizeAssignation implements Callable<ResultAssignation> {
         Map<Integer, Instance> centroids;
-        Instance bag;
+        BagStore centroidStore;
         int idx;
-        ParallelizeAssignation(Map<Integer, Instance> centroids, Instance bag, int idx) {
+        ParallelizeAssignation(Map<Integer, Instance> centroids, BagStore centroidStore, int idx) {
             this.centroids = centroids;
-            this.bag = bag;
+            this.centroidStore = centroidStore;
             this.idx = idx;
         }
         @Override
         public ResultAssignation call() throws Exception {
-            double[] distances = computeAssignation(centroids, bag);
+            double[] distances = computeAssignation(centroids, centroidStore, idx);
             return new ResultAssignation(idx, distances);
         }
     }
 
+    /**
+     * Store of the centroids to compute their bounds, or null if the distance has no bound or they cannot be compared
+     * with the bags of the dataset.
+     */
+    private BagStore centroidStore(Map<Integer, Instance> centroids) {
+        BagStore store = BagStore.lookup(dataset);
+        if (BagDistanceBound.of(distanceFunction) == null || store == null)
+            return null;
+        Instance[] bags = new Instance[numClusters];
+        for (int i = 0; i < numClusters; ++i) {
+            bags[i] = centroids.get(i);
+            if (bags[i] == null)
+                return null;
+        }
+        try {
+            BagStore centroidStore = BagStore.ofBags(bags);
+            return centroidStore.numAttributes() == store.numAttributes() ? centroidStore : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Distances from a bag of the dataset to the centroids. The distances to the centroids whose lower bound exceeds
+     * the distance to the nearest one found so far are not computed and are left as infinite.
+     */
+    private double[] computeAssignation(Map<Integer, Instance> centroids, BagStore centroidStore, int bagIdx) {
+        Instance bag = dataset.get(bagIdx);
+        if (centroidStore == null)
+            return computeAssignation(centroids, bag);
+
+        BagDistanceBound bound = BagDistanceBound.of(distanceFunction);
+        BagStore store = BagStore.lookup(dataset);
+        double[] bounds = new double[numClusters];
+        int first = 0;
+        for (int i = 0; i < numClusters; ++i) {
+            bounds[i] = bound.lowerBound(store, bagIdx, centroidStore, i);
+            if (bounds[i] < bounds[first])
+                first = i;
+        }
+
+        double[] distances = new double[numClusters];
+        distances[first] = distanceFunction.distance(bag, centroids.get(first));
+        double nearest = distances[first];
+        for (int i = 0; i < numClusters; ++i) {
+            if (i == first)
+                continue;
+            if (bound.exceeds(bounds[i], nearest)) {
+                distances[i] = Double.POSITIVE_INFINITY;
+            } else {
+                distances[i] = distanceFunction.distance(bag, centroids.get(i));
+                nearest = Math.min(nearest, distances[i]);
+            }
+        }
+        return distances;
+    }
+
     public double[] computeAssignation(Map<Integer, Instance> centroids, Instance bag) {
         double[] distances = new double[numClusters];
         for (int i = 0; i < this.numClusters; ++i) {
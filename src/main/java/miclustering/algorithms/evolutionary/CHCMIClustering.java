@@ -2,33 +2,27 @@ package miclustering.algorithms.evolutionary;
 
 import jclec.algorithm.classic.CHC;
 import jclec.base.FilteredMutator;
-import jclec.problem.classification.multiinstance.MIClassificationMetadata;
-import jclec.problem.util.dataset.AbstractDataset;
-import jclec.problem.util.dataset.ArffDataSet;
-import jclec.problem.util.dataset.IDataset;
+import jclec.intarray.UniformIntArrayIndividualSpecies;
 import miclustering.algorithms.evolutionary.utils.ClusteringEvaluator;
 import miclustering.algorithms.evolutionary.utils.ClusteringMutator;
+import miclustering.evaluators.ClusterEvaluation;
+import miclustering.utils.DatasetRegistry;
 import org.apache.commons.configuration.Configuration;
+import weka.core.Instances;
 
 public class CHCMIClustering extends CHC {
-    private IDataset dataset;
+    private Instances dataset;
     private FilteredMutator kmo;
     private FilteredMutator cm;
 
     @Override
     public void configure(Configuration settings) {
         String pathDataset = settings.getString("evaluator.dataset");
-        setDataset(pathDataset);
+        setDataset(pathDataset, settings.getString("evaluator.standardization", ""));
 
         int k = settings.getInt("evaluator.num-clusters");
-        int nBags = dataset.numberOfExamples();
-        settings.addProperty("species[@type]", "jclec.intarray.IntArrayIndividualSpecies");
-        for (int i = 0; i < nBags; ++i) {
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@type]", "jclec.util.intset.Interval");
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@left]", "0");
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@right]", Integer.toString(k -1));
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@closure]", "closed-closed");
-        }
+        int nBags = dataset.numInstances();
+        UniformIntArrayIndividualSpecies.addToConfiguration(settings, nBags, 0, k - 1);
 
         super.configure(settings);
 
@@ -39,9 +33,9 @@ public class CHCMIClustering extends CHC {
         this.cm.setMutProb(settings.getDouble("cluster-mutator[@mut-prob]"));
         this.cm.setDecorated(cm);
 
-        String distFunc = settings.getString("evaluator.distance[@type]");
-        String distConf = settings.getString("evaluator.distance.config");
-        KMeansOperator kmo = new KMeansOperator(pathDataset, distFunc, distConf, k);
+        ClusterEvaluation clusterEval = ((ClusteringEvaluator) evaluator).getClusterEval();
+        KMeansOperator kmo = new KMeansOperator(clusterEval.getInstances(), clusterEval.getDistanceFunction(), k);
+        kmo.setEvaluator((ClusteringEvaluator) evaluator);
         this.kmo = new FilteredMutator(this);
         this.kmo.setMutProb(settings.getDouble("kmeans-operator[@mut-prob]"));
         this.kmo.setDecorated(kmo);
@@ -49,6 +43,13 @@ public class CHCMIClustering extends CHC {
 
     @Override
     protected void doGeneration() {
+        // Recombine, mutate and evaluate each litter as soon as the previous stage ends with it, if the operators allow it
+        GenerationPipeline pipeline = GenerationPipeline.of(recombinator, evaluator, cm, kmo);
+        if (pipeline != null) {
+            cset = pipeline.run(pset);
+            return;
+        }
+
         // Create sons
         cset = recombinator.recombine(pset);
 
@@ -61,12 +62,8 @@ public class CHCMIClustering extends CHC {
         evaluator.evaluate(cset);
     }
 
-    private void setDataset(String pathToDataset) {
-        dataset = new ArffDataSet();
-        ((AbstractDataset) dataset).setFileName(pathToDataset);
-        dataset.setMetadata(new MIClassificationMetadata());
-        ((MIClassificationMetadata) dataset.getMetadata()).setClassIndex(dataset.getMetadata().numberOfAttributes());
-        dataset.loadExamples();
+    private void setDataset(String pathToDataset, String standardization) {
+        dataset = DatasetRegistry.get(pathToDataset, standardization);
     }
 
     public FilteredMutator getKmo() {
@@ -22,15 +22,13 @@ public class FastClusteringMutator extends ClusteringMutator {
         int[] mgenome = new int[gl];
         System.arraycopy(mutant.getGenotype(), 0, mgenome, 0, gl);
 
-        List<Integer> clusterAssignments = new ArrayList<>(gl);
-        for (int value : mgenome)
-            clusterAssignments.add(value);
+        int[] clusterAssignments = mutant.getGenotype();
         Map<Integer, Instance> centroids = evaluator.getClusterEval().getDatasetCentroids().compute(clusterAssignments, false);
 
         // Mutate loci...
         for (int i = 0; i < gl; i++) {
             if (randgen.coin(locusMutationProb)) {
-                double[] distances = evaluator.getClusterEval().getDatasetCentroids().distanceToCentroids(centroids, clusterAssignments.get(i));
+                double[] distances = evaluator.getClusterEval().getDatasetCentroids().distanceToCentroids(centroids, i);
                 Max getMax = new Max();
                 double[] fitness = new double[evaluator.getNumClusters()];
                 for (int j = 0; j < evaluator.getNumClusters(); ++j)
@@ -62,6 +60,8 @@ public class FastClusteringMutator extends ClusteringMutator {
             }
         }
         // Returns mutant
-        return species.createIndividual(mgenome);
+        IIndividual result = species.createIndividual(mgenome);
+        evaluator.setParent(result, mutant);
+        return result;
     }
 }
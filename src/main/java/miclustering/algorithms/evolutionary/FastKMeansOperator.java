@@ -1,10 +1,15 @@
 package miclustering.algorithms.evolutionary;
 
 import miclustering.algorithms.OneStepKMeans;
+import weka.core.DistanceFunction;
+import weka.core.Instances;
 
 public class FastKMeansOperator extends KMeansOperator {
     public FastKMeansOperator(String dataset, String distFunc, String confDist, int numClusters) {
-        super(dataset, distFunc, confDist, numClusters);
-        oskm = new OneStepKMeans(dataset, distFunc, confDist, numClusters, false);
+        super(new OneStepKMeans(dataset, distFunc, confDist, numClusters, false));
+    }
+
+    public FastKMeansOperator(Instances dataset, DistanceFunction distanceFunction, int numClusters) {
+        super(new OneStepKMeans(dataset, distanceFunction, numClusters, false));
     }
 }
@@ -0,0 +1,127 @@
+package miclustering.algorithms.evolutionary;
+
+import jclec.IEvaluator;
+import jclec.IIndividual;
+import jclec.IRecombinator;
+import jclec.base.AbstractParallelEvaluator;
+import jclec.base.AbstractParallelMutator;
+import jclec.base.AbstractParallelRecombinator;
+import jclec.base.FilteredMutator;
+import jclec.util.ComputeRuntime;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Generation of the genetic clustering algorithms as a pipeline per individual. Each son goes through the
+ * recombination, the filtered mutators and the evaluation as soon as it leaves the previous stage, instead of waiting
+ * for the whole population at each stage, so the only barrier is before the replacement.
+ * <p>
+ * The filters draw their random numbers in the same order as mutating the whole population stage by stage, and each
+ * operator uses the random stream of the index that the individual would have in its stage, so the sons are the same
+ * and in the same order as with the stages.
+ */
+public class GenerationPipeline {
+    private final AbstractParallelRecombinator recombinator;
+    private final AbstractParallelEvaluator evaluator;
+    private final FilteredMutator[] filters;
+    private final AbstractParallelMutator[] mutators;
+
+    private GenerationPipeline(AbstractParallelRecombinator recombinator, AbstractParallelEvaluator evaluator, FilteredMutator[] filters) {
+        this.recombinator = recombinator;
+        this.evaluator = evaluator;
+        this.filters = filters;
+        mutators = new AbstractParallelMutator[filters.length];
+        for (int m = 0; m < filters.length; ++m)
+            mutators[m] = (AbstractParallelMutator) filters[m].getDecorated();
+    }
+
+    /**
+     * Pipeline of a generation that recombines the parents (if recombinator is not null), mutates the sons with each
+     * filtered mutator in order and evaluates them, or null if the operators cannot work on each individual apart.
+     */
+    public static GenerationPipeline of(IRecombinator recombinator, IEvaluator evaluator, FilteredMutator... filters) {
+        if (recombinator != null && !(recombinator instanceof AbstractParallelRecombinator))
+            return null;
+        if (!(evaluator instanceof AbstractParallelEvaluator))
+            return null;
+        for (FilteredMutator filter : filters) {
+            if (!(filter.getDecorated() instanceof AbstractParallelMutator))
+                return null;
+        }
+        return new GenerationPipeline((AbstractParallelRecombinator) recombinator, (AbstractParallelEvaluator) evaluator, filters);
+    }
+
+    /**
+     * Evaluated sons of the parents, in the same order as after the last filtered mutator, with its mutated sons
+     * first and then the rest.
+     */
+    public List<IIndividual> run(List<IIndividual> parents) {
+        int ppl = recombinator != null ? recombinator.getPpl() : 1;
+        int spl = recombinator != null ? recombinator.getSpl() : 1;
+        int litters = parents.size() / ppl;
+        int numSons = litters * spl;
+        if (recombinator != null)
+            recombinator.prepareRecombinations();
+
+        // Order of the sons after each filter, and index of each son in the set mutated by each mutator (-1 if not)
+        List<Integer> order = new ArrayList<>(numSons);
+        for (int i = 0; i < numSons; ++i)
+            order.add(i);
+        int[][] mutationIndex = new int[filters.length][numSons];
+        for (int m = 0; m < filters.length; ++m) {
+            List<Integer> fertile = new ArrayList<>();
+            List<Integer> sterile = new ArrayList<>();
+            for (int son : order) {
+                if (filters[m].nextIsFertile()) {
+                    mutationIndex[m][son] = fertile.size();
+                    fertile.add(son);
+                } else {
+                    mutationIndex[m][son] = -1;
+                    sterile.add(son);
+                }
+            }
+            mutators[m].prepareMutations();
+            fertile.addAll(sterile);
+            order = fertile;
+        }
+        int[] position = new int[numSons];
+        for (int p = 0; p < numSons; ++p)
+            position[order.get(p)] = p;
+
+        IIndividual[] sons = new IIndividual[numSons];
+        Collection<Callable<Void>> tasks = new ArrayList<>(litters);
+        for (int l = 0; l < litters; ++l) {
+            int litter = l;
+            tasks.add(() -> {
+                List<IIndividual> litterSons;
+                if (recombinator != null)
+                    litterSons = recombinator.recombine(parents.subList(litter * ppl, (litter + 1) * ppl), litter);
+                else
+                    litterSons = Collections.singletonList(parents.get(litter));
+                if (litterSons.size() != spl)
+                    throw new IllegalStateException("Recombination returned " + litterSons.size() + " sons instead of " + spl);
+                for (int s = 0; s < spl; ++s) {
+                    int son = litter * spl + s;
+                    IIndividual ind = litterSons.get(s);
+                    for (int m = 0; m < mutators.length; ++m) {
+                        if (mutationIndex[m][son] >= 0)
+                            ind = mutators[m].mutate(ind, mutationIndex[m][son]);
+                    }
+                    evaluator.evaluateIndividual(ind);
+                    sons[position[son]] = ind;
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : ComputeRuntime.invokeAll(ComputeRuntime.OPERATORS, tasks))
+                future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>(Arrays.asList(sons));
+    }
+}
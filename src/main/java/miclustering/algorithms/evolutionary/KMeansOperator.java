@@ -1,15 +1,14 @@
 package miclustering.algorithms.evolutionary;
 
 import miclustering.algorithms.OneStepKMeans;
+import miclustering.algorithms.evolutionary.utils.ClusteringEvaluator;
 import jclec.IIndividual;
 import jclec.ISpecies;
 import jclec.base.AbstractParallelMutator;
 import jclec.intarray.IntArrayIndividual;
 import jclec.intarray.IntArraySpecies;
-import jclec.util.intset.IIntegerSet;
-
-import java.util.ArrayList;
-import java.util.List;
+import weka.core.DistanceFunction;
+import weka.core.Instances;
 
 public class KMeansOperator extends AbstractParallelMutator {
     /**
@@ -17,16 +16,25 @@ public class KMeansOperator extends AbstractParallelMutator {
      */
     protected transient IntArraySpecies species;
 
-    /**
-     * Individuals schema
-     */
-    protected transient IIntegerSet[] schema;
-
     protected OneStepKMeans oskm;
 
+    protected ClusteringEvaluator evaluator;
+
     public KMeansOperator(String dataset, String distFunc, String confDist, int numClusters) {
+        this(new OneStepKMeans(dataset, distFunc, confDist, numClusters, true));
+    }
+
+    /**
+     * Operator over the same dataset and distance function of the evaluator, so that both share the bags and the
+     * distances computed between them.
+     */
+    public KMeansOperator(Instances dataset, DistanceFunction distanceFunction, int numClusters) {
+        this(new OneStepKMeans(dataset, distanceFunction, numClusters, true));
+    }
+
+    protected KMeansOperator(OneStepKMeans oskm) {
         super();
-        oskm = new OneStepKMeans(dataset, distFunc, confDist, numClusters, true);
+        this.oskm = oskm;
     }
 
     @Override
@@ -35,8 +43,6 @@ public class KMeansOperator extends AbstractParallelMutator {
         if (spc instanceof IntArraySpecies) {
             // Sets individual species
             this.species = (IntArraySpecies) spc;
-            // Sets genotype schema
-            this.schema = this.species.getGenotypeSchema();
         } else {
             throw new IllegalStateException("Invalid species in context");
         }
@@ -59,15 +65,19 @@ public class KMeansOperator extends AbstractParallelMutator {
         int[] mgenome = new int[gl];
         System.arraycopy(mutant.getGenotype(), 0, mgenome, 0, gl);
 
-        List<Integer> clusterAssignments = new ArrayList<>(gl);
-        for (int gen : mgenome)
-            clusterAssignments.add(gen);
-
-        List<Integer> mutation = oskm.evaluate(clusterAssignments, false);
-
-        for (int i = 0; i < mutation.size(); ++i)
-            mgenome[i] = mutation.get(i);
+        int[] mutation = oskm.evaluate(mgenome, false);
+        System.arraycopy(mutation, 0, mgenome, 0, mutation.length);
         // Returns mutant
-        return species.createIndividual(mgenome);
+        IIndividual result = species.createIndividual(mgenome);
+        if (evaluator != null)
+            evaluator.setParent(result, mutant);
+        return result;
+    }
+
+    /**
+     * Evaluator that will update the evaluation of the mutated individuals from the one of their parents.
+     */
+    public void setEvaluator(ClusteringEvaluator evaluator) {
+        this.evaluator = evaluator;
     }
 }
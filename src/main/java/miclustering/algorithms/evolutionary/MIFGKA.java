@@ -2,6 +2,7 @@ package miclustering.algorithms.evolutionary;
 
 import jclec.base.FilteredMutator;
 import miclustering.algorithms.evolutionary.utils.ClusteringEvaluator;
+import miclustering.evaluators.ClusterEvaluation;
 import org.apache.commons.configuration.Configuration;
 
 public class MIFGKA extends MIGKA {
@@ -10,12 +11,10 @@ public class MIFGKA extends MIGKA {
     public void configure(Configuration settings) {
         super.configure(settings);
 
-        String pathDataset = settings.getString("evaluator.dataset");
-        setDataset(pathDataset);
         int k = settings.getInt("evaluator.num-clusters");
-        String distFunc = settings.getString("evaluator.distance[@type]");
-        String distConf = settings.getString("evaluator.distance.config");
-        KMeansOperator kmo = new FastKMeansOperator(pathDataset, distFunc, distConf, k);
+        ClusterEvaluation clusterEval = ((ClusteringEvaluator) evaluator).getClusterEval();
+        KMeansOperator kmo = new FastKMeansOperator(clusterEval.getInstances(), clusterEval.getDistanceFunction(), k);
+        kmo.setEvaluator((ClusteringEvaluator) evaluator);
         this.kmo = new FilteredMutator(this);
         this.kmo.setMutProb(settings.getDouble("kmeans-operator[@mut-prob]"));
         this.kmo.setDecorated(kmo);
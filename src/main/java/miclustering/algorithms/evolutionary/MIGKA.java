@@ -3,44 +3,38 @@ package miclustering.algorithms.evolutionary;
 import jclec.IConfigure;
 import jclec.algorithm.classic.SGE;
 import jclec.base.FilteredMutator;
-import jclec.problem.classification.multiinstance.MIClassificationMetadata;
-import jclec.problem.util.dataset.AbstractDataset;
-import jclec.problem.util.dataset.ArffDataSet;
-import jclec.problem.util.dataset.IDataset;
+import jclec.intarray.UniformIntArrayIndividualSpecies;
 import miclustering.algorithms.evolutionary.utils.ClusteringEvaluator;
 import miclustering.algorithms.evolutionary.utils.ClusteringMutator;
+import miclustering.evaluators.ClusterEvaluation;
+import miclustering.utils.DatasetRegistry;
 import org.apache.commons.configuration.Configuration;
+import weka.core.Instances;
 
 public class MIGKA extends SGE implements IConfigure {
 
-    protected IDataset dataset;
+    protected Instances dataset;
     protected FilteredMutator kmo;
 
     @Override
     public void configure(Configuration settings) {
         String pathDataset = settings.getString("evaluator.dataset");
-        setDataset(pathDataset);
+        setDataset(pathDataset, settings.getString("evaluator.standardization", ""));
 
         int k = settings.getInt("evaluator.num-clusters");
 
-        int nBags = dataset.numberOfExamples();
+        int nBags = dataset.numInstances();
 
-        settings.addProperty("species[@type]", "jclec.intarray.IntArrayIndividualSpecies");
-        for (int i = 0; i < nBags; ++i) {
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@type]", "jclec.util.intset.Interval");
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@left]", "0");
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@right]", Integer.toString(k -1));
-            settings.addProperty("species.genotype-schema.locus(" + i + ")[@closure]", "closed-closed");
-        }
+        UniformIntArrayIndividualSpecies.addToConfiguration(settings, nBags, 0, k - 1);
 
         super.configure(settings);
 
         if (mutator.getDecorated() instanceof ClusteringMutator)
             ((ClusteringMutator) mutator.getDecorated()).setEvaluator((ClusteringEvaluator) evaluator);
 
-        String distFunc = settings.getString("evaluator.distance[@type]");
-        String distConf = settings.getString("evaluator.distance.config");
-        KMeansOperator kmo = new KMeansOperator(pathDataset, distFunc, distConf, k);
+        ClusterEvaluation clusterEval = ((ClusteringEvaluator) evaluator).getClusterEval();
+        KMeansOperator kmo = new KMeansOperator(clusterEval.getInstances(), clusterEval.getDistanceFunction(), k);
+        kmo.setEvaluator((ClusteringEvaluator) evaluator);
         this.kmo = new FilteredMutator(this);
         this.kmo.setMutProb(settings.getDouble("kmeans-operator[@mut-prob]"));
         this.kmo.setDecorated(kmo);
@@ -48,6 +42,13 @@ public class MIGKA extends SGE implements IConfigure {
 
     @Override
     protected void doGeneration() {
+        // Mutate and evaluate each individual as soon as the previous stage ends with it, if the operators allow it
+        GenerationPipeline pipeline = GenerationPipeline.of(null, evaluator, mutator, kmo);
+        if (pipeline != null) {
+            cset = pipeline.run(pset);
+            return;
+        }
+
         // Mutate filtered inds
         cset = mutator.mutate(pset);
         // Add non-mutated inds.
@@ -60,13 +61,8 @@ public class MIGKA extends SGE implements IConfigure {
         evaluator.evaluate(cset);
     }
 
-    protected void setDataset(String pathToDataset) {
-        dataset = new ArffDataSet();
-        ((AbstractDataset) dataset).setFileName(pathToDataset);
-        dataset.setMetadata(new MIClassificationMetadata());
-        // numOfAttributes devuelve el número de atributos de instancia -> coincide con el valor de índice de la clase
-        ((MIClassificationMetadata) dataset.getMetadata()).setClassIndex(dataset.getMetadata().numberOfAttributes());
-        dataset.loadExamples();
+    protected void setDataset(String pathToDataset, String standardization) {
+        dataset = DatasetRegistry.get(pathToDataset, standardization);
     }
 
     public FilteredMutator getKmo() {
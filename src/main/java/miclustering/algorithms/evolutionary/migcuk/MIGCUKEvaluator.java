@@ -16,38 +16,8 @@ public class MIGCUKEvaluator extends ClusteringEvaluator {
     @Override
     protected void evaluate(IIndividual ind) {
         int[] genotype = ((IntArrayIndividual) ind).getGenotype();
-        List<Integer> clusterAssignment = oskm.assignBagsToClusters(genotype, false);
-        double fitness = -1;
-        switch (metric) {
-            case "rmssd":
-                fitness = clusterEval.computeRmssd(clusterAssignment, false);
-                break;
-            case "silhouette":
-                fitness = clusterEval.computeSilhouette(clusterAssignment);
-                break;
-            case "db":
-                fitness = clusterEval.computeDb(clusterAssignment, false);
-                break;
-            case "xb":
-                fitness = clusterEval.computeXb(clusterAssignment, false);
-                break;
-            case "sdbw":
-                fitness = clusterEval.computeSdbw(clusterAssignment);
-                break;
-            case "dbcv":
-                fitness = clusterEval.computeDbcv(clusterAssignment);
-                break;
-            case "twcv":
-                fitness = clusterEval.computeTwcv(clusterAssignment, false);
-                break;
-            case "ftwcv":
-                fitness = clusterEval.computeFtwcv(clusterAssignment);
-                break;
-            default:
-                System.err.println("Not known metric");
-                System.exit(-1);
-        }
-        ind.setFitness(new SimpleValueFitness(fitness));
+        int[] clusterAssignment = oskm.assignBags(genotype, false);
+        ind.setFitness(new SimpleValueFitness(computeFitness(clusterAssignment)));
     }
 
     @Override
@@ -60,8 +30,11 @@ public class MIGCUKEvaluator extends ClusteringEvaluator {
     @Override
     public void configure(Configuration settings) {
         super.configure(settings);
+        // Genotypes are not cluster assignments
+        incremental = null;
+        cache = null;
         k = settings.getInt("kmax", 2);
-        oskm = new OneStepKMeans(dataset, distanceFunction, distanceConfig, k, true);
+        oskm = new OneStepKMeans(clusterEval.getInstances(), clusterEval.getDistanceFunction(), k, true);
         //TODO QUEDA PENDIENTE LA IMPLEMENTACIÓN PARA K VARIABLE
     }
 
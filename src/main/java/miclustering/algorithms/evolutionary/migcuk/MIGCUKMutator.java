@@ -21,7 +21,7 @@ public class MIGCUKMutator extends UniformMutator {
                 int newval;
                 // Choose mutated value
                 do {
-                    newval = schema[i].getRandom(randgen);
+                    newval = species.getLocusSchema(i).getRandom(randgen);
                 } while (mgenome[i] == newval);
                 // Assigns new value
                 mgenome[i] = newval;
@@ -30,12 +30,12 @@ public class MIGCUKMutator extends UniformMutator {
 
         //TODO HACER GENERAL PARA CUALQUIER LONGITUD DE GENOTIPO
         while (mgenome[0] == mgenome[1]) {
-            int maxVar = (int) (0.25*schema[1].size());
+            int maxVar = (int) (0.25*species.getLocusSchema(1).size());
             // New locus value
             int newval;
             // Choose mutated value
             do {
-                newval = schema[1].getRandom(randgen);
+                newval = species.getLocusSchema(1).getRandom(randgen);
             } while (mgenome[1] == newval || newval > mgenome[1] + maxVar || newval < mgenome[1] - maxVar);
             // Assigns new value
             mgenome[1] = newval;
@@ -9,15 +9,14 @@ import org.apache.commons.configuration.Configuration;
 import weka.core.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class MIGGAEvaluator extends ClusteringEvaluator {
     @Override
     protected void evaluate(IIndividual ind) {
         int[] genotype = ((IntArrayIndividual) ind).getGenotype();
-        List<Integer> clusterAssignment = new ArrayList<>(genotype.length - 1);
-        for (int i = 0; i < genotype.length - 1; ++i)
-            clusterAssignment.add(genotype[i]);
+        int[] clusterAssignment = Arrays.copyOf(genotype, genotype.length - 1);
         double fitness = -1;
         switch (metric) {
             case "rmssd":
@@ -67,7 +66,7 @@ public class MIGGAEvaluator extends ClusteringEvaluator {
         distanceFunction = settings.getString("distance[@type]");
         distanceConfig = settings.getString("distance.config", "");
         metric = settings.getString("metric", "silhouette");
-        String evalConfig = "-d " + dataset + " -c last -k " + k + " -parallelize -r -A " + String.join(" ", distanceFunction, distanceConfig);
+        String evalConfig = ClusteringEvaluator.clusterEvaluationOptions(settings, k);
         clusterEval = new ClusterEvaluation();
         try {
             clusterEval.setOptions(Utils.splitOptions(evalConfig));
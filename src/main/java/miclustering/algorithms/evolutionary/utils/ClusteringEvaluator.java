@@ -1,6 +1,7 @@
 package miclustering.algorithms.evolutionary.utils;
 
 import miclustering.evaluators.ClusterEvaluation;
+import miclustering.evaluators.IncrementalEvaluation;
 import jclec.IConfigure;
 import jclec.IFitness;
 import jclec.IIndividual;
@@ -11,9 +12,7 @@ import jclec.intarray.IntArrayIndividual;
 import org.apache.commons.configuration.Configuration;
 import weka.core.Utils;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
 
 public class ClusteringEvaluator extends AbstractParallelEvaluator implements IConfigure {
     protected ClusterEvaluation clusterEval;
@@ -23,6 +22,10 @@ public class ClusteringEvaluator extends AbstractParallelEvaluator implements IC
     protected int k;
     protected String distanceFunction;
     protected String distanceConfig;
+    protected IncrementalEvaluation incremental;
+    protected FitnessCache cache;
+    // State of the parents of the individuals pending of evaluation
+    private final Map<IIndividual, IncrementalEvaluation.State> parents = Collections.synchronizedMap(new WeakHashMap<>());
 
     public ClusterEvaluation getClusterEval() {
         return clusterEval;
@@ -31,8 +34,31 @@ public class ClusteringEvaluator extends AbstractParallelEvaluator implements IC
     @Override
     protected void evaluate(IIndividual ind) {
         int[] genotype = ((IntArrayIndividual) ind).getGenotype();
-        List<Integer> clusterAssignment = new ArrayList<>(genotype.length);
-        for (int value : genotype) clusterAssignment.add(value);
+        FitnessCache.Key key = null;
+        if (cache != null) {
+            key = cache.key(genotype);
+            IFitness cached = cache.get(key, genotype);
+            if (cached != null) {
+                parents.remove(ind);
+                ind.setFitness(cached);
+                return;
+            }
+        }
+        if (incremental != null) {
+            IncrementalEvaluation.State parent = parents.remove(ind);
+            IncrementalEvaluation.State state = evaluate(genotype, parent, null);
+            ind.setFitness(new ClusteringFitness(state));
+            if (cache != null)
+                cache.put(key, state.getValue(), state);
+            return;
+        }
+        double fitness = computeFitness(genotype);
+        ind.setFitness(new SimpleValueFitness(fitness));
+        if (cache != null)
+            cache.put(key, fitness, null);
+    }
+
+    protected double computeFitness(int[] clusterAssignment) {
         double fitness = -1;
         switch (metric) {
             case "rmssd":
@@ -63,7 +89,71 @@ public class ClusteringEvaluator extends AbstractParallelEvaluator implements IC
                 System.err.println("Not known metric");
                 System.exit(-1);
         }
-        ind.setFitness(new SimpleValueFitness(fitness));
+        return fitness;
+    }
+
+    /**
+     * Fitness of the assignment after moving a bag to each one of the clusters, indexed by cluster. With incremental
+     * evaluation all of them are computed together from the state of the assignment, otherwise each one is a full
+     * evaluation.
+     *
+     * @param state evaluation of clusterAssignments, or null if it is not known.
+     */
+    public double[] evaluateMoves(int[] clusterAssignments, IncrementalEvaluation.State state, int bag) {
+        if (incremental != null) {
+            if (state == null)
+                state = incremental.evaluate(clusterAssignments);
+            return incremental.evaluateMoves(state, bag);
+        }
+        double[] fitness = new double[k];
+        int[] aux = clusterAssignments.clone();
+        for (int j = 0; j < k; ++j) {
+            aux[bag] = j;
+            fitness[j] = computeFitness(aux);
+        }
+        return fitness;
+    }
+
+    /**
+     * Evaluates an assignment updating the state of a parent, or from scratch if parent is null.
+     *
+     * @param movedBags bags that may have changed of cluster with respect to the parent. If null, they are found
+     *                  comparing both assignments.
+     */
+    public IncrementalEvaluation.State evaluate(int[] clusterAssignments, IncrementalEvaluation.State parent, int[] movedBags) {
+        if (parent == null)
+            return incremental.evaluate(clusterAssignments);
+        if (movedBags == null)
+            return incremental.evaluate(parent, clusterAssignments);
+        return incremental.evaluate(parent, clusterAssignments, movedBags);
+    }
+
+    public boolean isIncremental() {
+        return incremental != null;
+    }
+
+    /**
+     * State of the evaluation of an individual, or of its parent if it has not been evaluated yet. Null if unknown.
+     */
+    public IncrementalEvaluation.State getState(IIndividual ind) {
+        if (ind.getFitness() instanceof ClusteringFitness)
+            return ((ClusteringFitness) ind.getFitness()).getState();
+        if (ind.getFitness() == null)
+            return parents.get(ind);
+        return null;
+    }
+
+    /**
+     * Sets the state from which a new individual will be evaluated.
+     */
+    public void setParent(IIndividual child, IncrementalEvaluation.State state) {
+        if (incremental != null && state != null)
+            parents.put(child, state);
+    }
+
+    public void setParent(IIndividual child, IIndividual parent) {
+        if (incremental != null)
+            setParent(child, getState(parent));
     }
 
     protected void fullEvaluation(IIndividual ind) {
@@ -110,6 +200,13 @@ public class ClusteringEvaluator extends AbstractParallelEvaluator implements IC
         return metric;
     }
 
+    /**
+     * Cache of the fitness of the evaluated assignments, or null if it is disabled.
+     */
+    public FitnessCache getCache() {
+        return cache;
+    }
+
     @Override
     public void configure(Configuration settings) {
         dataset = settings.getString("dataset");
@@ -117,12 +214,36 @@ public class ClusteringEvaluator extends AbstractParallelEvaluator implements IC
         distanceFunction = settings.getString("distance[@type]");
         distanceConfig = settings.getString("distance.config", "");
         metric = settings.getString("metric", "silhouette");
-        String evalConfig = "-d " + dataset + " -c last -k " + k + " -parallelize -r -A " + String.join(" ", distanceFunction, distanceConfig);
+        String evalConfig = clusterEvaluationOptions(settings, k);
         clusterEval = new ClusterEvaluation();
         try {
             clusterEval.setOptions(Utils.splitOptions(evalConfig));
         } catch (Exception e) {
             e.printStackTrace();
         }
+        if (settings.getBoolean("incremental", true) && IncrementalEvaluation.supports(metric, clusterEval.getInstances()))
+            incremental = new IncrementalEvaluation(clusterEval, metric);
+        // FTWCV depends on the rest of individuals evaluated in the generation, so its values cannot be reused
+        int cacheSize = settings.getInt("cache-size", 256);
+        if (cacheSize > 0 && !metric.equals("ftwcv"))
+            cache = new FitnessCache(cacheSize);
+    }
+
+    /**
+     * Options of the ClusterEvaluation of an evaluator configured with settings: dataset, distance, storage of the
+     * distance matrices and standardization.
+     */
+    public static String clusterEvaluationOptions(Configuration settings, int k) {
+        String distance = String.join(" ", settings.getString("distance[@type]"), settings.getString("distance.config", ""));
+        String options = "-d " + settings.getString("dataset") + " -c last -k " + k + " -parallelize -r -A " + distance;
+        String distancesDir = settings.getString("distances-dir", "");
+        if (!distancesDir.isEmpty())
+            options += " -distances-dir " + distancesDir;
+        if (settings.getBoolean("float-distances", false))
+            options += " -float-distances";
+        String standardization = settings.getString("standardization", "");
+        if (!standardization.isEmpty())
+            options += " -z " + standardization;
+        return options;
     }
 }
@@ -0,0 +1,33 @@
+package miclustering.algorithms.evolutionary.utils;
+
+import jclec.IFitness;
+import jclec.fitness.SimpleValueFitness;
+import miclustering.evaluators.IncrementalEvaluation;
+
+/**
+ * Fitness that also keeps the state of the incremental evaluation of the individual, so that its offspring can be
+ * evaluated updating it instead of from scratch.
+ */
+public class ClusteringFitness extends SimpleValueFitness {
+    private static final long serialVersionUID = -2650716434817152064L;
+
+    private final transient IncrementalEvaluation.State state;
+
+    public ClusteringFitness(IncrementalEvaluation.State state) {
+        this(state.getValue(), state);
+    }
+
+    private ClusteringFitness(double value, IncrementalEvaluation.State state) {
+        super(value);
+        this.state = state;
+    }
+
+    public IncrementalEvaluation.State getState() {
+        return state;
+    }
+
+    @Override
+    public IFitness copy() {
+        return new ClusteringFitness(value, state);
+    }
+}
@@ -1,10 +1,10 @@
 package miclustering.algorithms.evolutionary.utils;
 
 import jclec.IIndividual;
-import jclec.fitness.SimpleValueFitness;
 import jclec.fitness.ValueFitnessComparator;
 import jclec.intarray.IntArrayIndividual;
 import jclec.intarray.mut.UniformMutator;
+import miclustering.evaluators.IncrementalEvaluation;
 
 import java.util.*;
 import java.util.stream.DoubleStream;
@@ -21,16 +21,18 @@ public class ClusteringMutator extends UniformMutator {
         // Creates mutant genotype
         int[] mgenome = new int[gl];
         System.arraycopy(mutant.getGenotype(), 0, mgenome, 0, gl);
+        // Evaluation of mgenome, kept up to date so that the moves of each locus are evaluated from it
+        IncrementalEvaluation.State current = null;
+        if (evaluator.isIncremental()) {
+            current = evaluator.getState(mutant);
+            if (current == null)
+                current = evaluator.evaluate(mgenome, null, null);
+        }
         // Mutate loci...
         for (int i = 0; i < gl; i++) {
             if (randgen.coin(locusMutationProb)) {
-                double[] fitness = new double[evaluator.getNumClusters()];
-                for (int j = 0; j < evaluator.getNumClusters(); ++j) {
-                    mgenome[i] = j;
-                    IntArrayIndividual aux = new IntArrayIndividual(mgenome);
-                    evaluator.evaluate(aux);
-                    fitness[j] = ((SimpleValueFitness) aux.getFitness()).getValue();
-                }
+                // Fitness of moving bag i to each cluster
+                double[] fitness = evaluator.evaluateMoves(mgenome, current, i);
                 Integer[] clusters = new Integer[evaluator.getNumClusters()];
                 Double[] probabilities = new Double[evaluator.getNumClusters()];
                 for (int j = 0; j < evaluator.getNumClusters(); ++j) {
@@ -53,11 +55,16 @@ public class ClusteringMutator extends UniformMutator {
                     sum += probabilities[j];
                     ++j;
                 }
+                int previous = mgenome[i];
                 mgenome[i] = sortedClusters.get(j-1);
+                if (current != null && mgenome[i] != previous)
+                    current = evaluator.evaluate(mgenome, current, new int[]{i});
             }
         }
         // Returns mutant
-        return species.createIndividual(mgenome);
+        IIndividual result = species.createIndividual(mgenome);
+        evaluator.setParent(result, current);
+        return result;
     }
 
     public void setEvaluator(ClusteringEvaluator evaluator) {
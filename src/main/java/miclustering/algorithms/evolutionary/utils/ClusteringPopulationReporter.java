@@ -3,109 +3,113 @@ package miclustering.algorithms.evolutionary.utils;
 import miclustering.algorithms.evolutionary.CHCMIClustering;
 import miclustering.algorithms.evolutionary.MIGCUK;
 import miclustering.algorithms.evolutionary.MIGKA;
+import miclustering.evaluators.ClusterEvaluation;
 import miclustering.utils.PrintConfusionMatrix;
 import jclec.AlgorithmEvent;
 import jclec.IFitness;
 import jclec.IIndividual;
 import jclec.algorithm.PopulationAlgorithm;
 import jclec.algorithm.classic.CHC;
+import jclec.intarray.IntArrayIndividual;
 import jclec.listener.PopulationReporter;
 import jclec.util.IndividualStatistics;
-import jclec.util.random.RanecuFactory;
+import jclec.util.ReportFiles;
+import jclec.util.random.AbstractRandGenFactory;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
 public class ClusteringPopulationReporter extends PopulationReporter {
-    @Override
-    protected void doIterationReport(PopulationAlgorithm algorithm, boolean force) {
-        // Fitness comparator
-        Comparator<IFitness> comparator = algorithm.getEvaluator().getComparator();
-        // Population individuals
-        List<IIndividual> inhabitants = algorithm.getInhabitants();
-        // Actual generation
-        int generation = algorithm.getGeneration();
-
-        // Check if this is correct generation
-        if (!force && generation % reportFrequency != 0) {
-            return;
-        }
-
-        // Save population individuals (if this option was chosen)
-        if (saveCompletePopulation) {
-            String filename = "generation" + generation + ".individuals.txt";
-            File file = new File(reportDirectory, filename);
-            FileWriter filewriter;
-            try {
-                filewriter = new FileWriter(file);
-                for (IIndividual ind : inhabitants) {
-                    filewriter.flush();
-                    filewriter.write(ind + "\n");
-                }
-                filewriter.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+    // Genotype of the last best individual fully evaluated and its indices, reused while the best does not change
+    private int[] lastBestGenotype;
+    private BestEvaluation lastBestEvaluation;
+    // Cache counters at the previous report, as the ones of the cache accumulate over the whole run
+    private long lastCacheHits;
+    private long lastCacheMisses;
 
-        // Best individual
-        IIndividual best = IndividualStatistics.bestIndividual(inhabitants, comparator);
+    @Override
+    protected Runnable createReport(PopulationAlgorithm algorithm) {
+        PopulationSnapshot snapshot = new PopulationSnapshot(algorithm, saveCompletePopulation);
         ClusteringEvaluator eval = ((ClusteringEvaluator) algorithm.getEvaluator());
-        eval.fullEvaluation(best);
-
-        // Do population report
-        StringBuilder sb = new StringBuilder("Generation " + generation + " Report\n");
-        sb.append("Best individual: ").append(best).append("\n");
-        sb.append("RMSSD: ").append(eval.getClusterEval().getRmssd()).append("\n");
-        sb.append("Silhouete: ").append(eval.getClusterEval().getSilhouette()).append("\n");
-        sb.append("XB: ").append(eval.getClusterEval().getXb()).append("\n");
-        sb.append("DB: ").append(eval.getClusterEval().getDb()).append("\n");
-        sb.append("S_Dbw: ").append(eval.getClusterEval().getSdbw()).append("\n");
-        sb.append("DBCV: ").append(eval.getClusterEval().getDbcv()).append("\n");
-        sb.append("Entropy: ").append(eval.getClusterEval().getEntropy()).append("\n");
-        sb.append("Purity: ").append(eval.getClusterEval().getPurity()).append("\n");
-        sb.append("Rand: ").append(eval.getClusterEval().getRand()).append("\n");
-        sb.append("Precision: ").append(eval.getClusterEval().getPurity()).append("\n");
-        sb.append("Recall: ").append(eval.getClusterEval().getMacroRecall()).append("\n");
-        sb.append("F1: ").append(eval.getClusterEval().getMacroF1()).append("\n");
-        sb.append("Specificity: ").append(eval.getClusterEval().getMacroSpecificity()).append("\n");
-        sb.append("Conf Mat: ").append(PrintConfusionMatrix.singleLine(eval.getClusterEval().getExtEvalResult())).append("\n");
-
-        // Worst individual
-        IIndividual worst = IndividualStatistics.worstIndividual(inhabitants, comparator);
-        sb.append("Worst individual: ").append(worst).append("\n");
-        // Median individual
-        IIndividual median = IndividualStatistics.medianIndividual(inhabitants, comparator);
-        sb.append("Median individual: ").append(median).append("\n");
-        // Average fitness and fitness variance
-        double[] avgvar = IndividualStatistics.averageFitnessAndFitnessVariance(inhabitants);
-        sb.append("Average fitness = ").append(avgvar[0]).append("\n");
-        sb.append("Fitness variance = ").append(avgvar[1]).append("\n");
-
-        // Write report string to the standard output (if necessary)
-        if (reportOnConsole) {
-            System.out.println(sb.toString());
-        }
+        // Evaluations saved by the fitness cache since the previous report
+        String cacheReport = cacheReport(eval.getCache());
+
+        return () -> {
+            savePopulation(snapshot);
+
+            // Best individual
+            IIndividual best = snapshot.getBest();
+            BestEvaluation be = evaluateBest(eval, best);
+
+            // Do population report
+            StringBuilder sb = new StringBuilder("Generation " + snapshot.getGeneration() + " Report\n");
+            sb.append("Best individual: ").append(best).append("\n");
+            sb.append("RMSSD: ").append(be.rmssd).append("\n");
+            sb.append("Silhouete: ").append(be.silhouette).append("\n");
+            sb.append("XB: ").append(be.xb).append("\n");
+            sb.append("DB: ").append(be.db).append("\n");
+            sb.append("S_Dbw: ").append(be.sdbw).append("\n");
+            sb.append("DBCV: ").append(be.dbcv).append("\n");
+            sb.append("Entropy: ").append(be.entropy).append("\n");
+            sb.append("Purity: ").append(be.purity).append("\n");
+            sb.append("Rand: ").append(be.rand).append("\n");
+            sb.append("Precision: ").append(be.purity).append("\n");
+            sb.append("Recall: ").append(be.recall).append("\n");
+            sb.append("F1: ").append(be.f1).append("\n");
+            sb.append("Specificity: ").append(be.specificity).append("\n");
+            sb.append("Conf Mat: ").append(be.confMat).append("\n");
+
+            // Worst individual
+            sb.append("Worst individual: ").append(snapshot.getWorst()).append("\n");
+            // Median individual
+            sb.append("Median individual: ").append(snapshot.getMedian()).append("\n");
+            // Average fitness and fitness variance
+            sb.append("Average fitness = ").append(snapshot.getAverageFitness()).append("\n");
+            sb.append("Fitness variance = ").append(snapshot.getFitnessVariance()).append("\n");
+            sb.append(cacheReport);
+
+            writeReport(sb.toString());
+        };
+    }
 
-        // Write string to the report file (if necessary)
-        if (reportOnFile) {
-            try {
-                reportFileWriter.write(sb.toString());
-                reportFileWriter.flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    private String cacheReport(FitnessCache cache) {
+        if (cache == null)
+            return "";
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        long reportHits = hits - lastCacheHits;
+        long reportTotal = reportHits + misses - lastCacheMisses;
+        lastCacheHits = hits;
+        lastCacheMisses = misses;
+        return "Fitness cache since last report: " + reportHits + " hits of " + reportTotal + " evaluations ("
+                + (reportTotal > 0 ? 100 * reportHits / reportTotal : 0) + "%), " + hits + " hits of " + (hits + misses)
+                + " in total\n";
+    }
+
+    /**
+     * Full evaluation of the best individual, reusing the last one if its genotype has not changed. It runs in the
+     * reporter thread with asynchronous reports: the evaluator only uses the state of its ClusterEvaluation written by
+     * fullEvaluation to report, and its indices are already used concurrently by the parallel evaluation.
+     */
+    private synchronized BestEvaluation evaluateBest(ClusteringEvaluator eval, IIndividual best) {
+        int[] genotype = ((IntArrayIndividual) best).getGenotype();
+        if (lastBestEvaluation == null || !Arrays.equals(genotype, lastBestGenotype)) {
+            eval.fullEvaluation(best);
+            lastBestGenotype = genotype.clone();
+            lastBestEvaluation = new BestEvaluation(eval.getClusterEval());
         }
+        return lastBestEvaluation;
     }
 
     @Override
     public void algorithmFinished(AlgorithmEvent event) {
         // Do last generation report
         doIterationReport((PopulationAlgorithm) event.getAlgorithm(), true);
+        // Wait for the pending reports
+        stopReportThread();
 
         if (reportOnFile) {
             try {
@@ -144,43 +148,58 @@ public class ClusteringPopulationReporter extends PopulationReporter {
         sb.append(evaluator.getDataset()).append(", ").append(evaluator.getClusterEval().getDistanceFunction()).append(", ")
                 .append(evaluator.getNumClusters()).append(", ").append(evaluator.getMetric()).append(", ");
 
-        // Best individual
+        // Best individual, already evaluated by the last generation report
         List<IIndividual> inhabitants = algorithm.getInhabitants();
         Comparator<IFitness> comparator = algorithm.getEvaluator().getComparator();
         IIndividual best = IndividualStatistics.bestIndividual(inhabitants, comparator);
-        ClusteringEvaluator eval = ((ClusteringEvaluator) algorithm.getEvaluator());
-        eval.fullEvaluation(best);
-
-        sb.append(eval.getClusterEval().getRmssd()).append(", ").append(eval.getClusterEval().getSilhouette()).append(", ").append(eval.getClusterEval().getXb()).append(", ")
-                .append(eval.getClusterEval().getDb()).append(", ").append(eval.getClusterEval().getSdbw()).append(", ").append(eval.getClusterEval().getDbcv()).append(", ")
-                .append(eval.getClusterEval().getEntropy()).append(", ").append(eval.getClusterEval().getPurity()).append(", ").append(eval.getClusterEval().getRand()).append(", ")
-                .append(eval.getClusterEval().getMacroPrecision()).append(", ").append(eval.getClusterEval().getMacroRecall()).append(", ")
-                .append(eval.getClusterEval().getMacroF1()).append(", ").append(eval.getClusterEval().getMacroSpecificity()).append(", ")
-                .append(PrintConfusionMatrix.singleLine(eval.getClusterEval().getExtEvalResult())).append(", ");
-
-        String finalReport = reportTitle + ".final.csv";
-        File fileReport = new File(finalReport);
-        BufferedWriter bwFinal;
-        if (fileReport.exists()) {
-            bwFinal = new BufferedWriter(new FileWriter(finalReport, true));
-            bwFinal.write(System.getProperty("line.separator"));
-        } else {
-            bwFinal = new BufferedWriter(new FileWriter(finalReport));
-            bwFinal.append("Generations,Population,");
-            if (algorithm instanceof MIGKA)
-                bwFinal.append("Mut. prob,KMO prob,");
-            else if (algorithm instanceof MIGCUK)
-                bwFinal.append("Mut. prob,Rec. prob,");
-            else if (algorithm instanceof CHC)
-                bwFinal.append("Init d,Survivors,Mut. prob,KMO prob,");
-
-            bwFinal.write("Dataset,Distance,Clusters,Fitness,RMSSD,Silhouete,XB,DB," +
-                    "S_Dbw,DBCV,Entropy,Purity,Rand index,Precision,Recall,F1,Specificity,Conf Mat,Report,Seed\n");
-        }
+        BestEvaluation be = evaluateBest(evaluator, best);
+
+        sb.append(be.rmssd).append(", ").append(be.silhouette).append(", ").append(be.xb).append(", ")
+                .append(be.db).append(", ").append(be.sdbw).append(", ").append(be.dbcv).append(", ")
+                .append(be.entropy).append(", ").append(be.purity).append(", ").append(be.rand).append(", ")
+                .append(be.precision).append(", ").append(be.recall).append(", ")
+                .append(be.f1).append(", ").append(be.specificity).append(", ")
+                .append(be.confMat).append(", ");
+
+        StringBuilder header = new StringBuilder("Generations,Population,");
+        if (algorithm instanceof MIGKA)
+            header.append("Mut. prob,KMO prob,");
+        else if (algorithm instanceof MIGCUK)
+            header.append("Mut. prob,Rec. prob,");
+        else if (algorithm instanceof CHC)
+            header.append("Init d,Survivors,Mut. prob,KMO prob,");
+        header.append("Dataset,Distance,Clusters,Fitness,RMSSD,Silhouete,XB,DB," +
+                "S_Dbw,DBCV,Entropy,Purity,Rand index,Precision,Recall,F1,Specificity,Conf Mat,Report,Seed\n");
 
         sb.append(actualReportTitle).append(", ");
-        sb.append(((RanecuFactory) algorithm.getRandGenFactory()).getSeed());
-        bwFinal.write(sb.toString());
-        bwFinal.close();
+        sb.append(((AbstractRandGenFactory) algorithm.getRandGenFactory()).getSeed());
+        // Other jobs of the experiment may be writing their rows at the same time
+        ReportFiles.appendRow(new File(reportTitle + ".final.csv"), header.toString(), sb.toString());
+    }
+
+    /**
+     * Indices of a full evaluation, kept apart from the ClusterEvaluation that the next one overwrites.
+     */
+    private static class BestEvaluation {
+        final double rmssd, silhouette, xb, db, sdbw, dbcv;
+        final double entropy, purity, rand, precision, recall, f1, specificity;
+        final String confMat;
+
+        BestEvaluation(ClusterEvaluation ce) {
+            rmssd = ce.getRmssd();
+            silhouette = ce.getSilhouette();
+            xb = ce.getXb();
+            db = ce.getDb();
+            sdbw = ce.getSdbw();
+            dbcv = ce.getDbcv();
+            entropy = ce.getEntropy();
+            purity = ce.getPurity();
+            rand = ce.getRand();
+            precision = ce.getMacroPrecision();
+            recall = ce.getMacroRecall();
+            f1 = ce.getMacroF1();
+            specificity = ce.getMacroSpecificity();
+            confMat = PrintConfusionMatrix.singleLine(ce.getExtEvalResult());
+        }
     }
 }
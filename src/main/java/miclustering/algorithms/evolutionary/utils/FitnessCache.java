@@ -0,0 +1,126 @@
+package miclustering.algorithms.evolutionary.utils;
+
+import jclec.IFitness;
+import jclec.fitness.SimpleValueFitness;
+import miclustering.evaluators.IncrementalEvaluation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fitness of the last evaluated cluster assignments, so that the copies of an individual that selection, elitism or
+ * the k-means operator put back in the population are not evaluated again.
+ * <p>
+ * Assignments are compared after relabeling the clusters in order of first appearance, as {@link ReorderIndividual}
+ * does by size, so the assignments that only differ in the labels of the clusters share the same entry. The least
+ * recently used entries are dropped when the cache is full.
+ */
+public class FitnessCache {
+    private final Map<Key, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public FitnessCache(int capacity) {
+        entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Key key(int[] clusterAssignments) {
+        return new Key(canonical(clusterAssignments));
+    }
+
+    /**
+     * Fitness of the assignment, or null if it is not cached. The state of the incremental evaluation is kept only if
+     * the labels are the same than the ones of the cached assignment.
+     */
+    public IFitness get(Key key, int[] clusterAssignments) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        if (entry.state != null && entry.state.hasAssignments(clusterAssignments))
+            return new ClusteringFitness(entry.state);
+        return new SimpleValueFitness(entry.value);
+    }
+
+    public void put(Key key, double value, IncrementalEvaluation.State state) {
+        synchronized (entries) {
+            entries.put(key, new Entry(value, state));
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    static int[] canonical(int[] clusterAssignments) {
+        int[] result = new int[clusterAssignments.length];
+        int[] labels = new int[Arrays.stream(clusterAssignments).max().orElse(-1) + 1];
+        Arrays.fill(labels, -1);
+        int numLabels = 0;
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            int cluster = clusterAssignments[i];
+            if (cluster < 0) {
+                result[i] = cluster;
+            } else {
+                if (labels[cluster] < 0)
+                    labels[cluster] = numLabels++;
+                result[i] = labels[cluster];
+            }
+        }
+        return result;
+    }
+
+    public static class Key {
+        private final int[] clusterAssignments;
+        private final int hash;
+
+        private Key(int[] clusterAssignments) {
+            this.clusterAssignments = clusterAssignments;
+            this.hash = Arrays.hashCode(clusterAssignments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && hash == ((Key) o).hash && Arrays.equals(clusterAssignments, ((Key) o).clusterAssignments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class Entry {
+        private final double value;
+        private final IncrementalEvaluation.State state;
+
+        Entry(double value, IncrementalEvaluation.State state) {
+            this.value = value;
+            this.state = state;
+        }
+    }
+}
@@ -11,14 +11,16 @@ public class DataObject implements Serializable, RevisionHandler {
     public static final int NOISE = -2;
     public static final double UNDEFINED = -3;
     final private Instance instance;
+    final private int index;
     private String key;
     private int clusterID;
     private boolean processed;
     private double c_dist;
     private double r_dist;
 
-    public DataObject(Instance originalInstance, String key) {
+    public DataObject(Instance originalInstance, String key, int index) {
         this.key = key;
+        this.index = index;
         this.instance = originalInstance;
         this.clusterID = UNCLASSIFIED;
         this.processed = false;
@@ -30,6 +32,10 @@ public class DataObject implements Serializable, RevisionHandler {
         return this.instance;
     }
 
+    public int getIndex() {
+        return this.index;
+    }
+
     public String getKey() {
         return this.key;
     }
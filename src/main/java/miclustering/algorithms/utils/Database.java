@@ -1,23 +1,48 @@
 package miclustering.algorithms.utils;
 
-import weka.clusterers.forOPTICSAndDBScan.Utils.PriorityQueue;
+import miclustering.distances.MIDistance;
+import miclustering.utils.BagStore;
+import miclustering.utils.DistancesMatrix;
 import weka.clusterers.forOPTICSAndDBScan.Utils.PriorityQueueElement;
+import miclustering.utils.BagDistanceCache;
 import weka.core.*;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.concurrent.*;
 
 public class Database implements Serializable, RevisionHandler {
     private final TreeMap<String, DataObject> treeMap;
     private final Instances instances;
     private final DistanceFunction df;
+    private final transient NeighbourSearch search;
+    private transient DataObject[] dataObjects;
+    private transient int[] ranks;
 
     public Database(DistanceFunction distFunc, Instances instances) {
+        this(distFunc, instances, true);
+    }
+
+    /**
+     * @param precomputeDistances if false, distances are computed on each query instead of using the (cached) matrix.
+     *                            For the distances that satisfy the triangle inequality, they are looked up through a
+     *                            {@link VPTree}. For the rest, range queries let the distance function abandon as soon
+     *                            as epsilon is exceeded.
+     */
+    public Database(DistanceFunction distFunc, Instances instances, boolean precomputeDistances) {
         this.instances = instances;
         this.treeMap = new TreeMap<>();
         df = distFunc;
         df.setInstances(instances);
+        if (precomputeDistances) {
+            search = new LinearNeighbourSearch(BagDistanceCache.getDirectedDistancesMatrix(instances, df, true));
+        } else {
+            if (df instanceof MIDistance)
+                BagStore.of(instances);
+            if (DistancesMatrix.isDistance(df))
+                search = new VPTree(df, instances);
+            else
+                search = new LinearNeighbourSearch(df, instances);
+        }
     }
 
     public DataObject getDataObject(String key) {
@@ -25,78 +50,42 @@ public class Database implements Serializable, RevisionHandler {
     }
 
     public List<DataObject> epsilonRangeQuery(double epsilon, DataObject queryDataObject) {
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        Collection<Callable<DataObject>> collection = new ArrayList<>();
-
-        List<DataObject> nEps = new ArrayList<>();
-        Iterator<DataObject> it = this.dataObjectIterator();
-        while (it.hasNext()) {
-            DataObject dataObject = it.next();
-            collection.add(new Wrapper(queryDataObject, dataObject, epsilon));
-        }
-
-        try {
-            List<Future<DataObject>> futures = executor.invokeAll(collection);
-            for (Future<DataObject> future : futures) {
-                DataObject dataObject = future.get();
-                if(dataObject != null) {
-                    nEps.add(dataObject);
-                }
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-        }
-        executor.shutdown();
+        List<NeighbourSearch.Neighbour> neighbours = sort(search.rangeQuery(queryDataObject.getIndex(), epsilon));
+        List<DataObject> nEps = new ArrayList<>(neighbours.size());
+        for (NeighbourSearch.Neighbour neighbour : neighbours)
+            nEps.add(dataObjects[neighbour.getIndex()]);
         return nEps;
     }
 
-     class Wrapper implements Callable<DataObject> {
-        final private DataObject bag1;
-        final private DataObject bag2;
-        final private double epsilon;
-
-        private Wrapper(DataObject bag1, DataObject bag2, double epsilon) {
-            this.bag1 = bag1;
-            this.bag2 = bag2;
-            this.epsilon = epsilon;
-        }
-
-        @Override
-        public DataObject call() throws Exception {
-            double distance = df.distance(bag1.getInstance(), bag2.getInstance());
-            if (distance <= epsilon) {
-                return bag2;
-            } else {
-                return null;
+    /**
+     * Neighbours in the order of the database, so that the results do not depend on the search backend.
+     */
+    private List<NeighbourSearch.Neighbour> sort(List<NeighbourSearch.Neighbour> neighbours) {
+        if (ranks == null) {
+            dataObjects = new DataObject[instances.numInstances()];
+            ranks = new int[instances.numInstances()];
+            int rank = 0;
+            for (DataObject dataObject : treeMap.values()) {
+                dataObjects[dataObject.getIndex()] = dataObject;
+                ranks[dataObject.getIndex()] = rank++;
             }
         }
+        neighbours.sort(Comparator.comparingInt(n -> ranks[n.getIndex()]));
+        return neighbours;
     }
 
     // SOLO SE USA EN OPTICS... NO MUY SEGURA DE CÓMO VA
     @SuppressWarnings("unchecked")
     private List kNextNeighbourQuery(int k, double epsilon, DataObject dataObject) {
         List<NEpsElement> epsilonRange = new ArrayList<>();
-        PriorityQueue priorityQueue = new PriorityQueue();
-        Iterator<DataObject> it = this.dataObjectIterator();
-        while(it.hasNext()) {
-            DataObject next_dataObject = it.next();
-            double distance = df.distance(dataObject.getInstance(), next_dataObject.getInstance());
-            if (distance <= epsilon) {
-                epsilonRange.add(new NEpsElement(distance, next_dataObject));
-            }
-
-            if (priorityQueue.size() < k) {
-                priorityQueue.add(distance, next_dataObject);
-            } else if (distance < priorityQueue.getPriority(0)) {
-                priorityQueue.next();
-                priorityQueue.add(distance, next_dataObject);
-            }
-        }
+        for (NeighbourSearch.Neighbour neighbour : sort(search.rangeQuery(dataObject.getIndex(), epsilon)))
+            epsilonRange.add(new NEpsElement(neighbour.getDistance(), dataObjects[neighbour.getIndex()]));
 
+        List<NeighbourSearch.Neighbour> nearest = sort(search.nearestQuery(dataObject.getIndex(), k));
+        nearest.sort(Comparator.comparingDouble(NeighbourSearch.Neighbour::getDistance));
         List<PriorityQueueElement> nextNeighbours = new ArrayList<>();
-        while(priorityQueue.hasNext()) {
-            nextNeighbours.add(0, priorityQueue.next());
-        }
+        for (NeighbourSearch.Neighbour neighbour : nearest)
+            nextNeighbours.add(new PriorityQueueElement(neighbour.getDistance(), dataObjects[neighbour.getIndex()]));
 
         List result = new ArrayList<>();
         result.add(nextNeighbours);
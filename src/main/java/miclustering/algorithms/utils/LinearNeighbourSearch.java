@@ -0,0 +1,81 @@
+package miclustering.algorithms.utils;
+
+import miclustering.utils.BagDistanceMatrix;
+import miclustering.distances.BagDistanceBound;
+import miclustering.utils.BagStore;
+import weka.core.DistanceFunction;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Neighbourhood queries that go through all the bags, looking up their distances in a matrix or computing them with
+ * the distance function. This is the backend for the distances that do not satisfy the triangle inequality.
+ */
+public class LinearNeighbourSearch implements NeighbourSearch {
+    private final BagDistanceMatrix matrix;
+    private final DistanceFunction df;
+    private final Instances instances;
+    private final BagDistanceBound bound;
+    private final BagStore store;
+
+    public LinearNeighbourSearch(BagDistanceMatrix matrix) {
+        this.matrix = matrix;
+        this.df = null;
+        this.instances = null;
+        this.bound = null;
+        this.store = null;
+    }
+
+    /**
+     * Computes the distances on each query, skipping the ones whose lower bound exceeds epsilon and letting the
+     * distance function abandon the rest as soon as they exceed it.
+     */
+    public LinearNeighbourSearch(DistanceFunction df, Instances instances) {
+        this.matrix = null;
+        this.df = df;
+        this.instances = instances;
+        this.bound = BagDistanceBound.of(df);
+        this.store = BagStore.lookup(instances);
+    }
+
+    @Override
+    public List<Neighbour> rangeQuery(int query, double epsilon) {
+        List<Neighbour> result = new ArrayList<>();
+        for (int i = 0; i < numBags(); ++i) {
+            double distance = distance(query, i, epsilon);
+            if (distance <= epsilon)
+                result.add(new Neighbour(i, distance));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Neighbour> nearestQuery(int query, int k) {
+        PriorityQueue<Neighbour> nearest = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b.getDistance(), a.getDistance()));
+        for (int i = 0; i < numBags(); ++i) {
+            double distance = distance(query, i, nearest.size() < k ? Double.POSITIVE_INFINITY : nearest.peek().getDistance());
+            if (nearest.size() < k) {
+                nearest.add(new Neighbour(i, distance));
+            } else if (distance < nearest.peek().getDistance()) {
+                nearest.poll();
+                nearest.add(new Neighbour(i, distance));
+            }
+        }
+        return new ArrayList<>(nearest);
+    }
+
+    private int numBags() {
+        return matrix != null ? matrix.numBags() : instances.numInstances();
+    }
+
+    private double distance(int bag1, int bag2, double cutOffValue) {
+        if (matrix != null)
+            return matrix.get(bag1, bag2);
+        if (bound != null && store != null && cutOffValue != Double.POSITIVE_INFINITY && bound.exceeds(store, bag1, store, bag2, cutOffValue))
+            return Double.POSITIVE_INFINITY;
+        return df.distance(instances.get(bag1), instances.get(bag2), cutOffValue);
+    }
+}
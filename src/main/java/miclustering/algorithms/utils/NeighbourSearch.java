@@ -0,0 +1,37 @@
+package miclustering.algorithms.utils;
+
+import java.util.List;
+
+/**
+ * Neighbourhood queries over the bags of a dataset, given by their position in it. The distance is always measured from
+ * the query bag to the rest, and the query bag is also a neighbour of itself.
+ */
+public interface NeighbourSearch {
+    /**
+     * Bags whose distance from the query bag is not greater than epsilon, in any order.
+     */
+    List<Neighbour> rangeQuery(int query, double epsilon);
+
+    /**
+     * The k bags nearest to the query bag, in any order. Ties are broken arbitrarily.
+     */
+    List<Neighbour> nearestQuery(int query, int k);
+
+    final class Neighbour {
+        private final int index;
+        private final double distance;
+
+        public Neighbour(int index, double distance) {
+            this.index = index;
+            this.distance = distance;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+}
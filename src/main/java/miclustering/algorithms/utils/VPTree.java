@@ -0,0 +1,212 @@
+package miclustering.algorithms.utils;
+
+import miclustering.distances.BagDistanceBound;
+import miclustering.utils.BagStore;
+import weka.core.DistanceFunction;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Vantage-point tree over the bags of a dataset, for the distances that satisfy the triangle inequality (see
+ * {@link miclustering.utils.DistancesMatrix#isDistance}). Queries only compute the distances to the vantage points and
+ * to the bags of the subtrees that cannot be discarded with them, instead of the distances to all the bags.
+ * <p>
+ * The distance does not need to be symmetric (the maximal minimal Hausdorff distance is not), so each node keeps both
+ * the distances from its vantage point v to the bags x below it and from them to v. Then, for a query q, the triangle
+ * inequality gives the lower bounds d(q, x) &gt;= d(v, x) - d(v, q) and d(q, x) &gt;= d(q, v) - d(x, v).
+ */
+public class VPTree implements NeighbourSearch {
+    private static final int LEAF_SIZE = 8;
+    private final DistanceFunction df;
+    private final Instances instances;
+    private final BagDistanceBound bound;
+    private final BagStore store;
+    private final Node root;
+
+    public VPTree(DistanceFunction df, Instances instances) {
+        this.df = df;
+        this.instances = instances;
+        this.bound = BagDistanceBound.of(df);
+        this.store = BagStore.lookup(instances);
+        int[] bags = IntStream.range(0, instances.numInstances()).toArray();
+        root = build(bags, 0, bags.length);
+    }
+
+    @Override
+    public List<Neighbour> rangeQuery(int query, double epsilon) {
+        List<Neighbour> result = new ArrayList<>();
+        if (root != null)
+            rangeQuery(root, query, epsilon, result);
+        return result;
+    }
+
+    @Override
+    public List<Neighbour> nearestQuery(int query, int k) {
+        PriorityQueue<Neighbour> nearest = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b.getDistance(), a.getDistance()));
+        if (root != null && k > 0)
+            nearestQuery(root, query, k, nearest);
+        return new ArrayList<>(nearest);
+    }
+
+    /**
+     * Node of the bags in positions [from, to) of bags. The first one is taken as vantage point and the rest are split
+     * by the median of their distance from it.
+     */
+    private Node build(int[] bags, int from, int to) {
+        if (to <= from)
+            return null;
+        if (to - from <= LEAF_SIZE)
+            return new Node(Arrays.copyOfRange(bags, from, to));
+
+        int vantage = bags[from];
+        int n = to - from - 1;
+        double[] fromVantage = new double[n];
+        double[] toVantage = new double[n];
+        for (int i = 0; i < n; ++i) {
+            fromVantage[i] = distance(vantage, bags[from + 1 + i], Double.POSITIVE_INFINITY);
+            toVantage[i] = distance(bags[from + 1 + i], vantage, Double.POSITIVE_INFINITY);
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; ++i)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> fromVantage[i]));
+
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; ++i)
+            sorted[i] = bags[from + 1 + order[i]];
+        System.arraycopy(sorted, 0, bags, from + 1, n);
+
+        int median = n / 2;
+        Node node = new Node(vantage);
+        node.inner = build(bags, from + 1, from + 1 + median);
+        node.outer = build(bags, from + 1 + median, to);
+        for (int i = 0; i < n; ++i) {
+            Node child = i < median ? node.inner : node.outer;
+            child.minFromVantage = Math.min(child.minFromVantage, fromVantage[order[i]]);
+            child.maxToVantage = Math.max(child.maxToVantage, toVantage[order[i]]);
+        }
+        return node;
+    }
+
+    private void rangeQuery(Node node, int query, double epsilon, List<Neighbour> result) {
+        if (node.bucket != null) {
+            for (int bag : node.bucket) {
+                double distance = distance(query, bag, epsilon);
+                if (distance <= epsilon)
+                    result.add(new Neighbour(bag, distance));
+            }
+            return;
+        }
+        // Distances beyond these cut-offs cannot discard any child, so they may be abandoned
+        double queryToVantage = distance(query, node.vantage, epsilon + maxToVantage(node));
+        double vantageToQuery = distance(node.vantage, query, minFromVantage(node) - epsilon);
+        if (queryToVantage <= epsilon)
+            result.add(new Neighbour(node.vantage, queryToVantage));
+        for (Node child : new Node[]{node.inner, node.outer}) {
+            if (child != null && child.lowerBound(queryToVantage, vantageToQuery) <= epsilon)
+                rangeQuery(child, query, epsilon, result);
+        }
+    }
+
+    private void nearestQuery(Node node, int query, int k, PriorityQueue<Neighbour> nearest) {
+        if (node.bucket != null) {
+            for (int bag : node.bucket)
+                offer(nearest, k, bag, distance(query, bag, radius(nearest, k)));
+            return;
+        }
+        double queryToVantage = distance(query, node.vantage, Double.POSITIVE_INFINITY);
+        double vantageToQuery = distance(node.vantage, query, Double.POSITIVE_INFINITY);
+        offer(nearest, k, node.vantage, queryToVantage);
+        Node first = node.inner;
+        Node second = node.outer;
+        if (first == null || second != null && second.lowerBound(queryToVantage, vantageToQuery) < first.lowerBound(queryToVantage, vantageToQuery)) {
+            first = node.outer;
+            second = node.inner;
+        }
+        for (Node child : new Node[]{first, second}) {
+            if (child != null && child.lowerBound(queryToVantage, vantageToQuery) <= radius(nearest, k))
+                nearestQuery(child, query, k, nearest);
+        }
+    }
+
+    private static void offer(PriorityQueue<Neighbour> nearest, int k, int bag, double distance) {
+        if (nearest.size() < k) {
+            nearest.add(new Neighbour(bag, distance));
+        } else if (distance < nearest.peek().getDistance()) {
+            nearest.poll();
+            nearest.add(new Neighbour(bag, distance));
+        }
+    }
+
+    private static double radius(PriorityQueue<Neighbour> nearest, int k) {
+        return nearest.size() < k ? Double.POSITIVE_INFINITY : nearest.peek().getDistance();
+    }
+
+    private static double maxToVantage(Node node) {
+        double result = Double.NEGATIVE_INFINITY;
+        for (Node child : new Node[]{node.inner, node.outer}) {
+            if (child != null)
+                result = Math.max(result, child.maxToVantage);
+        }
+        return result;
+    }
+
+    private static double minFromVantage(Node node) {
+        double result = Double.NEGATIVE_INFINITY;
+        for (Node child : new Node[]{node.inner, node.outer}) {
+            if (child != null)
+                result = Math.max(result, child.minFromVantage);
+        }
+        return result;
+    }
+
+    /**
+     * Distance from bag1 to bag2, or {@link Double#POSITIVE_INFINITY} if it is greater than cutOffValue. The distance
+     * is not computed if its lower bound already exceeds cutOffValue.
+     */
+    private double distance(int bag1, int bag2, double cutOffValue) {
+        if (bound != null && store != null && cutOffValue != Double.POSITIVE_INFINITY && bound.exceeds(store, bag1, store, bag2, cutOffValue))
+            return Double.POSITIVE_INFINITY;
+        double distance = df.distance(instances.get(bag1), instances.get(bag2), cutOffValue);
+        return distance > cutOffValue ? Double.POSITIVE_INFINITY : distance;
+    }
+
+    private static class Node {
+        private final int vantage;
+        private final int[] bucket;
+        private Node inner;
+        private Node outer;
+        // Minimum distance from the vantage point of the parent to the bags of this node, and maximum from them to it
+        private double minFromVantage = Double.POSITIVE_INFINITY;
+        private double maxToVantage = Double.NEGATIVE_INFINITY;
+
+        Node(int vantage) {
+            this.vantage = vantage;
+            this.bucket = null;
+        }
+
+        Node(int[] bucket) {
+            this.vantage = -1;
+            this.bucket = bucket;
+        }
+
+        /**
+         * Lower bound of the distance from the query to the bags of this node, given the distances between the query
+         * and the vantage point of the parent. An infinite distance stands for one abandoned after its cut-off.
+         */
+        double lowerBound(double queryToVantage, double vantageToQuery) {
+            double bound = 0D;
+            if (vantageToQuery != Double.POSITIVE_INFINITY)
+                bound = Math.max(bound, minFromVantage - vantageToQuery);
+            if (queryToVantage == Double.POSITIVE_INFINITY)
+                return Double.POSITIVE_INFINITY;
+            return Math.max(bound, queryToVantage - maxToVantage);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package miclustering.distances;
+
+import miclustering.utils.BagStore;
+import org.apache.commons.math3.util.FastMath;
+import weka.core.DistanceFunction;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lower bound of a bag distance computed from a summary of each bag (the mean and the bounding box of its instances) in
+ * time proportional to the number of attributes, so that the pairs of bags that are certainly farther than a threshold
+ * are discarded before computing their distance instance by instance.
+ * <p>
+ * It counts how many pairs are checked and how many of them are discarded, that is, how many distances are avoided.
+ */
+public abstract class BagDistanceBound {
+    private static final double TOLERANCE = 1E-12;
+    private static final Map<BagStore, Summary> summaries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong discards = new AtomicLong();
+
+    /**
+     * Bound of the distance function, or null if it has none.
+     */
+    public static BagDistanceBound of(DistanceFunction distanceFunction) {
+        return distanceFunction instanceof MIDistance ? ((MIDistance) distanceFunction).getBound() : null;
+    }
+
+    /**
+     * Lower bound of the distance from bag1 of store1 to bag2 of store2.
+     */
+    public abstract double lowerBound(BagStore store1, int bag1, BagStore store2, int bag2);
+
+    /**
+     * If the distance from bag1 of store1 to bag2 of store2 is certainly greater than threshold, so it does not need to
+     * be computed.
+     */
+    public boolean exceeds(BagStore store1, int bag1, BagStore store2, int bag2, double threshold) {
+        return exceeds(lowerBound(store1, bag1, store2, bag2), threshold);
+    }
+
+    /**
+     * Same as {@link #exceeds(BagStore, int, BagStore, int, double)} for a lower bound already computed. The bound must
+     * exceed the threshold by more than the rounding errors, as both are computed in a different way.
+     */
+    public boolean exceeds(double lowerBound, double threshold) {
+        checks.incrementAndGet();
+        if (lowerBound - threshold > TOLERANCE * Math.max(1D, threshold)) {
+            discards.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Number of pairs checked against a threshold.
+     */
+    public long getChecks() {
+        return checks.get();
+    }
+
+    /**
+     * Number of pairs discarded without computing their distance.
+     */
+    public long getDiscards() {
+        return discards.get();
+    }
+
+    public void resetCounters() {
+        checks.set(0);
+        discards.set(0);
+    }
+
+    public String countersToString() {
+        long checked = getChecks();
+        return "Distances avoided by lower bounds: " + getDiscards() + " of " + checked + " checked ("
+                + (checked > 0 ? Math.round(100D * getDiscards() / checked) : 0) + "%)";
+    }
+
+    /**
+     * Euclidean distance from the mean of bag1 to the bounding box of bag2. Any distance that averages or maximizes
+     * the distance from each instance of bag1 to its nearest instance of bag2 is not lower, as the distance to a
+     * convex set is a convex function. 0 if any bag is empty.
+     */
+    protected static double meanToBox(BagStore store1, int bag1, BagStore store2, int bag2) {
+        Summary s1 = summary(store1);
+        Summary s2 = summary(store2);
+        if (s1.empty(bag1) || s2.empty(bag2))
+            return 0D;
+        int nAtt = s1.numAttributes;
+        int row1 = bag1 * nAtt;
+        int row2 = bag2 * nAtt;
+        double sum = 0D;
+        for (int k = 0; k < nAtt; ++k) {
+            double mean = s1.means[row1 + k];
+            double dp = mean < s2.mins[row2 + k] ? s2.mins[row2 + k] - mean : mean > s2.maxs[row2 + k] ? mean - s2.maxs[row2 + k] : 0D;
+            sum += dp * dp;
+        }
+        return FastMath.sqrt(sum);
+    }
+
+    /**
+     * Euclidean distance between the bounding boxes of both bags, that is, the lower bound of the distance between any
+     * instance of bag1 and any instance of bag2. 0 if any bag is empty.
+     */
+    protected static double boxToBox(BagStore store1, int bag1, BagStore store2, int bag2) {
+        Summary s1 = summary(store1);
+        Summary s2 = summary(store2);
+        if (s1.empty(bag1) || s2.empty(bag2))
+            return 0D;
+        int nAtt = s1.numAttributes;
+        int row1 = bag1 * nAtt;
+        int row2 = bag2 * nAtt;
+        double sum = 0D;
+        for (int k = 0; k < nAtt; ++k) {
+            double dp = Math.max(0D, Math.max(s2.mins[row2 + k] - s1.maxs[row1 + k], s1.mins[row1 + k] - s2.maxs[row2 + k]));
+            sum += dp * dp;
+        }
+        return FastMath.sqrt(sum);
+    }
+
+    /**
+     * Euclidean distance between the means of both bags, that is, the lower bound of the average distance between
+     * their instances. 0 if any bag is empty.
+     */
+    protected static double meanToMean(BagStore store1, int bag1, BagStore store2, int bag2) {
+        Summary s1 = summary(store1);
+        Summary s2 = summary(store2);
+        if (s1.empty(bag1) || s2.empty(bag2))
+            return 0D;
+        int nAtt = s1.numAttributes;
+        int row1 = bag1 * nAtt;
+        int row2 = bag2 * nAtt;
+        double sum = 0D;
+        for (int k = 0; k < nAtt; ++k) {
+            double dp = s1.means[row1 + k] - s2.means[row2 + k];
+            sum += dp * dp;
+        }
+        return FastMath.sqrt(sum);
+    }
+
+    private static Summary summary(BagStore store) {
+        Summary summary = summaries.get(store);
+        if (summary == null) {
+            summary = new Summary(store);
+            summaries.put(store, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Mean and bounding box of the instances of each bag of a store.
+     */
+    private static class Summary {
+        private final int numAttributes;
+        private final int[] counts;
+        // Values of bag i and attribute k are at [i * numAttributes + k]
+        private final double[] means;
+        private final double[] mins;
+        private final double[] maxs;
+
+        Summary(BagStore store) {
+            int numBags = store.numBags();
+            numAttributes = store.numAttributes();
+            double[] values = store.values();
+            counts = new int[numBags];
+            means = new double[numBags * numAttributes];
+            mins = new double[numBags * numAttributes];
+            maxs = new double[numBags * numAttributes];
+            for (int i = 0; i < numBags; ++i) {
+                int row = i * numAttributes;
+                counts[i] = store.numInstances(i);
+                for (int k = 0; k < numAttributes; ++k) {
+                    mins[row + k] = Double.POSITIVE_INFINITY;
+                    maxs[row + k] = Double.NEGATIVE_INFINITY;
+                }
+                for (int j = 0; j < counts[i]; ++j) {
+                    int from = store.offset(i, j);
+                    for (int k = 0; k < numAttributes; ++k) {
+                        double value = values[from + k];
+                        means[row + k] += value;
+                        mins[row + k] = Math.min(mins[row + k], value);
+                        maxs[row + k] = Math.max(maxs[row + k], value);
+                    }
+                }
+                for (int k = 0; k < numAttributes; ++k)
+                    means[row + k] /= Math.max(counts[i], 1);
+            }
+        }
+
+        boolean empty(int bag) {
+            return counts[bag] == 0;
+        }
+    }
+}
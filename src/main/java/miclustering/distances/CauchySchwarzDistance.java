@@ -6,17 +6,16 @@ import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
 import org.apache.commons.math3.util.FastMath;
-import miclustering.utils.ProcessDataset;
-import weka.core.Instances;
+import miclustering.utils.BagStore;
 
 import java.util.Arrays;
 
 public class CauchySchwarzDistance extends MIDistance {
 
     @Override
-    protected double computeDistance(Instances i1, Instances i2) {
-        double[][] data1 = ProcessDataset.bagToMatrix(i1);
-        double[][] data2 = ProcessDataset.bagToMatrix(i2);
+    protected double computeDistance(BagStore store, int bag1, int bag2) {
+        double[][] data1 = store.bagToMatrix(bag1);
+        double[][] data2 = store.bagToMatrix(bag2);
         int n1 = data1.length;
         int n2 = data2.length;
 
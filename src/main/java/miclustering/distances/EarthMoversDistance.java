@@ -1,66 +1,254 @@
 package miclustering.distances;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.RealVector;
-import org.apache.commons.math3.optim.PointValuePair;
-import org.apache.commons.math3.optim.linear.*;
-import weka.core.Instances;
+import miclustering.utils.BagStore;
+import org.apache.commons.math3.util.FastMath;
+import weka.core.Option;
+import weka.core.Utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Vector;
 
 public class EarthMoversDistance extends MIDistance {
 
-    protected double computeDistance(Instances i1, Instances i2) {
-        int n1 = i1.numInstances();
-        int n2 = i2.numInstances();
+    private static final int SINKHORN_MAX_ITERATIONS = 1000;
+    private static final double SINKHORN_TOLERANCE = 1e-9;
 
-        double[][] distances = matrixDistance(i1, i2);
-        double[] flow = optimizeFlow(distances,n1, n2);
+    private static final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
 
-        double result = 0D;
-        for (int i = 0; i < n1; ++i) {
+    // Regularization of the Sinkhorn approximation, 0 to solve the transportation problem exactly
+    private double sinkhornEpsilon = 0D;
+
+    protected double computeDistance(BagStore store, int bag1, int bag2) {
+        int n1 = store.numInstances(bag1);
+        int n2 = store.numInstances(bag2);
+
+        Workspace ws = workspaces.get();
+        ws.ensureCapacity(n1, n2);
+        matrixDistance(store, bag1, bag2, ws.cost);
+
+        if (sinkhornEpsilon > 0D)
+            return sinkhorn(ws, n1, n2);
+        return transportation(ws, n1, n2);
+    }
+
+    /**
+     * Exact solution by successive shortest paths. Every instance of the first bag supplies n2 units and every
+     * instance of the second one demands n1, so flows are integers and the total flow is n1*n2.
+     */
+    private double transportation(Workspace ws, int n1, int n2) {
+        double[] cost = ws.cost;
+        int[] flow = ws.flow;
+        int[] supply = ws.supply;
+        int[] demand = ws.demand;
+        double[] potential = ws.potential;
+        double[] dist = ws.dist;
+        int[] prev = ws.prev;
+        boolean[] visited = ws.visited;
+        int nodes = n1 + n2;
+
+        Arrays.fill(flow, 0, n1 * n2, 0);
+        Arrays.fill(supply, 0, n1, n2);
+        Arrays.fill(demand, 0, n2, n1);
+        Arrays.fill(potential, 0, nodes, 0D);
+        double sinkPotential = 0D;
+        int remaining = n1 * n2;
+
+        while (remaining > 0) {
+            // Dijkstra on reduced costs. Nodes [0, n1) are the instances of the first bag, [n1, n1 + n2) the second
+            Arrays.fill(dist, 0, nodes, Double.POSITIVE_INFINITY);
+            Arrays.fill(prev, 0, nodes, -1);
+            Arrays.fill(visited, 0, nodes, false);
+            for (int i = 0; i < n1; ++i) {
+                if (supply[i] > 0)
+                    dist[i] = -potential[i];
+            }
+            for (int iter = 0; iter < nodes; ++iter) {
+                int u = -1;
+                for (int v = 0; v < nodes; ++v) {
+                    if (!visited[v] && dist[v] < Double.POSITIVE_INFINITY && (u == -1 || dist[v] < dist[u]))
+                        u = v;
+                }
+                if (u == -1)
+                    break;
+                visited[u] = true;
+                if (u < n1) {
+                    for (int j = 0; j < n2; ++j) {
+                        int v = n1 + j;
+                        double d = dist[u] + cost[u * n2 + j] + potential[u] - potential[v];
+                        if (!visited[v] && d < dist[v]) {
+                            dist[v] = d;
+                            prev[v] = u;
+                        }
+                    }
+                } else {
+                    int j = u - n1;
+                    for (int i = 0; i < n1; ++i) {
+                        if (flow[i * n2 + j] > 0) {
+                            double d = dist[u] - cost[i * n2 + j] + potential[u] - potential[i];
+                            if (!visited[i] && d < dist[i]) {
+                                dist[i] = d;
+                                prev[i] = u;
+                            }
+                        }
+                    }
+                }
+            }
+
+            int sink = -1;
+            double sinkDist = Double.POSITIVE_INFINITY;
             for (int j = 0; j < n2; ++j) {
-                result += flow[i*n2 + j] * distances[i][j];
+                double d = dist[n1 + j] + potential[n1 + j] - sinkPotential;
+                if (demand[j] > 0 && d < sinkDist) {
+                    sinkDist = d;
+                    sink = j;
+                }
+            }
+            for (int v = 0; v < nodes; ++v)
+                potential[v] += FastMath.min(dist[v], sinkDist);
+            sinkPotential += sinkDist;
+
+            // Bottleneck of the path, forward arcs are not bounded
+            int delta = demand[sink];
+            int v = n1 + sink;
+            while (true) {
+                int i = prev[v];
+                if (prev[i] == -1) {
+                    delta = FastMath.min(delta, supply[i]);
+                    break;
+                }
+                v = prev[i];
+                delta = FastMath.min(delta, flow[i * n2 + (v - n1)]);
             }
+            v = n1 + sink;
+            while (true) {
+                int i = prev[v];
+                flow[i * n2 + (v - n1)] += delta;
+                if (prev[i] == -1) {
+                    supply[i] -= delta;
+                    break;
+                }
+                v = prev[i];
+                flow[i * n2 + (v - n1)] -= delta;
+            }
+            demand[sink] -= delta;
+            remaining -= delta;
         }
 
-        return result;
+        double result = 0D;
+        for (int k = 0; k < n1 * n2; ++k)
+            result += flow[k] * cost[k];
+        return result / ((double) n1 * n2);
     }
 
-    private double[] optimizeFlow(double[][] distances, int n1, int n2) {
-        RealVector d = new ArrayRealVector(n1*n2);
-        for (int i = 0; i < n1; ++i)
-            d.append(new ArrayRealVector(distances[i]));
-        LinearObjectiveFunction objective = new LinearObjectiveFunction(d, 0);
-
-        List<LinearConstraint> constraints = new ArrayList<>();
-        RealVector coefs = new ArrayRealVector(n1*n2, 1);
-        constraints.add(new LinearConstraint(coefs, Relationship.EQ, 1));
-        for (int i = 0; i < n1*n2; i += n2) {
-            RealVector ones = new ArrayRealVector(n2, 1);
-            RealVector prev = new ArrayRealVector(i, 0);
-            RealVector post = new ArrayRealVector(n1*n2 - i - n2, 0);
-            RealVector coefsRow = prev.append(ones).append(post);
-            constraints.add(new LinearConstraint(coefsRow, Relationship.LEQ, 1D/n1));
+    /**
+     * Entropy regularized approximation, iterated in the log domain to be stable with small epsilon.
+     */
+    private double sinkhorn(Workspace ws, int n1, int n2) {
+        double[] cost = ws.cost;
+        double[] f = ws.dist;
+        double[] g = ws.potential;
+        double eps = sinkhornEpsilon;
+        double logA = -FastMath.log(n1);
+        double logB = -FastMath.log(n2);
+
+        Arrays.fill(f, 0, n1, 0D);
+        Arrays.fill(g, 0, n2, 0D);
+        for (int iter = 0; iter < SINKHORN_MAX_ITERATIONS; ++iter) {
+            for (int i = 0; i < n1; ++i) {
+                double max = Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < n2; ++j)
+                    max = FastMath.max(max, (g[j] - cost[i * n2 + j]) / eps);
+                double sum = 0D;
+                for (int j = 0; j < n2; ++j)
+                    sum += FastMath.exp((g[j] - cost[i * n2 + j]) / eps - max);
+                f[i] = eps * (logA - max - FastMath.log(sum));
+            }
+            for (int j = 0; j < n2; ++j) {
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < n1; ++i)
+                    max = FastMath.max(max, (f[i] - cost[i * n2 + j]) / eps);
+                double sum = 0D;
+                for (int i = 0; i < n1; ++i)
+                    sum += FastMath.exp((f[i] - cost[i * n2 + j]) / eps - max);
+                g[j] = eps * (logB - max - FastMath.log(sum));
+            }
+            // Columns are exact after updating g, check how far rows are from their marginal
+            if (iter % 10 == 9) {
+                double error = 0D;
+                for (int i = 0; i < n1; ++i) {
+                    double row = 0D;
+                    for (int j = 0; j < n2; ++j)
+                        row += FastMath.exp((f[i] + g[j] - cost[i * n2 + j]) / eps);
+                    error += FastMath.abs(row - 1D / n1);
+                }
+                if (error < SINKHORN_TOLERANCE)
+                    break;
+            }
         }
-        for (int i = 0; i < n2; ++i) {
-            RealVector coefsCol = new ArrayRealVector(n1*n2, 0);
-            for (int j = i; j < n1*n2; j += n2)
-                coefsCol.setEntry(j, 1);
-            constraints.add(new LinearConstraint(coefsCol, Relationship.LEQ, 1D/n2));
+
+        double result = 0D;
+        for (int i = 0; i < n1; ++i) {
+            for (int j = 0; j < n2; ++j)
+                result += FastMath.exp((f[i] + g[j] - cost[i * n2 + j]) / eps) * cost[i * n2 + j];
         }
-        LinearConstraintSet constraintSet = new LinearConstraintSet(constraints);
+        return result;
+    }
 
-        NonNegativeConstraint positivity = new NonNegativeConstraint(true);
+    @Override
+    public String toString() {
+        return sinkhornEpsilon > 0D ? "Earth Movers Distance (Sinkhorn)" : "Earth Movers Distance";
+    }
 
-        SimplexSolver solver = new SimplexSolver(1e-4);
-        PointValuePair result = solver.optimize(objective, constraintSet, positivity);
-        return result.getPoint();
+    @Override
+    public Enumeration<Option> listOptions() {
+        Vector<Option> vector = new Vector<>();
+        vector.add(new Option("\tApproximate the distance with Sinkhorn iterations with the given regularization\n\t(default exact solution).", "sinkhorn", 1, "-sinkhorn <epsilon>"));
+        return vector.elements();
     }
 
     @Override
-    public String toString() {
-        return "Earth Movers Distance";
+    public void setOptions(String[] options) throws Exception {
+        String epsilon = Utils.getOption("sinkhorn", options);
+        if (!epsilon.isEmpty())
+            sinkhornEpsilon = Double.parseDouble(epsilon);
+    }
+
+    @Override
+    public String[] getOptions() {
+        if (sinkhornEpsilon > 0D)
+            return new String[]{"-sinkhorn", String.valueOf(sinkhornEpsilon)};
+        return new String[0];
+    }
+
+    public double getSinkhornEpsilon() {
+        return sinkhornEpsilon;
+    }
+
+    private static class Workspace {
+        private double[] cost = new double[0];
+        private int[] flow = new int[0];
+        private int[] supply = new int[0];
+        private int[] demand = new int[0];
+        private double[] potential = new double[0];
+        private double[] dist = new double[0];
+        private int[] prev = new int[0];
+        private boolean[] visited = new boolean[0];
+
+        void ensureCapacity(int n1, int n2) {
+            if (cost.length < n1 * n2) {
+                cost = new double[n1 * n2];
+                flow = new int[n1 * n2];
+            }
+            int nodes = n1 + n2;
+            if (potential.length < nodes) {
+                supply = new int[nodes];
+                demand = new int[nodes];
+                potential = new double[nodes];
+                dist = new double[nodes];
+                prev = new int[nodes];
+                visited = new boolean[nodes];
+            }
+        }
     }
 }
@@ -1,9 +1,7 @@
 package miclustering.distances;
 
-import org.apache.commons.math3.stat.descriptive.moment.Mean;
-import org.apache.commons.math3.stat.descriptive.moment.VectorialMean;
-import org.apache.commons.math3.stat.descriptive.rank.Max;
-import org.apache.commons.math3.stat.descriptive.rank.Min;
+import miclustering.utils.BagStore;
+import org.apache.commons.math3.util.FastMath;
 import weka.core.*;
 
 import java.util.*;
@@ -16,37 +14,117 @@ public class HausdorffDistance extends MIDistance {
     public static final int MEAN = 3;
 
     private int type = MAXMIN;
+    private transient BagDistanceBound bound;
 
-    protected double computeDistance(Instances i1, Instances i2) {
-        double[][] distances = matrixDistance(i1, i2);
+    @Override
+    public synchronized BagDistanceBound getBound() {
+        if (bound == null) {
+            bound = new BagDistanceBound() {
+                @Override
+                public double lowerBound(BagStore store1, int bag1, BagStore store2, int bag2) {
+                    switch (type) {
+                        case MINMIN:
+                            return boxToBox(store1, bag1, store2, bag2);
+                        case MEAN:
+                            return Math.max(meanToMean(store1, bag1, store2, bag2), meanToBox(store1, bag1, store2, bag2));
+                        default:
+                            return meanToBox(store1, bag1, store2, bag2);
+                    }
+                }
+            };
+        }
+        return bound;
+    }
 
-        int n1 = i1.numInstances();
-        int n2 = i2.numInstances();
+    protected double computeDistance(BagStore store, int bag1, int bag2) {
+        return computeDistance(store, bag1, bag2, Double.POSITIVE_INFINITY);
+    }
 
-        double[] minByRows = null;
-        if (type == MAXMIN || type == MINMIN || type == MEANMIN) {
-            minByRows = new double[n1];
-            for (int i = 0; i < n1; ++i) {
-                minByRows[i] = new Min().evaluate(distances[i]);
-            }
-        }
+    @Override
+    protected double computeDistance(BagStore store, int bag1, int bag2, double cutOffValue) {
+        int n1 = store.numInstances(bag1);
+        int n2 = store.numInstances(bag2);
+        int nAtt = store.numAttributes();
+        double[] values = store.values();
 
         double result = 0D;
 
         if (type == MAXMIN) {
-            result = new Max().evaluate(minByRows);
+            // Minimums are kept squared, sqrt is monotonic
+            double max = 0D;
+            for (int i = 0; i < n1; ++i) {
+                int from1 = store.offset(bag1, i);
+                double min = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < n2; ++j) {
+                    double d = squaredDistance(values, from1, store.offset(bag2, j), nAtt, min);
+                    if (d < min) {
+                        min = d;
+                        // This row can no longer change the maximum
+                        if (min <= max)
+                            break;
+                    }
+                }
+                if (min > max) {
+                    max = min;
+                    if (FastMath.sqrt(max) > cutOffValue)
+                        return Double.POSITIVE_INFINITY;
+                }
+            }
+            result = FastMath.sqrt(max);
         } else if (type == MINMIN) {
-            result = new Min().evaluate(minByRows);
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n1 && min > 0D; ++i) {
+                int from1 = store.offset(bag1, i);
+                for (int j = 0; j < n2; ++j) {
+                    double d = squaredDistance(values, from1, store.offset(bag2, j), nAtt, min);
+                    if (d < min)
+                        min = d;
+                }
+            }
+            result = FastMath.sqrt(min);
         } else if (type == MEANMIN) {
-            result = new Mean().evaluate(minByRows);
+            double sum = 0D;
+            for (int i = 0; i < n1; ++i) {
+                int from1 = store.offset(bag1, i);
+                double min = Double.POSITIVE_INFINITY;
+                for (int j = 0; j < n2 && min > 0D; ++j) {
+                    double d = squaredDistance(values, from1, store.offset(bag2, j), nAtt, min);
+                    if (d < min)
+                        min = d;
+                }
+                sum += FastMath.sqrt(min);
+                // The rest of rows can only increase the mean
+                if (sum / n1 > cutOffValue)
+                    return Double.POSITIVE_INFINITY;
+            }
+            result = sum / n1;
         } else if (type == MEAN) {
-            VectorialMean mean = new VectorialMean(n2);
+            double sum = 0D;
             for (int i = 0; i < n1; ++i) {
-                mean.increment(distances[i]);
+                int from1 = store.offset(bag1, i);
+                for (int j = 0; j < n2; ++j)
+                    sum += FastMath.sqrt(squaredDistance(values, from1, store.offset(bag2, j), nAtt, Double.POSITIVE_INFINITY));
+                if (sum / (n1 * n2) > cutOffValue)
+                    return Double.POSITIVE_INFINITY;
             }
-            result = new Mean().evaluate(mean.getResult());
+            result = sum / (n1 * n2);
         }
-        return result;
+        return result > cutOffValue ? Double.POSITIVE_INFINITY : result;
+    }
+
+    /**
+     * Squared Euclidean distance between two instances of the store. It stops as soon as it reaches bound, returning
+     * a partial sum that is not lower than bound.
+     */
+    private static double squaredDistance(double[] values, int from1, int from2, int nAtt, double bound) {
+        double sum = 0D;
+        for (int k = 0; k < nAtt; ++k) {
+            double dp = values[from1 + k] - values[from2 + k];
+            sum += dp * dp;
+            if (sum >= bound)
+                break;
+        }
+        return sum;
     }
 
     @Override
@@ -99,7 +177,7 @@ public class HausdorffDistance extends MIDistance {
 
     @Override
     public String[] getOptions() {
-        return new String[0];
+        return new String[]{"-hausdorff-type", String.valueOf(type)};
     }
 
     public int getType() {
@@ -1,8 +1,7 @@
 package miclustering.distances;
 
-import miclustering.utils.ProcessDataset;
-import org.apache.commons.math3.ml.distance.DistanceMeasure;
-import org.apache.commons.math3.ml.distance.EuclideanDistance;
+import miclustering.utils.BagStore;
+import org.apache.commons.math3.util.FastMath;
 import weka.core.*;
 import weka.core.neighboursearch.PerformanceStats;
 
@@ -10,37 +9,79 @@ import java.util.*;
 
 public abstract class MIDistance implements DistanceFunction {
 
-    protected abstract double computeDistance(Instances i1, Instances i2);
+    protected abstract double computeDistance(BagStore store, int bag1, int bag2);
 
-    double[][] matrixDistance(Instances i1, Instances i2) {
-        int n1 = i1.numInstances();
-        int n2 = i2.numInstances();
-        DistanceMeasure baseDistance = new EuclideanDistance();
+    /**
+     * Cheap lower bound of this distance, or null if there is none.
+     */
+    public BagDistanceBound getBound() {
+        return null;
+    }
 
-        double[][] result = new double[n1][n2];
+    /**
+     * Euclidean distances between the instances of both bags, stored row by row in result.
+     */
+    void matrixDistance(BagStore store, int bag1, int bag2, double[] result) {
+        int n1 = store.numInstances(bag1);
+        int n2 = store.numInstances(bag2);
+        int nAtt = store.numAttributes();
+        double[] values = store.values();
 
         for (int i = 0; i < n1; ++i) {
+            int from1 = store.offset(bag1, i);
             for (int j = 0; j < n2; ++j) {
-                double[] i1Array = ProcessDataset.instanceToArray(i1.get(i));
-                double[] i2Array = ProcessDataset.instanceToArray(i2.get(j));
-                result[i][j] = baseDistance.compute(i1Array, i2Array);
+                int from2 = store.offset(bag2, j);
+                // Euclidean distance computed as in commons-math
+                double sum = 0D;
+                for (int k = 0; k < nAtt; ++k) {
+                    double dp = values[from1 + k] - values[from2 + k];
+                    sum += dp * dp;
+                }
+                result[i * n2 + j] = FastMath.sqrt(sum);
             }
         }
+    }
 
-        return result;
+    /**
+     * Same as {@link #computeDistance(BagStore, int, int)}, but returning {@link Double#POSITIVE_INFINITY} as soon as
+     * the distance is known to be greater than cutOffValue. Distances that can abandon early override it.
+     */
+    protected double computeDistance(BagStore store, int bag1, int bag2, double cutOffValue) {
+        double distance = computeDistance(store, bag1, bag2);
+        return distance > cutOffValue ? Double.POSITIVE_INFINITY : distance;
+    }
+
+    /**
+     * Distance between two bags of a {@link BagStore}, given by their position.
+     */
+    public double distance(BagStore store, int bag1, int bag2) {
+        return computeDistance(store, bag1, bag2);
+    }
+
+    public double distance(BagStore store, int bag1, int bag2, double cutOffValue) {
+        return computeDistance(store, bag1, bag2, cutOffValue);
     }
 
     @Override
     public double distance(Instance bag1, Instance bag2, PerformanceStats performanceStats) throws Exception {
-        ProcessDataset pd = new ProcessDataset();
-        Instances i1 = pd.extractInstances(bag1);
-        Instances i2 = pd.extractInstances(bag2);
+        return bagsDistance(bag1, bag2, Double.POSITIVE_INFINITY, performanceStats);
+    }
 
-        if (i1.numAttributes() != i2.numAttributes()) {
-            throw (new Exception("Number of attributes is not equals"));
+    private double bagsDistance(Instance bag1, Instance bag2, double cutOffValue, PerformanceStats performanceStats) {
+        BagStore store = BagStore.lookup(bag1.dataset());
+        int index1 = -1;
+        int index2 = -1;
+        if (store != null && bag1.dataset() == bag2.dataset()) {
+            index1 = store.indexOf(bag1);
+            index2 = store.indexOf(bag2);
+        }
+        if (index1 < 0 || index2 < 0) {
+            store = BagStore.ofBags(bag1, bag2);
+            index1 = 0;
+            index2 = 1;
         }
 
-        double distance = computeDistance(i1, i2);
+        double distance = computeDistance(store, index1, index2, cutOffValue);
 
         if (performanceStats != null)
             performanceStats.incrCoordCount();
@@ -63,14 +104,14 @@ public abstract class MIDistance implements DistanceFunction {
 
     @Override
     public double distance(Instance bag1, Instance bag2, double cutOffValue) {
-        return this.distance(bag1, bag2);
+        return this.distance(bag1, bag2, cutOffValue, null);
     }
 
     @Override
     public double distance(Instance bag1, Instance bag2, double cutOffValue, PerformanceStats performanceStats) {
         double result = 0D;
         try {
-            result = this.distance(bag1, bag2, performanceStats);
+            result = bagsDistance(bag1, bag2, cutOffValue, performanceStats);
         } catch (Exception e) {
             e.printStackTrace();
         }
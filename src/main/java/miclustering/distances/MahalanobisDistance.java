@@ -3,20 +3,19 @@ package miclustering.distances;
 import org.apache.commons.math3.linear.*;
 import org.apache.commons.math3.stat.correlation.Covariance;
 import org.apache.commons.math3.stat.descriptive.moment.VectorialMean;
-import miclustering.utils.ProcessDataset;
-import weka.core.Instances;
+import miclustering.utils.BagStore;
 
 
 public class MahalanobisDistance extends MIDistance {
 
-    protected double computeDistance(Instances i1, Instances i2) {
-        double[][] data1 = ProcessDataset.bagToMatrix(i1);
-        double[][] data2 = ProcessDataset.bagToMatrix(i2);
+    protected double computeDistance(BagStore store, int bag1, int bag2) {
+        double[][] data1 = store.bagToMatrix(bag1);
+        double[][] data2 = store.bagToMatrix(bag2);
 
-        VectorialMean vm1 = new VectorialMean(i1.numAttributes());
+        VectorialMean vm1 = new VectorialMean(store.numAttributes());
         for (double[] instance : data1) vm1.increment(instance);
 
-        VectorialMean vm2 = new VectorialMean(i2.numAttributes());
+        VectorialMean vm2 = new VectorialMean(store.numAttributes());
         for (double[] instance: data2) vm2.increment(instance);
 
         RealMatrix mean1 = new Array2DRowRealMatrix(vm1.getResult());
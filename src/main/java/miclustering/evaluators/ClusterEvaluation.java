@@ -2,10 +2,12 @@ package miclustering.evaluators;
 
 import miclustering.algorithms.ClusterLikeClass;
 import miclustering.algorithms.MIClusterer;
+import miclustering.utils.BagDistanceCache;
+import miclustering.utils.BagStore;
 import miclustering.utils.DatasetCentroids;
+import miclustering.utils.DatasetRegistry;
 import miclustering.utils.LoadByName;
 import miclustering.utils.PrintConfusionMatrix;
-import miclustering.utils.ProcessDataset;
 import weka.clusterers.Clusterer;
 import weka.core.*;
 import weka.filters.Filter;
@@ -14,6 +16,7 @@ import weka.filters.unsupervised.attribute.Remove;
 import java.beans.BeanInfo;
 import java.beans.Introspector;
 import java.beans.MethodDescriptor;
+import java.io.File;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.*;
@@ -75,6 +78,7 @@ public class ClusterEvaluation implements Serializable, OptionHandler, RevisionH
             processData = new Instances(instances);
         }
 
+        BagStore.of(processData);
         clusterer.buildClusterer(processData);
         //TODO Si se reusa el evaluador hay que tener cuidado con el nº de clusters
         maxNumClusters = Math.max(clusterer.numberOfClusters(), maxNumClusters);
@@ -137,8 +141,12 @@ public class ClusterEvaluation implements Serializable, OptionHandler, RevisionH
     }
 
     private int[] countBagsPerCluster(List<Integer> clusterAssignments, int maxNumClusters) {
+        return countBagsPerCluster(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), maxNumClusters);
+    }
+
+    private int[] countBagsPerCluster(int[] clusterAssignments, int maxNumClusters) {
         int[] instancesPerCluster = new int[maxNumClusters];
-        for (Integer clusterIdx : clusterAssignments) {
+        for (int clusterIdx : clusterAssignments) {
             if (clusterIdx < 0)
                 unclusteredInstances++;
             else
@@ -164,69 +172,101 @@ public class ClusterEvaluation implements Serializable, OptionHandler, RevisionH
         return actualNumClusters;
     }
 
-    public double computeRmssd(List<Integer> clusterAssignments, boolean parallelize) {
+    public double computeRmssd(int[] clusterAssignments, boolean parallelize) {
         int[] bagsPerCluster = countBagsPerCluster(clusterAssignments, maxNumClusters);
         return rmssd.computeIndex(clusterAssignments, bagsPerCluster, parallelize);
     }
 
+    public double computeRmssd(List<Integer> clusterAssignments, boolean parallelize) {
+        return computeRmssd(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), parallelize);
+    }
+
     public double getRmssd() {
         return computedRmssd;
     }
 
-    public double computeSilhouette(List<Integer> clusterAssignments) {
+    public double computeSilhouette(int[] clusterAssignments) {
         int[] bagsPerCluster = countBagsPerCluster(clusterAssignments, maxNumClusters);
         return silhouette.computeIndex(clusterAssignments, bagsPerCluster);
     }
 
+    public double computeSilhouette(List<Integer> clusterAssignments) {
+        return computeSilhouette(clusterAssignments.stream().mapToInt(Integer::intValue).toArray());
+    }
+
     public double getSilhouette() {
         return computedSilhouette;
     }
 
-    public double computeXb(List<Integer> clusterAssignments, boolean parallelize) {
+    public double computeXb(int[] clusterAssignments, boolean parallelize) {
         int[] bagsPerCluster = countBagsPerCluster(clusterAssignments, maxNumClusters);
         return xb.computeIndex(clusterAssignments, bagsPerCluster, parallelize);
     }
 
+    public double computeXb(List<Integer> clusterAssignments, boolean parallelize) {
+        return computeXb(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), parallelize);
+    }
+
     public double getXb() {
         return computedXb;
     }
 
-    public double computeDb(List<Integer> clusterAssignments, boolean parallelize) {
+    public double computeDb(int[] clusterAssignments, boolean parallelize) {
         int[] bagsPerCluster = countBagsPerCluster(clusterAssignments, maxNumClusters);
         return db.computeIndex(clusterAssignments, bagsPerCluster, parallelize);
     }
 
+    public double computeDb(List<Integer> clusterAssignments, boolean parallelize) {
+        return computeDb(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), parallelize);
+    }
+
     public double getDb() {
         return computedDb;
     }
 
-    public double computeSdbw(List<Integer> clusterAssignments) {
+    public double computeSdbw(int[] clusterAssignments) {
         return sdbw.computeIndex(clusterAssignments);
     }
 
+    public double computeSdbw(List<Integer> clusterAssignments) {
+        return computeSdbw(clusterAssignments.stream().mapToInt(Integer::intValue).toArray());
+    }
+
     public double getSdbw() {
         return computedSdbw;
     }
 
-    public double computeDbcv(List<Integer> clusterAssignments) {
+    public double computeDbcv(int[] clusterAssignments) {
         int[] bagsPerCluster = countBagsPerCluster(clusterAssignments, maxNumClusters);
         return dbcv.computeIndex(clusterAssignments, bagsPerCluster);
     }
 
+    public double computeDbcv(List<Integer> clusterAssignments) {
+        return computeDbcv(clusterAssignments.stream().mapToInt(Integer::intValue).toArray());
+    }
+
     public double getDbcv() {
         return computedDbcv;
     }
 
-    public double computeTwcv(List<Integer> clusterAssignments, boolean parallelize) {
+    public double computeTwcv(int[] clusterAssignments, boolean parallelize) {
         return twcv.computeIndex(clusterAssignments, parallelize);
     }
 
-    public double computeFtwcv(List<Integer> clusterAssignments) {
+    public double computeTwcv(List<Integer> clusterAssignments, boolean parallelize) {
+        return computeTwcv(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), parallelize);
+    }
+
+    public double computeFtwcv(int[] clusterAssignments) {
         int[] bagsPerCluster = countBagsPerCluster(clusterAssignments, maxNumClusters);
         //return ftwcv.computeIndex(clusterAssignments, bagsPerCluster);
         return ftwcv.selectorModification(clusterAssignments, bagsPerCluster);
     }
 
+    public double computeFtwcv(List<Integer> clusterAssignments) {
+        return computeFtwcv(clusterAssignments.stream().mapToInt(Integer::intValue).toArray());
+    }
+
     public void restartFtwcvMin() {
         ftwcv.restartMin();
     }
@@ -363,6 +403,10 @@ public class ClusterEvaluation implements Serializable, OptionHandler, RevisionH
         return instances;
     }
 
+    public int getMaxNumClusters() {
+        return maxNumClusters;
+    }
+
     public DatasetCentroids getDatasetCentroids() {
         return datasetCentroids;
     }
@@ -431,6 +475,10 @@ public class ClusterEvaluation implements Serializable, OptionHandler, RevisionH
         result.addElement(new Option("\tSet class attribute. If supplied, class is ignored" +
                 "\n\tduring clustering but is used in a classes to\n\tclusters evaluation.", "c", 1, "-c <class-idx>"));
         result.addElement(new Option("\tSet number of threads to run in parallel", "num-threads", 1, "-num-threads <int>"));
+        result.addElement(new Option("\tDirectory where the bags distance matrices are stored and reused between runs" +
+                "\n\t(default: temporary files in java.io.tmpdir, deleted when the run ends)", "distances-dir", 1, "-distances-dir <path>"));
+        result.addElement(new Option("\tStore the bags distance matrices in single precision", "float-distances", 0, "-float-distances"));
+        result.addElement(new Option("\tStandardize the instances of the bags: z1 (mean 0 and deviation 1) or z5 (range [0, 1])", "z", 1, "-z <z1|z5>"));
         return result.elements();
     }
 
@@ -453,13 +501,18 @@ public class ClusterEvaluation implements Serializable, OptionHandler, RevisionH
             return;
         }
         String datasetPath = Utils.getOption("d", options);
-        instances = ProcessDataset.readArff(datasetPath);
+        String standardization = Utils.getOption("z", options);
+        instances = DatasetRegistry.get(datasetPath, standardization);
         String classString = Utils.getOption("c", options);
         setClass(classString);
         maxNumClusters = Integer.parseInt(Utils.getOption("k", options));
         reuseEvaluator = Utils.getFlag("r", options);
         String distFunctionClass = Utils.getOption("A", options);
         boolean parallelize = Utils.getFlag("parallelize", options);
+        String distancesDir = Utils.getOption("distances-dir", options);
+        boolean floatDistances = Utils.getFlag("float-distances", options);
+        if (!distancesDir.isEmpty() || floatDistances)
+            BagDistanceCache.setStorage(distancesDir.isEmpty() ? null : new File(distancesDir), floatDistances);
 
         attributeRangeString = Utils.getOption("p", options);
         if (!attributeRangeString.isEmpty())
@@ -492,9 +545,14 @@ public class ClusterEvaluation implements Serializable, OptionHandler, RevisionH
             else {
                 classAtt = Integer.parseInt(classString);
             }
-            instances.setClassIndex(classAtt);
         } else {
-            classAtt = instances.classIndex();
+            classAtt = -1;
+        }
+        // The dataset of the registry is shared, so it is copied instead of modified
+        if (instances.classIndex() != classAtt) {
+            instances = new Instances(instances);
+            instances.setClassIndex(classAtt);
+            BagStore.of(instances);
         }
     }
 
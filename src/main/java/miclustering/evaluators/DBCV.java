@@ -1,6 +1,7 @@
 package miclustering.evaluators;
 
-import miclustering.utils.DistancesMatrix;
+import miclustering.utils.BagDistanceCache;
+import miclustering.utils.BagDistanceMatrix;
 import org.apache.commons.math3.stat.descriptive.moment.Mean;
 import org.apache.commons.math3.stat.descriptive.rank.Max;
 import org.apache.commons.math3.stat.descriptive.rank.Min;
@@ -17,17 +18,20 @@ import java.util.*;
 
 public class DBCV {
     private final Instances dataset;
-    private final double[][] distancesMatrix;
+    private final BagDistanceMatrix distancesMatrix;
     private final int maxNumClusters;
 
     public DBCV(Instances dataset, DistanceFunction distanceFunction, int maxNumClusters, boolean parallelize) {
         this.dataset = dataset;
         this.maxNumClusters = maxNumClusters;
-        DistancesMatrix dm = new DistancesMatrix();
-        distancesMatrix = dm.compute(dataset, distanceFunction, parallelize);
+        distancesMatrix = BagDistanceCache.getDistancesMatrix(dataset, distanceFunction, parallelize);
     }
 
     public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster) {
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster);
+    }
+
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster) {
         double[] coreDist = allPointsCoreDist(clusterAssignments, bagsPerCluster);
         Map<Integer, SpanningTreeAlgorithm.SpanningTree<WeightedEdge>> mst = mutualReachDistMST(clusterAssignments, coreDist);
         double[][] dspc = densitySeparation(mst, coreDist);
@@ -51,16 +55,16 @@ public class DBCV {
         return result;
     }
 
-    private double[] allPointsCoreDist(List<Integer> clusterAssignments, int[] bagsPerCluster) {
+    private double[] allPointsCoreDist(int[] clusterAssignments, int[] bagsPerCluster) {
         int d = dataset.get(0).relationalValue(1).numAttributes();
-        double[] result = new double[clusterAssignments.size()];
-        for (int i = 0; i < clusterAssignments.size(); ++i) {
-            int clusterIdx = clusterAssignments.get(i);
+        double[] result = new double[clusterAssignments.length];
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            int clusterIdx = clusterAssignments[i];
             if (clusterIdx < 0)
                 break;
-            for (int j = 0; j < clusterAssignments.size(); ++j) {
-                if (i != j && clusterIdx == clusterAssignments.get(j)) {
-                    result[i] += FastMath.pow(1D / distancesMatrix[i][j], d);
+            for (int j = 0; j < clusterAssignments.length; ++j) {
+                if (i != j && clusterIdx == clusterAssignments[j]) {
+                    result[i] += FastMath.pow(1D / distancesMatrix.get(i, j), d);
                 }
             }
             if (result[i] == 0D)
@@ -73,21 +77,21 @@ public class DBCV {
 
     private double mutualReachDist(double[] coreDist, int bag1Idx, int bag2Idx) {
         Max max = new Max();
-        return max.evaluate(new double[]{coreDist[bag1Idx], coreDist[bag2Idx], distancesMatrix[bag1Idx][bag2Idx]});
+        return max.evaluate(new double[]{coreDist[bag1Idx], coreDist[bag2Idx], distancesMatrix.get(bag1Idx, bag2Idx)});
     }
 
-    private Map<Integer, SpanningTreeAlgorithm.SpanningTree<WeightedEdge>> mutualReachDistMST(List<Integer> clusterAssignments, double[] coreDist) {
+    private Map<Integer, SpanningTreeAlgorithm.SpanningTree<WeightedEdge>> mutualReachDistMST(int[] clusterAssignments, double[] coreDist) {
         Map<Integer, Graph<Integer, WeightedEdge>> g = new HashMap<>(maxNumClusters);
         for (int i = 0; i < maxNumClusters; ++i) {
             g.put(i, new SimpleWeightedGraph<>(WeightedEdge.class));
         }
-        for (int i = 0; i < clusterAssignments.size(); ++i) {
-            int clusterIdx = clusterAssignments.get(i);
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            int clusterIdx = clusterAssignments[i];
             if (clusterIdx < 0)
                 break;
             g.get(clusterIdx).addVertex(i);
-            for (int j = i + 1; j < clusterAssignments.size(); ++j) {
-                if (clusterIdx == clusterAssignments.get(j)) {
+            for (int j = i + 1; j < clusterAssignments.length; ++j) {
+                if (clusterIdx == clusterAssignments[j]) {
                     if (!g.get(clusterIdx).containsVertex(j))
                         g.get(clusterIdx).addVertex(j);
                     WeightedEdge edge = g.get(clusterIdx).addEdge(i, j);
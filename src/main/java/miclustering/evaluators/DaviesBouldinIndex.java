@@ -1,5 +1,6 @@
 package miclustering.evaluators;
 
+import jclec.util.ComputeRuntime;
 import miclustering.utils.DatasetCentroids;
 import org.apache.commons.math3.stat.descriptive.rank.Max;
 import org.apache.commons.math3.stat.descriptive.rank.Min;
@@ -9,6 +10,7 @@ import weka.core.Instances;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -29,41 +31,57 @@ public class DaviesBouldinIndex {
         this.parallelize = parallelize;
     }
 
-    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, boolean parallelize) {
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster, boolean parallelize) {
         Map<Integer, Instance> centroids = datasetCentroids.compute(clusterAssignments, parallelize);
         return computeIndex(clusterAssignments, bagsPerCluster, centroids);
     }
 
-    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, Map<Integer, Instance> centroids) {
-        double[] sumDist = new double[maxNumClusters];
+    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, boolean parallelize) {
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster, parallelize);
+    }
+
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster, Map<Integer, Instance> centroids) {
+        double[] distances = new double[dataset.numInstances()];
 
         if (parallelize) {
-            ExecutorService executor = Executors.newFixedThreadPool((int) (Runtime.getRuntime().availableProcessors() * 0.25));
-            Collection<Callable<Double[]>> collection = new ArrayList<>(dataset.numInstances());
+            Collection<Callable<Double>> collection = new ArrayList<>(dataset.numInstances());
             for (int i = 0; i < dataset.numInstances(); ++i) {
-                Integer assignment = clusterAssignments.get(i);
-                if (assignment > -1)
-                    collection.add(new ParallelizeComputeIndex(dataset.get(i), centroids.get(assignment), assignment));
+                if (clusterAssignments[i] > -1)
+                    collection.add(new ParallelizeComputeIndex(dataset.get(i), centroids.get(clusterAssignments[i])));
             }
             try {
-                List<Future<Double[]>> futures = executor.invokeAll(collection);
-                for (Future<Double[]> future : futures) {
-                    Double[] result = future.get();
-                    double sum = result[0];
-                    int assignment = result[1].intValue();
-                    sumDist[assignment] += sum;
+                List<Future<Double>> futures = ComputeRuntime.invokeAll(ComputeRuntime.INDICES, collection);
+                Iterator<Future<Double>> iterator = futures.iterator();
+                for (int i = 0; i < dataset.numInstances(); ++i) {
+                    if (clusterAssignments[i] > -1)
+                        distances[i] = iterator.next().get();
                 }
             } catch (InterruptedException | ExecutionException e) {
                 e.printStackTrace();
             }
-            executor.shutdown();
         } else {
             for (int i = 0; i < dataset.numInstances(); ++i) {
-                int assignment = clusterAssignments.get(i);
-                if (assignment > -1)
-                    sumDist[assignment] += distanceFunction.distance(dataset.get(i), centroids.get(assignment));
+                if (clusterAssignments[i] > -1)
+                    distances[i] = distanceFunction.distance(dataset.get(i), centroids.get(clusterAssignments[i]));
             }
         }
+        return computeIndex(clusterAssignments, bagsPerCluster, centroids, distances);
+    }
+
+    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, Map<Integer, Instance> centroids) {
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster, centroids);
+    }
+
+    /**
+     * @param centroidDistances distance from each bag to the centroid of its cluster.
+     */
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster, Map<Integer, Instance> centroids, double[] centroidDistances) {
+        double[] sumDist = new double[maxNumClusters];
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            if (clusterAssignments[i] > -1)
+                sumDist[clusterAssignments[i]] += centroidDistances[i];
+        }
+
         for (int i = 0; i < maxNumClusters; ++i)
             sumDist[i] /= bagsPerCluster[i];
 
@@ -93,19 +111,16 @@ public class DaviesBouldinIndex {
         return DoubleStream.of(db).sum() / maxNumClusters;
     }
 
-    private class ParallelizeComputeIndex implements Callable<Double[]> {
+    private class ParallelizeComputeIndex implements Callable<Double> {
         Instance instance;
         Instance centroid;
-        Integer assignment;
-        public ParallelizeComputeIndex(Instance instance, Instance centroid, Integer assignment) {
+        public ParallelizeComputeIndex(Instance instance, Instance centroid) {
             this.instance = instance;
             this.centroid = centroid;
-            this.assignment = assignment;
         }
         @Override
-        public Double[] call() throws Exception {
-            double sum = distanceFunction.distance(instance, centroid);
-            return new Double[]{sum, assignment.doubleValue()};
+        public Double call() throws Exception {
+            return distanceFunction.distance(instance, centroid);
         }
     }
 }
@@ -1,5 +1,6 @@
 package miclustering.evaluators;
 
+import miclustering.utils.BagSummary;
 import org.apache.commons.math3.util.FastMath;
 import weka.core.Instances;
 
@@ -8,20 +9,35 @@ import java.util.stream.DoubleStream;
 
 public class FastTotalWithinClusterValidation {
     private final Instances dataset;
+    private final BagSummary summary;
     private final int maxNumClusters;
     private double max = 0D;
     private double min = Double.POSITIVE_INFINITY;
 
     public FastTotalWithinClusterValidation(Instances dataset, int maxNumClusters) {
         this.dataset = dataset;
+        this.summary = null;
         this.maxNumClusters = maxNumClusters;
     }
 
-    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster) {
+    /**
+     * Index over a summary built without loading the dataset, as with {@link BagSummary.Builder}.
+     */
+    public FastTotalWithinClusterValidation(BagSummary summary, int maxNumClusters) {
+        this.dataset = null;
+        this.summary = summary;
+        this.maxNumClusters = maxNumClusters;
+    }
+
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster) {
+        BagSummary summary = this.summary != null ? this.summary : BagSummary.of(dataset);
         double[] sumsByCluster = new double[maxNumClusters];
-        for (int i = 0; i < clusterAssignments.size(); ++i) {
-            for (int j = 0; j < dataset.get(i).relationalValue(1).numAttributes(); ++j)
-                sumsByCluster[clusterAssignments.get(i)] += FastMath.pow(dataset.get(i).relationalValue(1).meanOrMode(j), 2);
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            // Bags without cluster are left out, as in the rest of indices
+            if (clusterAssignments[i] < 0)
+                continue;
+            for (int j = 0; j < summary.numAttributes(); ++j)
+                sumsByCluster[clusterAssignments[i]] += FastMath.pow(summary.mean(i, j), 2);
         }
         double result = DoubleStream.of(sumsByCluster).sum();
         for (int i = 0; i < maxNumClusters; ++i) {
@@ -31,7 +47,15 @@ public class FastTotalWithinClusterValidation {
         return result;
     }
 
+    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster) {
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster);
+    }
+
     public double selectorModification(List<Integer> clusterAssignments, int[] bagsPerCluster) {
+        return selectorModification(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster);
+    }
+
+    public double selectorModification(int[] clusterAssignments, int[] bagsPerCluster) {
         double ftwcv = computeIndex(clusterAssignments, bagsPerCluster);
 
         int e = 0;
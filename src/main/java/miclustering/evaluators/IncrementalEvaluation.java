@@ -0,0 +1,355 @@
+package miclustering.evaluators;
+
+import miclustering.utils.BagSummary;
+import weka.core.DenseInstance;
+import weka.core.DistanceFunction;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evaluation of a clustering index that is updated from the state of a parent assignment when only some bags change
+ * of cluster, instead of being computed again from scratch.
+ * <p>
+ * For the silhouette the state keeps the sum of the distances from every bag to each cluster, so moving a bag costs a
+ * pass over its row of the distances matrix. For the indices based on centroids (rmssd, twcv, db, xb) it keeps the
+ * sums of the instances of each cluster, so only the centroids of the clusters that lost or gained bags are updated
+ * and only the bags of those clusters are measured again.
+ */
+public class IncrementalEvaluation {
+    // Updates chained before computing the state again from scratch, to bound the rounding error of the sums
+    private static final int MAX_UPDATES = 1000;
+
+    private final Instances dataset;
+    private final DistanceFunction distanceFunction;
+    private final int maxNumClusters;
+    private final String metric;
+
+    private SilhouetteIndex silhouette;
+    private RMSStdDev rmssd;
+    private DaviesBouldinIndex db;
+    private XieBeniIndex xb;
+    private TotalWithinClusterVariation twcv;
+
+    private BagSummary summary;
+    private int numAttributes;
+
+    public IncrementalEvaluation(ClusterEvaluation clusterEval, String metric) {
+        this.dataset = clusterEval.getInstances();
+        this.distanceFunction = clusterEval.getDistanceFunction();
+        this.maxNumClusters = clusterEval.getMaxNumClusters();
+        this.metric = metric;
+        switch (metric) {
+            case "silhouette":
+                silhouette = new SilhouetteIndex(dataset, maxNumClusters, distanceFunction, true);
+                break;
+            case "rmssd":
+                rmssd = new RMSStdDev(dataset, maxNumClusters, distanceFunction, false);
+                break;
+            case "db":
+                db = new DaviesBouldinIndex(dataset, maxNumClusters, distanceFunction, false);
+                break;
+            case "xb":
+                xb = new XieBeniIndex(dataset, maxNumClusters, distanceFunction, false);
+                break;
+            case "twcv":
+                twcv = new TotalWithinClusterVariation(dataset, maxNumClusters, distanceFunction, false);
+                break;
+            default:
+                throw new IllegalArgumentException("Metric " + metric + " cannot be evaluated incrementally");
+        }
+        if (!metric.equals("silhouette")) {
+            summary = BagSummary.of(dataset);
+            numAttributes = summary.numAttributes();
+        }
+    }
+
+    /**
+     * If the metric can be evaluated incrementally for the dataset. Centroids are updated with the sums of the bags, so
+     * all the instance attributes must be numeric.
+     */
+    public static boolean supports(String metric, Instances dataset) {
+        switch (metric) {
+            case "silhouette":
+                return true;
+            case "rmssd": case "db": case "xb": case "twcv":
+                return BagSummary.of(dataset).isNumeric();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Evaluates the assignment from scratch.
+     */
+    public State evaluate(int[] clusterAssignments) {
+        State state = new State(clusterAssignments.clone(), maxNumClusters, 0);
+        for (int assignment : clusterAssignments) {
+            if (assignment > -1)
+                state.bagsPerCluster[assignment]++;
+        }
+        boolean[] changed = new boolean[maxNumClusters];
+        Arrays.fill(changed, true);
+        if (silhouette != null) {
+            state.distanceSums = silhouette.computeDistanceSums(state.clusterAssignments);
+        } else {
+            state.clusterSums = new double[maxNumClusters * numAttributes];
+            state.clusterWeights = new double[maxNumClusters * numAttributes];
+            state.centroids = new Instance[maxNumClusters];
+            state.centroidDistances = new double[clusterAssignments.length];
+            for (int i = 0; i < clusterAssignments.length; ++i)
+                addBag(state, i, clusterAssignments[i], 1);
+            updateCentroids(state, changed);
+        }
+        state.value = computeValue(state);
+        return state;
+    }
+
+    /**
+     * Evaluates the assignment from the state of a parent, looking for the bags that changed of cluster.
+     */
+    public State evaluate(State parent, int[] clusterAssignments) {
+        int[] moved = new int[clusterAssignments.length];
+        int numMoved = 0;
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            if (clusterAssignments[i] != parent.clusterAssignments[i])
+                moved[numMoved++] = i;
+        }
+        return evaluate(parent, clusterAssignments, Arrays.copyOf(moved, numMoved));
+    }
+
+    /**
+     * Evaluates the assignment from the state of a parent.
+     *
+     * @param movedBags bags whose cluster may differ from the one they have in the parent. The rest of bags must be
+     *                  in the same cluster.
+     */
+    public State evaluate(State parent, int[] clusterAssignments, int[] movedBags) {
+        if (parent.updates >= MAX_UPDATES || (silhouette != null && 2 * movedBags.length > clusterAssignments.length))
+            return evaluate(clusterAssignments);
+
+        State state = new State(clusterAssignments.clone(), maxNumClusters, parent.updates + 1);
+        System.arraycopy(parent.bagsPerCluster, 0, state.bagsPerCluster, 0, maxNumClusters);
+        boolean[] changed = new boolean[maxNumClusters];
+        if (silhouette != null) {
+            state.distanceSums = parent.distanceSums.clone();
+        } else {
+            state.clusterSums = parent.clusterSums.clone();
+            state.clusterWeights = parent.clusterWeights.clone();
+            state.centroids = parent.centroids.clone();
+            state.centroidDistances = parent.centroidDistances.clone();
+        }
+        // Cluster of each bag as the moves are applied, so that repeated bags are only moved once
+        int[] previous = parent.clusterAssignments.clone();
+        for (int bag : movedBags) {
+            int from = previous[bag];
+            int to = clusterAssignments[bag];
+            if (from == to)
+                continue;
+            previous[bag] = to;
+            if (from > -1) {
+                state.bagsPerCluster[from]--;
+                changed[from] = true;
+            }
+            if (to > -1) {
+                state.bagsPerCluster[to]++;
+                changed[to] = true;
+            }
+            if (silhouette != null) {
+                silhouette.moveBag(state.distanceSums, bag, from, to);
+            } else {
+                addBag(state, bag, from, -1);
+                addBag(state, bag, to, 1);
+            }
+        }
+        if (silhouette == null)
+            updateCentroids(state, changed);
+        state.value = computeValue(state);
+        return state;
+    }
+
+    private void addBag(State state, int bag, int cluster, int sign) {
+        if (cluster < 0)
+            return;
+        for (int a = 0; a < numAttributes; ++a) {
+            state.clusterSums[cluster * numAttributes + a] += sign * summary.sum(bag, a);
+            state.clusterWeights[cluster * numAttributes + a] += sign * summary.weight(bag, a);
+        }
+    }
+
+    private void updateCentroids(State state, boolean[] changed) {
+        int[] assignments = state.clusterAssignments;
+        int[] firstBag = firstBags(assignments);
+        for (int c = 0; c < maxNumClusters; ++c) {
+            if (!changed[c])
+                continue;
+            if (state.bagsPerCluster[c] == 0)
+                state.centroids[c] = null;
+            else
+                state.centroids[c] = centroid(state, c, firstBag[c], -1, 0);
+        }
+        for (int i = 0; i < assignments.length; ++i) {
+            if (assignments[i] > -1 && changed[assignments[i]])
+                state.centroidDistances[i] = distanceFunction.distance(dataset.get(i), state.centroids[assignments[i]]);
+            else if (assignments[i] < 0)
+                state.centroidDistances[i] = 0D;
+        }
+    }
+
+    /**
+     * First bag of each cluster. Its instances are counted twice, as in DatasetCentroids.computeCentroid.
+     */
+    private int[] firstBags(int[] assignments) {
+        int[] firstBag = new int[maxNumClusters];
+        Arrays.fill(firstBag, -1);
+        for (int i = 0; i < assignments.length; ++i) {
+            if (assignments[i] > -1 && firstBag[assignments[i]] == -1)
+                firstBag[assignments[i]] = i;
+        }
+        return firstBag;
+    }
+
+    /**
+     * Centroid of a cluster from the sums of the state, adding (sign 1) or removing (sign -1) a bag if it is not -1.
+     */
+    private Instance centroid(State state, int cluster, int first, int bag, int sign) {
+        double[] means = new double[numAttributes];
+        for (int a = 0; a < numAttributes; ++a) {
+            double sum = state.clusterSums[cluster * numAttributes + a];
+            double weight = state.clusterWeights[cluster * numAttributes + a];
+            if (bag > -1) {
+                sum += sign * summary.sum(bag, a);
+                weight += sign * summary.weight(bag, a);
+            }
+            sum += summary.sum(first, a);
+            weight += summary.weight(first, a);
+            means[a] = weight > 0 ? sum / weight : 0D;
+        }
+        return new DenseInstance(1.0D, means);
+    }
+
+    /**
+     * Value of the index after moving a bag to each one of the clusters, computed from the state of the assignment
+     * without building the state of every move. The centroid of the cluster that loses the bag is the same for all
+     * the targets, so only the bags of that cluster and of each target are measured again.
+     *
+     * @return value for each cluster, indexed by cluster. The one of the current cluster of the bag is the value of
+     * the state.
+     */
+    public double[] evaluateMoves(State state, int bag) {
+        int from = state.clusterAssignments[bag];
+        double[] result;
+        if (silhouette != null) {
+            result = silhouette.computeMoves(state.clusterAssignments, state.bagsPerCluster, state.distanceSums, bag);
+        } else {
+            result = new double[maxNumClusters];
+            int[] assignments = state.clusterAssignments.clone();
+            int[] bagsPerCluster = state.bagsPerCluster.clone();
+            Instance[] centroids = state.centroids.clone();
+            double[] centroidDistances = state.centroidDistances.clone();
+
+            assignments[bag] = -1;
+            int[] firstBag = firstBags(assignments);
+            if (from > -1) {
+                bagsPerCluster[from]--;
+                centroids[from] = bagsPerCluster[from] == 0 ? null : centroid(state, from, firstBag[from], bag, -1);
+                for (int i = 0; i < assignments.length; ++i) {
+                    if (assignments[i] == from)
+                        centroidDistances[i] = distanceFunction.distance(dataset.get(i), centroids[from]);
+                }
+            }
+            for (int to = 0; to < maxNumClusters; ++to) {
+                if (to == from)
+                    continue;
+                int first = firstBag[to] == -1 || bag < firstBag[to] ? bag : firstBag[to];
+                assignments[bag] = to;
+                bagsPerCluster[to]++;
+                centroids[to] = centroid(state, to, first, bag, 1);
+                for (int i = 0; i < assignments.length; ++i) {
+                    if (assignments[i] == to)
+                        centroidDistances[i] = distanceFunction.distance(dataset.get(i), centroids[to]);
+                }
+                result[to] = computeValue(assignments, bagsPerCluster, centroids, centroidDistances, null);
+                // Back to the assignment without the bag
+                bagsPerCluster[to]--;
+                centroids[to] = state.centroids[to];
+                for (int i = 0; i < assignments.length; ++i) {
+                    if (assignments[i] == to && i != bag)
+                        centroidDistances[i] = state.centroidDistances[i];
+                }
+            }
+        }
+        if (from > -1)
+            result[from] = state.value;
+        return result;
+    }
+
+    private double computeValue(State state) {
+        return computeValue(state.clusterAssignments, state.bagsPerCluster, state.centroids, state.centroidDistances, state.distanceSums);
+    }
+
+    private double computeValue(int[] clusterAssignments, int[] bagsPerCluster, Instance[] centroids, double[] centroidDistances, double[] distanceSums) {
+        switch (metric) {
+            case "silhouette":
+                return silhouette.computeIndex(clusterAssignments, bagsPerCluster, distanceSums);
+            case "rmssd":
+                return rmssd.computeIndex(clusterAssignments, bagsPerCluster, centroidDistances);
+            case "db":
+                return db.computeIndex(clusterAssignments, bagsPerCluster, toMap(centroids), centroidDistances);
+            case "xb":
+                return xb.computeIndex(clusterAssignments, bagsPerCluster, toMap(centroids), centroidDistances);
+            case "twcv":
+                return twcv.computeIndex(centroidDistances);
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    private static Map<Integer, Instance> toMap(Instance[] centroids) {
+        Map<Integer, Instance> result = new HashMap<>(centroids.length);
+        for (int c = 0; c < centroids.length; ++c) {
+            if (centroids[c] != null)
+                result.put(c, centroids[c]);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluation of an assignment together with the sums needed to update it. It is not modified once computed, so it
+     * can be shared by the individuals that descend from it.
+     */
+    public static class State {
+        private final int[] clusterAssignments;
+        private final int[] bagsPerCluster;
+        private final int updates;
+        private double value;
+
+        private double[] distanceSums;
+
+        private double[] clusterSums;
+        private double[] clusterWeights;
+        private Instance[] centroids;
+        private double[] centroidDistances;
+
+        private State(int[] clusterAssignments, int maxNumClusters, int updates) {
+            this.clusterAssignments = clusterAssignments;
+            this.bagsPerCluster = new int[maxNumClusters];
+            this.updates = updates;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public int getClusterAssignment(int bag) {
+            return clusterAssignments[bag];
+        }
+
+        public boolean hasAssignments(int[] clusterAssignments) {
+            return Arrays.equals(this.clusterAssignments, clusterAssignments);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package miclustering.evaluators;
 
+import jclec.util.ComputeRuntime;
 import miclustering.utils.DatasetCentroids;
 import org.apache.commons.math3.util.FastMath;
 import weka.core.DistanceFunction;
@@ -8,6 +9,7 @@ import weka.core.Instances;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -27,40 +29,55 @@ public class RMSStdDev {
         this.parallelize = parallelize;
     }
 
-    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, boolean parallelize) {
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster, boolean parallelize) {
         Map<Integer, Instance> centroids = datasetCentroids.compute(clusterAssignments, parallelize);
         return computeIndex(clusterAssignments, bagsPerCluster, centroids);
     }
 
-    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, Map<Integer, Instance> centroids) {
-        double rmssd = 0D;
-        ExecutorService executor;
-        if (parallelize) {
-            executor = Executors.newFixedThreadPool((int) (Runtime.getRuntime().availableProcessors() * 0.25));
-        } else {
-            executor = Executors.newFixedThreadPool(1);
-        }
+    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, boolean parallelize) {
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster, parallelize);
+    }
+
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster, Map<Integer, Instance> centroids) {
+        double[] distances = new double[dataset.numInstances()];
         Collection<Callable<Double>> collection = new ArrayList<>(dataset.numInstances());
         for (int i = 0; i < dataset.numInstances(); ++i) {
-            int assignment = clusterAssignments.get(i);
-            if (assignment > -1)
-                collection.add(new ParallelizeComputeIndex(dataset.get(i), centroids.get(assignment)));
+            if (clusterAssignments[i] > -1)
+                collection.add(new ParallelizeComputeIndex(dataset.get(i), centroids.get(clusterAssignments[i])));
         }
         try {
-            List<Future<Double>> futures = executor.invokeAll(collection);
-            for (Future<Double> future : futures)
-                rmssd += future.get();
+            List<Future<Double>> futures = ComputeRuntime.invokeAll(ComputeRuntime.INDICES, collection, parallelize);
+            Iterator<Future<Double>> iterator = futures.iterator();
+            for (int i = 0; i < dataset.numInstances(); ++i) {
+                if (clusterAssignments[i] > -1)
+                    distances[i] = iterator.next().get();
+            }
         } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
         }
-        executor.shutdown();
+        return computeIndex(clusterAssignments, bagsPerCluster, distances);
+    }
+
+    public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster, Map<Integer, Instance> centroids) {
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster, centroids);
+    }
+
+    /**
+     * @param centroidDistances distance from each bag to the centroid of its cluster.
+     */
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster, double[] centroidDistances) {
+        double rmssd = 0D;
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            if (clusterAssignments[i] > -1)
+                rmssd += FastMath.pow(centroidDistances[i], 2);
+        }
 
         double divisor = 0D;
         for (int i = 0; i < maxNumClusters; ++i) {
             if (bagsPerCluster[i] > 0)
                 divisor += (bagsPerCluster[i] - 1);
         }
-        divisor *= dataset.get(0).relationalValue(1).numAttributes();
+        divisor *= dataset.attribute(1).relation().numAttributes();
         return FastMath.sqrt(rmssd / divisor);
     }
 
@@ -75,7 +92,7 @@ public class RMSStdDev {
 
         @Override
         public Double call() throws Exception {
-            return FastMath.pow(distanceFunction.distance(instance, centroid), 2);
+            return distanceFunction.distance(instance, centroid);
         }
     }
 }
@@ -1,5 +1,6 @@
 package miclustering.evaluators;
 
+import jclec.util.ComputeRuntime;
 import miclustering.utils.ProcessDataset;
 import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.util.FastMath;
@@ -29,13 +30,17 @@ public class S_DbwIndex {
     }
 
     public double computeIndex(List<Integer> clusterAssignments) {
-        int actualNumClusters = Collections.max(clusterAssignments) + 1;
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public double computeIndex(int[] clusterAssignments) {
+        int actualNumClusters = IntStream.of(clusterAssignments).max().orElse(-1) + 1;
         if (actualNumClusters == 0)
             return Double.POSITIVE_INFINITY;
 
         int[] nInstPerCluster = new int[maxNumClusters];
-        for (int i = 0; i < clusterAssignments.size(); ++i) {
-            int clusterIdx = clusterAssignments.get(i);
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            int clusterIdx = clusterAssignments[i];
             if (clusterIdx >= 0)
                 nInstPerCluster[clusterIdx] += dataset.get(i).relationalValue(1).numInstances();
         }
@@ -44,8 +49,8 @@ public class S_DbwIndex {
         for (int i = 0; i < maxNumClusters; ++i) {
             instancesUnion.put(i, new Instances(dataset.get(0).relationalValue(1), nInstPerCluster[i]));
         }
-        for (int i = 0; i < clusterAssignments.size(); ++i) {
-            int clusterIdx = clusterAssignments.get(i);
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            int clusterIdx = clusterAssignments[i];
             if (clusterIdx >= 0)
                 instancesUnion.get(clusterIdx).addAll(dataset.get(i).relationalValue(1));
         }
@@ -84,7 +89,7 @@ public class S_DbwIndex {
     /**
      * Inter-cluster density
      */
-    private double computeDens_Bw(List<Integer> clusterAssignments, int actualNumClusters, int[] nInstPerCluster, Map<Integer, Instances> instancesUnion, Map<Integer, Double> l2NormClusters) {
+    private double computeDens_Bw(int[] clusterAssignments, int actualNumClusters, int[] nInstPerCluster, Map<Integer, Instances> instancesUnion, Map<Integer, Double> l2NormClusters) {
         int numInstances = dataset.numInstances();
 
         double stdev = l2NormClusters.values().stream().mapToDouble(Double::doubleValue).sum();
@@ -107,16 +112,15 @@ public class S_DbwIndex {
                     double densityJ = 0D;
 
                     if (parallelize) {
-                        ExecutorService executor = Executors.newFixedThreadPool((int) (Runtime.getRuntime().availableProcessors() * 0.25));
                         Collection<Callable<Double[]>> collection = new ArrayList<>(numInstances);
                         for (int k = 0; k < numInstances; ++k) {
-                            Integer assignment = clusterAssignments.get(k);
+                            int assignment = clusterAssignments[k];
                             if (assignment == i || assignment == j) {
                                 collection.add(new ParallelizeComputeDens_Bw(aux, dataset.get(k), assignment));
                             }
                         }
                         try {
-                            List<Future<Double[]>> futures = executor.invokeAll(collection);
+                            List<Future<Double[]>> futures = ComputeRuntime.invokeAll(ComputeRuntime.INDICES, collection);
                             for (Future<Double[]> future : futures) {
                                 Double[] futurResult = future.get();
                                 Double distance = futurResult[0];
@@ -131,10 +135,9 @@ public class S_DbwIndex {
                         } catch (InterruptedException | ExecutionException e) {
                             e.printStackTrace();
                         }
-                        executor.shutdown();
                     } else {
                         for (int k = 0; k < numInstances; ++k) {
-                            int assignment = clusterAssignments.get(k);
+                            int assignment = clusterAssignments[k];
                             if (assignment == i || assignment == j) {
                                 double distance = distanceFunction.distance(aux, dataset.get(k));
                                 if (distance <= stdev)
@@ -173,7 +176,7 @@ public class S_DbwIndex {
      * Not valid for distribution-based miclustering.distances
      */
     @SuppressWarnings("unused")
-    private double computeDens_BwSingleInstance(List<Integer> clusterAssignments, int actualNumClusters, int[] nInstPerCluster, Map<Integer, Instances> instancesUnion, Map<Integer, Double> l2NormClusters) {
+    private double computeDens_BwSingleInstance(int[] clusterAssignments, int actualNumClusters, int[] nInstPerCluster, Map<Integer, Instances> instancesUnion, Map<Integer, Double> l2NormClusters) {
         int numAttributes = dataset.get(0).relationalValue(1).numAttributes();
         int numInstances = dataset.numInstances();
 
@@ -202,11 +205,11 @@ public class S_DbwIndex {
                     double densityJ = 0D;
 
                     for (int k = 0; k < numInstances; ++k) {
-                        if (clusterAssignments.get(k) == i || clusterAssignments.get(k) == j) {
+                        if (clusterAssignments[k] == i || clusterAssignments[k] == j) {
                             double distance = distanceFunction.distance(u, dataset.get(k));
                             if (distance <= stdev)
                                 densityU++;
-                            if (clusterAssignments.get(k) == i)
+                            if (clusterAssignments[k] == i)
                                 densityI++;
                             else
                                 densityJ++;
@@ -1,51 +1,205 @@
 package miclustering.evaluators;
 
-import miclustering.utils.DistancesMatrix;
+import miclustering.utils.BagDistanceCache;
+import miclustering.utils.BagDistanceMatrix;
 import org.apache.commons.math3.stat.descriptive.moment.Mean;
 import weka.core.DistanceFunction;
 import weka.core.Instances;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class SilhouetteIndex {
     private final int maxNumClusters;
-    private final double[][] distances;
+    private final BagDistanceMatrix distances;
 
     public SilhouetteIndex(Instances instances,  int maxNumClusters, DistanceFunction distanceFunction, boolean parallelize) {
         this.maxNumClusters = maxNumClusters;
-        DistancesMatrix dm = new DistancesMatrix();
-        distances = dm.compute(instances, distanceFunction, parallelize);
+        distances = BagDistanceCache.getDistancesMatrix(instances, distanceFunction, parallelize);
+    }
+
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster) {
+        return computeIndex(clusterAssignments, bagsPerCluster, computeDistanceSums(clusterAssignments));
     }
 
     public double computeIndex(List<Integer> clusterAssignments, int[] bagsPerCluster) {
-        int actualNumClusters = Collections.max(clusterAssignments) + 1;
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), bagsPerCluster);
+    }
+
+    /**
+     * Sum of the distances from each bag to the rest of bags of each cluster, stored as sums[bag * maxNumClusters + cluster].
+     */
+    public double[] computeDistanceSums(int[] clusterAssignments) {
+        int numInstances = clusterAssignments.length;
+        double[] sums = new double[numInstances * maxNumClusters];
+        for (int point = 0; point < numInstances; ++point) {
+            int row = point * maxNumClusters;
+            for (int other = 0; other < numInstances; ++other) {
+                if (other != point && clusterAssignments[other] > -1)
+                    sums[row + clusterAssignments[other]] += distances.get(point, other);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Moves a bag between clusters updating the sums of {@link #computeDistanceSums(int[])} of the rest of bags.
+     */
+    public void moveBag(double[] sums, int bag, int from, int to) {
+        for (int point = 0; point < distances.numBags(); ++point) {
+            if (point == bag)
+                continue;
+            double distance = distances.get(point, bag);
+            int row = point * maxNumClusters;
+            if (from > -1)
+                sums[row + from] -= distance;
+            if (to > -1)
+                sums[row + to] += distance;
+        }
+    }
+
+    /**
+     * Index of the assignment after moving a bag to each one of the clusters, as {@link #computeIndex(int[], int[], double[])}
+     * would give after {@link #moveBag(double[], int, int, int)}, but without copying the sums for each target cluster.
+     * For each bag only the mean distances to the source and target clusters change, so b is taken from the three
+     * closest clusters of the bag before the move.
+     *
+     * @return index for each target cluster. The position of the current cluster of the bag is not computed.
+     */
+    public double[] computeMoves(int[] clusterAssignments, int[] bagsPerCluster, double[] distanceSums, int bag) {
+        int numInstances = clusterAssignments.length;
+        int from = clusterAssignments[bag];
+        double[][] silhouette = new double[maxNumClusters][numInstances];
+        double[] meanDistToCluster = new double[maxNumClusters];
+        int[] closest = new int[3];
+
+        for (int point = 0; point < numInstances; ++point) {
+            int row = point * maxNumClusters;
+            if (point == bag) {
+                // Its sums do not change, only its own cluster
+                for (int to = 0; to < maxNumClusters; ++to) {
+                    if (to == from)
+                        continue;
+                    for (int c = 0; c < maxNumClusters; ++c) {
+                        int count = bagsPerCluster[c] + (c == to ? 1 : 0) - (c == from ? 1 : 0);
+                        meanDistToCluster[c] = distanceSums[row + c] / (c == to ? count - 1 : count);
+                    }
+                    double bPoint = Double.NaN;
+                    boolean any = false;
+                    for (int c = 0; c < maxNumClusters; ++c) {
+                        if (c != to && (!any || Double.compare(meanDistToCluster[c], bPoint) < 0)) {
+                            bPoint = meanDistToCluster[c];
+                            any = true;
+                        }
+                    }
+                    silhouette[to][point] = silhouette(meanDistToCluster[to], any ? bPoint : 0D);
+                }
+                continue;
+            }
+
+            int assignment = clusterAssignments[point];
+            double distance = distances.get(point, bag);
+            for (int c = 0; c < maxNumClusters; ++c) {
+                if (c == assignment)
+                    meanDistToCluster[c] = distanceSums[row + c] / (bagsPerCluster[c] - 1);
+                else
+                    meanDistToCluster[c] = distanceSums[row + c] / bagsPerCluster[c];
+            }
+            // Three closest clusters other than its own, enough to find b whatever the two clusters that change
+            int numClosest = 0;
+            for (int c = 0; c < maxNumClusters; ++c) {
+                if (c == assignment)
+                    continue;
+                int pos = numClosest < 3 ? numClosest++ : 3;
+                while (pos > 0 && Double.compare(meanDistToCluster[c], meanDistToCluster[closest[pos - 1]]) < 0) {
+                    if (pos < 3)
+                        closest[pos] = closest[pos - 1];
+                    --pos;
+                }
+                if (pos < 3)
+                    closest[pos] = c;
+            }
+            double fromMean = Double.NaN;
+            if (from > -1) {
+                int count = bagsPerCluster[from] - 1;
+                fromMean = (distanceSums[row + from] - distance) / (from == assignment ? count - 1 : count);
+            }
+
+            for (int to = 0; to < maxNumClusters; ++to) {
+                if (to == from)
+                    continue;
+                int count = bagsPerCluster[to] + 1;
+                double toMean = (distanceSums[row + to] + distance) / (to == assignment ? count - 1 : count);
+
+                double aPoint = 0;
+                if (assignment > -1)
+                    aPoint = assignment == from ? fromMean : assignment == to ? toMean : meanDistToCluster[assignment];
+
+                double bPoint = Double.NaN;
+                boolean any = false;
+                for (int k = 0; k < numClosest; ++k) {
+                    if (closest[k] != from && closest[k] != to) {
+                        bPoint = meanDistToCluster[closest[k]];
+                        any = true;
+                        break;
+                    }
+                }
+                if (from > -1 && from != assignment && (!any || Double.compare(fromMean, bPoint) < 0)) {
+                    bPoint = fromMean;
+                    any = true;
+                }
+                if (to != assignment && (!any || Double.compare(toMean, bPoint) < 0)) {
+                    bPoint = toMean;
+                    any = true;
+                }
+                silhouette[to][point] = silhouette(aPoint, any ? bPoint : 0D);
+            }
+        }
+
+        double[] result = new double[maxNumClusters];
+        Mean mean = new Mean();
+        for (int to = 0; to < maxNumClusters; ++to) {
+            if (to != from)
+                result[to] = mean.evaluate(silhouette[to]);
+        }
+        return result;
+    }
+
+    private static double silhouette(double aPoint, double bPoint) {
+        if (aPoint < bPoint)
+            return 1 - aPoint / bPoint;
+        else if (aPoint > bPoint)
+            return bPoint / aPoint - 1;
+        return 0D;
+    }
+
+    public double computeIndex(int[] clusterAssignments, int[] bagsPerCluster, double[] distanceSums) {
+        int actualNumClusters = IntStream.of(clusterAssignments).max().orElse(-1) + 1;
         if (actualNumClusters == 0)
             return -1;
-        int numInstances = clusterAssignments.size();
+        int numInstances = clusterAssignments.length;
 
         double[] silhouette = new double[numInstances];
 
         for (int point = 0; point < numInstances; ++point) {
-            double[] meanDistToCluster = new double[maxNumClusters];
-            for (int other = 0; other < numInstances; ++other) {
-                if (other != point && clusterAssignments.get(other) > -1)
-                    meanDistToCluster[clusterAssignments.get(other)] += distances[point][other];
-            }
+            int assignment = clusterAssignments[point];
+            double[] meanDistToCluster = Arrays.copyOfRange(distanceSums, point * maxNumClusters, (point + 1) * maxNumClusters);
             for (int c = 0; c < maxNumClusters; ++c) {
-                if (c == clusterAssignments.get(point))
+                if (c == assignment)
                     meanDistToCluster[c] /= (bagsPerCluster[c] - 1);
                 else
                     meanDistToCluster[c] /= bagsPerCluster[c];
             }
             double aPoint = 0;
-            if (clusterAssignments.get(point) > -1)
-                aPoint = meanDistToCluster[clusterAssignments.get(point)];
+            if (assignment > -1)
+                aPoint = meanDistToCluster[assignment];
 
             List<Double> possibleB = new ArrayList<>(maxNumClusters - 1);
             for (int j = 0; j < maxNumClusters; ++j) {
-                if (j != clusterAssignments.get(point))
+                if (j != assignment)
                     possibleB.add(meanDistToCluster[j]);
             }
             double bPoint = 0;
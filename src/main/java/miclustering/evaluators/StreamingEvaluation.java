@@ -0,0 +1,88 @@
+package miclustering.evaluators;
+
+import miclustering.utils.BagSink;
+import miclustering.utils.BagStreamReader;
+import miclustering.utils.BagSummary;
+import miclustering.utils.DatasetCentroids;
+import miclustering.utils.StreamedBag;
+import weka.core.DistanceFunction;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Indices based on centroids (twcv, ftwcv and rmssd) of a dataset read with a {@link BagStreamReader}, for datasets
+ * that do not fit in memory. Only the {@link BagSummary} of the dataset is kept: the centroids are computed from it and
+ * the distances from the bags to their centroid are computed streaming the dataset once per assignment.
+ * <p>
+ * All the instance attributes must be numeric, so that the centroids can be computed from the summary.
+ */
+public class StreamingEvaluation {
+    private final BagStreamReader reader;
+    private final int maxNumClusters;
+    private final DistanceFunction distanceFunction;
+    private final BagSummary summary;
+    private final TotalWithinClusterVariation twcv;
+    private final FastTotalWithinClusterValidation ftwcv;
+    private final RMSStdDev rmssd;
+
+    public StreamingEvaluation(BagStreamReader reader, int maxNumClusters, DistanceFunction distanceFunction) throws IOException {
+        this.reader = reader;
+        this.maxNumClusters = maxNumClusters;
+        this.distanceFunction = distanceFunction;
+        BagSummary.Builder builder = new BagSummary.Builder();
+        reader.stream(builder);
+        summary = builder.build();
+        if (!summary.isNumeric())
+            throw new IllegalArgumentException("Streaming evaluation needs all the instance attributes to be numeric");
+        Instances header = reader.getHeader();
+        twcv = new TotalWithinClusterVariation(header, maxNumClusters, distanceFunction, false);
+        ftwcv = new FastTotalWithinClusterValidation(summary, maxNumClusters);
+        rmssd = new RMSStdDev(header, maxNumClusters, distanceFunction, false);
+    }
+
+    public BagSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Distance from each bag to the centroid of its cluster, 0 for the bags without cluster.
+     */
+    public double[] centroidDistances(int[] clusterAssignments) throws IOException {
+        Map<Integer, Instance> centroids = DatasetCentroids.computeFromSummary(clusterAssignments, summary, maxNumClusters);
+        Instances header = reader.getHeader();
+        double[] distances = new double[clusterAssignments.length];
+        reader.stream(new BagSink() {
+            @Override
+            public void accept(StreamedBag bag) {
+                int cluster = clusterAssignments[bag.index()];
+                if (cluster > -1)
+                    distances[bag.index()] = distanceFunction.distance(bag.toBag(header), centroids.get(cluster));
+            }
+        });
+        return distances;
+    }
+
+    public double twcv(double[] centroidDistances) {
+        return twcv.computeIndex(centroidDistances);
+    }
+
+    public double rmssd(int[] clusterAssignments, double[] centroidDistances) {
+        return rmssd.computeIndex(clusterAssignments, bagsPerCluster(clusterAssignments), centroidDistances);
+    }
+
+    public double ftwcv(int[] clusterAssignments) {
+        return ftwcv.computeIndex(clusterAssignments, bagsPerCluster(clusterAssignments));
+    }
+
+    private int[] bagsPerCluster(int[] clusterAssignments) {
+        int[] bagsPerCluster = new int[maxNumClusters];
+        for (int cluster : clusterAssignments) {
+            if (cluster > -1)
+                bagsPerCluster[cluster]++;
+        }
+        return bagsPerCluster;
+    }
+}
@@ -1,5 +1,6 @@
 package miclustering.evaluators;
 
+import jclec.util.ComputeRuntime;
 import miclustering.utils.DatasetCentroids;
 import org.apache.commons.math3.util.FastMath;
 import weka.core.DistanceFunction;
@@ -25,32 +26,47 @@ public class TotalWithinClusterVariation {
         this.parallelize = parallelize;
     }
 
-    public double computeIndex(List<Integer> clusterAssignments, boolean parallelize) {
+    public double computeIndex(int[] clusterAssignments, boolean parallelize) {
         Map<Integer, Instance> centroids = datasetCentroids.compute(clusterAssignments, parallelize);
         return computeIndex(clusterAssignments, centroids);
     }
 
+    public double computeIndex(List<Integer> clusterAssignments, boolean parallelize) {
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), parallelize);
+    }
+
     public double computeIndex(List<Integer> clusterAssignments, Map<Integer, Instance> centroids) {
-        double twcv = 0D;
+        return computeIndex(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), centroids);
+    }
+
+    public double computeIndex(int[] clusterAssignments, Map<Integer, Instance> centroids) {
+        double[] distances = new double[dataset.numInstances()];
 
         if(parallelize) {
-            ExecutorService executor = Executors.newFixedThreadPool((int) (Runtime.getRuntime().availableProcessors() * 0.25));
             Collection<Callable<Double>> collection = new ArrayList<>(dataset.numInstances());
             for (int i = 0; i < dataset.numInstances(); ++i)
-                collection.add(new ParallelizeComputeIndex(dataset.get(i), centroids.get(clusterAssignments.get(i))));
+                collection.add(new ParallelizeComputeIndex(dataset.get(i), centroids.get(clusterAssignments[i])));
             try {
-                List<Future<Double>> futures = executor.invokeAll(collection);
-                for (Future<Double> future : futures) {
-                    twcv += future.get();
-                }
+                List<Future<Double>> futures = ComputeRuntime.invokeAll(ComputeRuntime.INDICES, collection);
+                for (int i = 0; i < futures.size(); ++i)
+                    distances[i] = futures.get(i).get();
             } catch (InterruptedException | ExecutionException e) {
                 e.printStackTrace();
             }
         } else {
-            for (int i = 0; i < dataset.numInstances(); ++i) {
-                twcv += FastMath.pow(distanceFunction.distance(dataset.get(i), centroids.get(clusterAssignments.get(i))), 2);
-            }
+            for (int i = 0; i < dataset.numInstances(); ++i)
+                distances[i] = distanceFunction.distance(dataset.get(i), centroids.get(clusterAssignments[i]));
         }
+        return computeIndex(distances);
+    }
+
+    /**
+     * @param centroidDistances distance from each bag to the centroid of its cluster.
+     */
+    public double computeIndex(double[] centroidDistances) {
+        double twcv = 0D;
+        for (double distance : centroidDistances)
+            twcv += FastMath.pow(distance, 2);
         return twcv;
     }
 
@@ -63,7 +79,7 @@ public class TotalWithinClusterVariation {
         }
         @Override
         public Double call() throws Exception {
-            return FastMath.pow(distanceFunction.distance(instance, centroid), 2);
+            return distanceFunction.distance(instance, centroid);
         }
     }
 }
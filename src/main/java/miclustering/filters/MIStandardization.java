@@ -1,15 +1,21 @@
 package miclustering.filters;
 
+import miclustering.utils.BagSink;
 import miclustering.utils.ProcessDataset;
+import miclustering.utils.StreamedBag;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.stat.descriptive.moment.Mean;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
 import org.apache.commons.math3.stat.descriptive.rank.Max;
 import org.apache.commons.math3.stat.descriptive.rank.Min;
+import org.apache.commons.math3.util.FastMath;
 import weka.core.Instance;
 import weka.core.Instances;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 public class MIStandardization {
 
     private double[] min;
@@ -82,4 +88,105 @@ public class MIStandardization {
         return dataset;
     }
 
+    /**
+     * Standardizes to mean 0 and standard deviation 1, as {@link #z1(Instances)}, the bags streamed to the next sink.
+     *
+     * @param statistics statistics of the dataset, computed in a previous pass.
+     */
+    public BagSink z1(Statistics statistics, BagSink next) {
+        return new Transform(next, (value, i) -> (value - statistics.mean[i]) / statistics.std(i));
+    }
+
+    /**
+     * Standardizes to range [0, 1], as {@link #z5(Instances)}, the bags streamed to the next sink.
+     *
+     * @param statistics statistics of the dataset, computed in a previous pass.
+     */
+    public BagSink z5(Statistics statistics, BagSink next) {
+        return new Transform(next, (value, i) -> (value - statistics.min[i]) / (statistics.max[i] - statistics.min[i]));
+    }
+
+    /**
+     * Sink that computes the minimum, maximum, mean and standard deviation of each instance attribute of a streamed
+     * dataset. The mean and the standard deviation are updated with Welford's method, so they may differ from the ones
+     * of the in-memory standardization in the last digits.
+     */
+    public static class Statistics implements BagSink {
+        private long count;
+        private double[] min;
+        private double[] max;
+        private double[] mean;
+        private double[] m2;
+
+        @Override
+        public void start(Instances header) {
+            int nAtt = header.attribute(1).relation().numAttributes();
+            count = 0;
+            min = new double[nAtt];
+            max = new double[nAtt];
+            mean = new double[nAtt];
+            m2 = new double[nAtt];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        @Override
+        public void accept(StreamedBag bag) {
+            for (int j = 0; j < bag.numInstances(); ++j) {
+                count++;
+                for (int i = 0; i < mean.length; ++i) {
+                    double value = bag.value(j, i);
+                    if (!Double.isNaN(value)) {
+                        min[i] = Math.min(min[i], value);
+                        max[i] = Math.max(max[i], value);
+                    }
+                    double delta = value - mean[i];
+                    mean[i] += delta / count;
+                    m2[i] += delta * (value - mean[i]);
+                }
+            }
+        }
+
+        /**
+         * Sample standard deviation of an attribute.
+         */
+        public double std(int attribute) {
+            return count > 1 ? FastMath.sqrt(m2[attribute] / (count - 1)) : 0D;
+        }
+    }
+
+    private interface ValueTransform {
+        double apply(double value, int attribute);
+    }
+
+    private static class Transform implements BagSink {
+        private final BagSink next;
+        private final ValueTransform transform;
+
+        Transform(BagSink next, ValueTransform transform) {
+            this.next = next;
+            this.transform = transform;
+        }
+
+        @Override
+        public void start(Instances header) throws IOException {
+            next.start(header);
+        }
+
+        @Override
+        public void accept(StreamedBag bag) throws IOException {
+            double[] values = bag.values().clone();
+            int nAtt = bag.numAttributes();
+            for (int k = 0; k < values.length; ++k) {
+                double val = transform.apply(values[k], k % nAtt);
+                values[k] = Double.isNaN(val) ? 0 : val;
+            }
+            next.accept(bag.withValues(values));
+        }
+
+        @Override
+        public void finish() throws IOException {
+            next.finish();
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package miclustering.utils;
+
+import weka.core.DistanceFunction;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+
+/**
+ * Process-wide cache of bag distance matrices. A matrix is computed once per (dataset, distance function and options)
+ * and the same instance is handed to every caller, so consumers must treat it as read-only. If a storage directory is
+ * set, matrices are also persisted there and reopened by later runs instead of being computed again.
+ * <p>
+ * Datasets are identified by the content of their bags rather than by reference, so filtered copies of the same data
+ * (e.g. without the class attribute, as the clusterers receive it) share the matrix with the original dataset.
+ */
+public class BagDistanceCache {
+    private static final Map<Key, Future<BagDistanceMatrix>> matrices = new ConcurrentHashMap<>();
+    private static final Map<Instances, Long> fingerprints = Collections.synchronizedMap(new WeakHashMap<>());
+    private static volatile File directory;
+    private static volatile boolean singlePrecision;
+
+    /**
+     * @param directory       where the matrices are persisted and looked up before computing them. If null, matrices
+     *                        only live in memory.
+     * @param singlePrecision store the distances as float.
+     */
+    public static void setStorage(File directory, boolean singlePrecision) {
+        BagDistanceCache.directory = directory;
+        BagDistanceCache.singlePrecision = singlePrecision;
+    }
+
+    public static BagDistanceMatrix getDistancesMatrix(Instances dataset, DistanceFunction distanceFunction, boolean parallelize) {
+        return get(dataset, distanceFunction, parallelize, false);
+    }
+
+    /**
+     * Matrix where get(i, j) is always distance(i, j), also for the distances that {@link DistancesMatrix} considers
+     * symmetric. For the rest of distances it is the same shared matrix as {@link #getDistancesMatrix}.
+     */
+    public static BagDistanceMatrix getDirectedDistancesMatrix(Instances dataset, DistanceFunction distanceFunction, boolean parallelize) {
+        return get(dataset, distanceFunction, parallelize, DistancesMatrix.isDistance(distanceFunction));
+    }
+
+    private static BagDistanceMatrix get(Instances dataset, DistanceFunction distanceFunction, boolean parallelize, boolean directed) {
+        boolean symmetric = !directed && DistancesMatrix.isDistance(distanceFunction);
+        boolean useFloat = singlePrecision;
+        String distance = describe(distanceFunction) + (directed ? " (directed)" : "") + (useFloat ? " (float)" : "");
+        Key key = new Key(dataset.numInstances(), fingerprint(dataset), distance);
+        Future<BagDistanceMatrix> result = matrices.get(key);
+        if (result == null) {
+            FutureTask<BagDistanceMatrix> task = new FutureTask<>(() -> load(key, dataset, distanceFunction, parallelize, symmetric, useFloat));
+            result = matrices.putIfAbsent(key, task);
+            if (result == null) {
+                result = task;
+                task.run();
+            }
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException | ExecutionException e) {
+            matrices.remove(key, result);
+            throw new IllegalStateException("Error computing distances matrix with " + key.distance, e);
+        }
+    }
+
+    private static BagDistanceMatrix load(Key key, Instances dataset, DistanceFunction distanceFunction, boolean parallelize,
+                                          boolean symmetric, boolean useFloat) throws IOException {
+        File dir = directory;
+        PackedDistanceMatrix matrix;
+        if (dir == null) {
+            matrix = PackedDistanceMatrix.allocate(key.numBags, symmetric, useFloat);
+            new DistancesMatrix().compute(dataset, distanceFunction, parallelize, matrix);
+            return matrix;
+        }
+        File file = new File(dir, String.format("%016x-%08x.dist", key.fingerprint, key.distance.hashCode()));
+        matrix = PackedDistanceMatrix.open(file, key.fingerprint, key.distance);
+        if (matrix == null) {
+            matrix = PackedDistanceMatrix.create(file, key.numBags, symmetric, useFloat, key.fingerprint, key.distance);
+            try {
+                new DistancesMatrix().compute(dataset, distanceFunction, parallelize, matrix);
+            } catch (RuntimeException e) {
+                matrix.discard();
+                throw e;
+            }
+            matrix.store();
+        }
+        return matrix;
+    }
+
+    public static void clear() {
+        matrices.clear();
+        fingerprints.clear();
+    }
+
+    /**
+     * Removes the matrices of a dataset, for any distance function, leaving the ones of the rest of datasets.
+     */
+    public static void release(Instances dataset) {
+        long fingerprint = fingerprint(dataset);
+        matrices.keySet().removeIf(key -> key.numBags == dataset.numInstances() && key.fingerprint == fingerprint);
+    }
+
+    public static String describe(DistanceFunction distanceFunction) {
+        return (distanceFunction.getClass().getName() + " " + Utils.joinOptions(distanceFunction.getOptions())).trim();
+    }
+
+    static long fingerprint(Instances dataset) {
+        Long cached = fingerprints.get(dataset);
+        if (cached != null)
+            return cached;
+        long hash = 1125899906842597L;
+        for (Instance bag : dataset) {
+            boolean isBag = bag.numAttributes() > 1 && bag.attribute(1).isRelationValued();
+            if (isBag) {
+                Instances instances = bag.relationalValue(1);
+                hash = 31 * hash + instances.numInstances();
+                for (Instance instance : instances) {
+                    for (int i = 0; i < instance.numAttributes(); ++i)
+                        hash = 31 * hash + Double.hashCode(instance.value(i));
+                }
+            } else {
+                for (int i = 0; i < bag.numAttributes(); ++i)
+                    hash = 31 * hash + Double.hashCode(bag.value(i));
+            }
+        }
+        fingerprints.put(dataset, hash);
+        return hash;
+    }
+
+    private static class Key {
+        private final int numBags;
+        private final long fingerprint;
+        private final String distance;
+
+        Key(int numBags, long fingerprint, String distance) {
+            this.numBags = numBags;
+            this.fingerprint = fingerprint;
+            this.distance = distance;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return numBags == other.numBags && fingerprint == other.fingerprint && distance.equals(other.distance);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(numBags, fingerprint, distance);
+        }
+    }
+}
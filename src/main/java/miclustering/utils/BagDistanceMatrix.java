@@ -0,0 +1,17 @@
+package miclustering.utils;
+
+/**
+ * Distances between every pair of bags of a dataset, indexed by bag position.
+ */
+public interface BagDistanceMatrix {
+    int numBags();
+
+    /**
+     * If true only one of (i, j) and (j, i) is stored and both return the same value.
+     */
+    boolean isSymmetric();
+
+    double get(int i, int j);
+
+    void set(int i, int j, double distance);
+}
@@ -0,0 +1,28 @@
+package miclustering.utils;
+
+import weka.core.Instances;
+
+import java.io.IOException;
+
+/**
+ * Consumer of the bags of a dataset read one at a time by {@link BagStreamReader}, so that the dataset does not need
+ * to fit in memory.
+ */
+public interface BagSink {
+    /**
+     * Called before the first bag with the header of the dataset, without data.
+     */
+    default void start(Instances header) throws IOException {
+    }
+
+    /**
+     * Called for each bag, in the order of the dataset.
+     */
+    void accept(StreamedBag bag) throws IOException;
+
+    /**
+     * Called after the last bag.
+     */
+    default void finish() throws IOException {
+    }
+}
@@ -0,0 +1,171 @@
+package miclustering.utils;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * All the instances of all the bags of a dataset in a single contiguous array, row after row, so that the distances can
+ * work on primitive values instead of extracting the relational Instances of each bag on every call.
+ * <p>
+ * A store is a snapshot of the dataset: it must only be registered for datasets that are not modified afterwards.
+ * Datasets that are not MI (no relational attribute) are stored with every instance as a bag of one instance.
+ */
+public class BagStore {
+    private static final Map<Instances, BagStore> stores = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int numAttributes;
+    private final double[] values;
+    // Bag i has the rows [rowOffsets[i], rowOffsets[i + 1])
+    private final int[] rowOffsets;
+    // Position of each bag by the value of its bag id attribute, null if ids are not unique
+    private final int[] bagById;
+
+    private BagStore(Instance[] bags) {
+        rowOffsets = new int[bags.length + 1];
+        int nAtt = -1;
+        for (int i = 0; i < bags.length; ++i) {
+            int rows;
+            int att;
+            if (isBag(bags[i])) {
+                Instances bag = bags[i].relationalValue(1);
+                rows = bag.numInstances();
+                att = bag.numAttributes();
+            } else {
+                rows = 1;
+                att = bags[i].numAttributes();
+            }
+            if (nAtt == -1)
+                nAtt = att;
+            else if (nAtt != att)
+                throw new IllegalArgumentException("Number of attributes is not equals");
+            rowOffsets[i + 1] = rowOffsets[i] + rows;
+        }
+        numAttributes = Math.max(nAtt, 0);
+
+        values = new double[rowOffsets[bags.length] * numAttributes];
+        int pos = 0;
+        for (Instance bag : bags) {
+            if (isBag(bag)) {
+                for (Instance instance : bag.relationalValue(1)) {
+                    for (int k = 0; k < numAttributes; ++k)
+                        values[pos++] = instance.value(k);
+                }
+            } else {
+                for (int k = 0; k < numAttributes; ++k)
+                    values[pos++] = bag.value(k);
+            }
+        }
+
+        bagById = indexById(bags);
+    }
+
+    /**
+     * Store registered for the dataset, building it if needed.
+     */
+    public static BagStore of(Instances dataset) {
+        synchronized (stores) {
+            BagStore store = stores.get(dataset);
+            if (store == null || store.numBags() != dataset.numInstances()) {
+                store = new BagStore(dataset.toArray(new Instance[0]));
+                stores.put(dataset, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Store previously registered with {@link #of(Instances)} for the dataset, or null.
+     */
+    public static BagStore lookup(Instances dataset) {
+        if (dataset == null)
+            return null;
+        BagStore store = stores.get(dataset);
+        return store != null && store.numBags() == dataset.numInstances() ? store : null;
+    }
+
+    /**
+     * Temporary store with only the given bags, in the same order. It is not registered.
+     */
+    public static BagStore ofBags(Instance... bags) {
+        return new BagStore(bags);
+    }
+
+    public int numBags() {
+        return rowOffsets.length - 1;
+    }
+
+    public int numAttributes() {
+        return numAttributes;
+    }
+
+    public int numInstances(int bag) {
+        return rowOffsets[bag + 1] - rowOffsets[bag];
+    }
+
+    /**
+     * Position in {@link #values()} of the first value of the instance of a bag.
+     */
+    public int offset(int bag, int instance) {
+        return (rowOffsets[bag] + instance) * numAttributes;
+    }
+
+    public double[] values() {
+        return values;
+    }
+
+    public double[][] bagToMatrix(int bag) {
+        int n = numInstances(bag);
+        double[][] matrix = new double[n][];
+        for (int i = 0; i < n; ++i) {
+            int from = offset(bag, i);
+            matrix[i] = Arrays.copyOfRange(values, from, from + numAttributes);
+        }
+        return matrix;
+    }
+
+    /**
+     * Position of the bag in the store, or -1 if it cannot be found by its bag id.
+     */
+    public int indexOf(Instance bag) {
+        if (bagById == null || !isBag(bag))
+            return -1;
+        double id = bag.value(0);
+        if (id < 0 || id >= bagById.length || id != (int) id)
+            return -1;
+        int index = bagById[(int) id];
+        if (index < 0 || numInstances(index) != bag.relationalValue(1).numInstances())
+            return -1;
+        return index;
+    }
+
+    private static int[] indexById(Instance[] bags) {
+        int maxId = -1;
+        for (Instance bag : bags) {
+            if (!isBag(bag))
+                return null;
+            double id = bag.value(0);
+            if (id < 0 || id != (int) id)
+                return null;
+            maxId = Math.max(maxId, (int) id);
+        }
+        int[] result = new int[maxId + 1];
+        Arrays.fill(result, -1);
+        for (int i = 0; i < bags.length; ++i) {
+            int id = (int) bags[i].value(0);
+            if (result[id] != -1)
+                return null;
+            result[id] = i;
+        }
+        return result;
+    }
+
+    private static boolean isBag(Instance bag) {
+        Instances dataset = bag.dataset();
+        return dataset != null && dataset.numAttributes() > 1 && dataset.attribute(1).isRelationValued();
+    }
+}
@@ -0,0 +1,223 @@
+package miclustering.utils;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a multi-instance dataset one bag at a time and feeds the bags to a set of {@link BagSink}, so that only one
+ * bag is kept in memory instead of the whole dataset with a nested Instances per bag.
+ * <p>
+ * The dataset may be in ARFF, with the instances of each bag in a quoted relational value as Weka writes them, or in
+ * the binary format of {@link BinaryDataset}. Sparse ARFF data, string and date attributes are not supported. Each call
+ * to {@link #stream(BagSink...)} reads the file again, so that sinks that need several passes (as standardizing the
+ * dataset with its statistics) can be chained.
+ */
+public class BagStreamReader {
+    private final String path;
+    private final Instances header;
+    private final int relationalIndex;
+
+    public BagStreamReader(String path) throws IOException {
+        this.path = path;
+        if (path.endsWith(BinaryDataset.EXTENSION)) {
+            header = BinaryDataset.open(new File(path)).getHeader();
+        } else {
+            StringBuilder text = new StringBuilder();
+            try (BufferedReader reader = open()) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    text.append(line).append('\n');
+                    if (isDataLine(line))
+                        break;
+                }
+            }
+            header = new ArffLoader.ArffReader(new StringReader(text.toString())).getStructure();
+        }
+        int index = -1;
+        for (int a = 0; a < header.numAttributes() && index < 0; ++a) {
+            if (header.attribute(a).isRelationValued())
+                index = a;
+        }
+        if (index < 0)
+            throw new IOException("Dataset " + path + " has no relational attribute");
+        relationalIndex = index;
+    }
+
+    /**
+     * Header of the dataset, without data.
+     */
+    public Instances getHeader() {
+        return header;
+    }
+
+    /**
+     * Reads all the bags of the dataset, passing each one to all the sinks in order.
+     *
+     * @return number of bags read.
+     */
+    public int stream(BagSink... sinks) throws IOException {
+        for (BagSink sink : sinks)
+            sink.start(new Instances(header, 0));
+        int numBags = path.endsWith(BinaryDataset.EXTENSION) ? streamBinary(sinks) : streamArff(sinks);
+        for (BagSink sink : sinks)
+            sink.finish();
+        return numBags;
+    }
+
+    private int streamBinary(BagSink[] sinks) throws IOException {
+        BinaryDataset dataset = BinaryDataset.open(new File(path));
+        for (int i = 0; i < dataset.numBags(); ++i) {
+            StreamedBag bag = dataset.getBag(i);
+            for (BagSink sink : sinks)
+                sink.accept(bag);
+        }
+        return dataset.numBags();
+    }
+
+    private int streamArff(BagSink[] sinks) throws IOException {
+        int numBags = 0;
+        try (BufferedReader reader = open()) {
+            String line;
+            while ((line = reader.readLine()) != null && !isDataLine(line)) {
+                // Skip the header
+            }
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.charAt(0) == '%')
+                    continue;
+                StreamedBag bag = parseBag(numBags, trimmed);
+                for (BagSink sink : sinks)
+                    sink.accept(bag);
+                numBags++;
+            }
+        }
+        return numBags;
+    }
+
+    private StreamedBag parseBag(int index, String line) throws IOException {
+        if (line.charAt(0) == '{')
+            throw new IOException("Sparse data is not supported, in bag " + index + " of " + path);
+        List<String> fields = split(line);
+        if (fields.size() != header.numAttributes())
+            throw new IOException("Bag " + index + " of " + path + " has " + fields.size() + " values instead of " + header.numAttributes());
+
+        double[] attributeValues = new double[header.numAttributes()];
+        for (int a = 0; a < header.numAttributes(); ++a) {
+            if (a != relationalIndex)
+                attributeValues[a] = parseValue(header.attribute(a), fields.get(a), index);
+        }
+
+        Instances relation = header.attribute(relationalIndex).relation();
+        int numAttributes = relation.numAttributes();
+        String content = unquote(fields.get(relationalIndex));
+        List<double[]> rows = new ArrayList<>();
+        for (String row : content.split("\n")) {
+            if (row.trim().isEmpty())
+                continue;
+            List<String> rowFields = split(row.trim());
+            if (rowFields.size() != numAttributes)
+                throw new IOException("An instance of bag " + index + " of " + path + " has " + rowFields.size() + " values instead of " + numAttributes);
+            double[] values = new double[numAttributes];
+            for (int k = 0; k < numAttributes; ++k)
+                values[k] = parseValue(relation.attribute(k), rowFields.get(k), index);
+            rows.add(values);
+        }
+
+        double[] values = new double[rows.size() * numAttributes];
+        double[] instanceWeights = new double[rows.size()];
+        for (int j = 0; j < rows.size(); ++j) {
+            System.arraycopy(rows.get(j), 0, values, j * numAttributes, numAttributes);
+            instanceWeights[j] = 1D;
+        }
+        return new StreamedBag(index, attributeValues, 1D, numAttributes, values, instanceWeights);
+    }
+
+    private double parseValue(Attribute attribute, String field, int bagIndex) throws IOException {
+        if (field.equals("?"))
+            return Double.NaN;
+        if (attribute.isNumeric()) {
+            try {
+                return Double.parseDouble(field);
+            } catch (NumberFormatException e) {
+                throw new IOException("Wrong number " + field + " in bag " + bagIndex + " of " + path);
+            }
+        }
+        if (attribute.isNominal()) {
+            int value = attribute.indexOfValue(unquote(field));
+            if (value < 0)
+                throw new IOException("Unknown value " + field + " of attribute " + attribute.name() + " in bag " + bagIndex + " of " + path);
+            return value;
+        }
+        throw new IOException("Attribute " + attribute.name() + " of " + path + " has an unsupported type");
+    }
+
+    /**
+     * Values of a line separated by commas outside quotes, keeping their quotes.
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        int start = 0;
+        char quote = 0;
+        for (int i = 0; i < line.length(); ++i) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == '\\')
+                    i++;
+                else if (c == quote)
+                    quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ',') {
+                fields.add(line.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        fields.add(line.substring(start).trim());
+        return fields;
+    }
+
+    /**
+     * Value without its quotes and with its escaped characters, as Weka writes them.
+     */
+    private static String unquote(String field) {
+        if (field.length() < 2 || (field.charAt(0) != '\'' && field.charAt(0) != '"') || field.charAt(field.length() - 1) != field.charAt(0))
+            return field;
+        StringBuilder result = new StringBuilder(field.length());
+        for (int i = 1; i < field.length() - 1; ++i) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length() - 1) {
+                char next = field.charAt(++i);
+                switch (next) {
+                    case 'n':
+                        result.append('\n');
+                        break;
+                    case 'r':
+                        result.append('\r');
+                        break;
+                    case 't':
+                        result.append('\t');
+                        break;
+                    default:
+                        result.append(next);
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isDataLine(String line) {
+        return line.trim().regionMatches(true, 0, "@data", 0, 5);
+    }
+
+    private BufferedReader open() throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8), 1 << 16);
+    }
+}
@@ -0,0 +1,227 @@
+package miclustering.utils;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Summary statistics of the instances of each bag of a dataset, computed once so that centroids and indices work with
+ * one vector per bag instead of going through all the instances of the bags on every evaluation.
+ * <p>
+ * Sums and weights skip the missing values, as {@link Instances#meanOrMode(int)} does, so the mean of the union of
+ * several bags is the sum of their sums divided by the sum of their weights.
+ */
+public class BagSummary {
+    private static final Map<Instances, BagSummary> summaries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int numBags;
+    private final int numAttributes;
+    private final boolean numeric;
+    // Values of bag i and attribute a are at [i * numAttributes + a]
+    private final double[] means;
+    private final double[] sums;
+    private final double[] sumsOfSquares;
+    private final double[] weights;
+    private final int[] counts;
+
+    private BagSummary(Instances dataset) {
+        numBags = dataset.numInstances();
+        Instances header = dataset.attribute(1).relation();
+        numAttributes = header.numAttributes();
+        boolean allNumeric = true;
+        for (int a = 0; a < numAttributes; ++a)
+            allNumeric &= header.attribute(a).isNumeric();
+        numeric = allNumeric;
+
+        means = new double[numBags * numAttributes];
+        sums = new double[numBags * numAttributes];
+        sumsOfSquares = new double[numBags * numAttributes];
+        weights = new double[numBags * numAttributes];
+        counts = new int[numBags];
+        for (int i = 0; i < numBags; ++i) {
+            Instances bag = dataset.get(i).relationalValue(1);
+            int row = i * numAttributes;
+            for (Instance instance : bag) {
+                double weight = instance.weight();
+                for (int a = 0; a < numAttributes; ++a) {
+                    if (!instance.isMissing(a)) {
+                        double value = instance.value(a);
+                        sums[row + a] += weight * value;
+                        sumsOfSquares[row + a] += weight * value * value;
+                        weights[row + a] += weight;
+                    }
+                }
+            }
+            for (int a = 0; a < numAttributes; ++a)
+                means[row + a] = bag.meanOrMode(a);
+            counts[i] = bag.numInstances();
+        }
+    }
+
+    private BagSummary(int numBags, int numAttributes, boolean numeric, double[] means, double[] sums, double[] sumsOfSquares, double[] weights, int[] counts) {
+        this.numBags = numBags;
+        this.numAttributes = numAttributes;
+        this.numeric = numeric;
+        this.means = means;
+        this.sums = sums;
+        this.sumsOfSquares = sumsOfSquares;
+        this.weights = weights;
+        this.counts = counts;
+    }
+
+    /**
+     * Summary of the dataset, computing it the first time. As with {@link BagStore}, the dataset must not be modified
+     * afterwards.
+     */
+    public static BagSummary of(Instances dataset) {
+        synchronized (summaries) {
+            BagSummary summary = summaries.get(dataset);
+            if (summary == null || summary.numBags != dataset.numInstances()) {
+                summary = new BagSummary(dataset);
+                summaries.put(dataset, summary);
+            }
+            return summary;
+        }
+    }
+
+    public int numBags() {
+        return numBags;
+    }
+
+    public int numAttributes() {
+        return numAttributes;
+    }
+
+    /**
+     * If all the instance attributes are numeric. Otherwise means are modes for the nominal attributes and they cannot
+     * be combined from the sums.
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * Mean (or mode) of an attribute in a bag, as {@link Instances#meanOrMode(int)}.
+     */
+    public double mean(int bag, int attribute) {
+        return means[bag * numAttributes + attribute];
+    }
+
+    public double sum(int bag, int attribute) {
+        return sums[bag * numAttributes + attribute];
+    }
+
+    public double sumOfSquares(int bag, int attribute) {
+        return sumsOfSquares[bag * numAttributes + attribute];
+    }
+
+    /**
+     * Sum of the weights of the instances of the bag that have a value for the attribute.
+     */
+    public double weight(int bag, int attribute) {
+        return weights[bag * numAttributes + attribute];
+    }
+
+    public int numInstances(int bag) {
+        return counts[bag];
+    }
+
+    /**
+     * Sink that computes the summary of a dataset read with {@link BagStreamReader}, with the same values as
+     * {@link #of(Instances)} but without loading the dataset. The summary is not registered for any dataset.
+     */
+    public static class Builder implements BagSink {
+        private Instances relation;
+        private int numAttributes;
+        private boolean numeric;
+        private int numBags;
+        private double[] means;
+        private double[] sums;
+        private double[] sumsOfSquares;
+        private double[] weights;
+        private int[] counts;
+
+        @Override
+        public void start(Instances header) {
+            relation = header.attribute(1).relation();
+            numAttributes = relation.numAttributes();
+            numeric = true;
+            for (int a = 0; a < numAttributes; ++a)
+                numeric &= relation.attribute(a).isNumeric();
+            numBags = 0;
+            means = new double[16 * numAttributes];
+            sums = new double[16 * numAttributes];
+            sumsOfSquares = new double[16 * numAttributes];
+            weights = new double[16 * numAttributes];
+            counts = new int[16];
+        }
+
+        @Override
+        public void accept(StreamedBag bag) {
+            if (numBags == counts.length) {
+                means = Arrays.copyOf(means, 2 * means.length);
+                sums = Arrays.copyOf(sums, 2 * sums.length);
+                sumsOfSquares = Arrays.copyOf(sumsOfSquares, 2 * sumsOfSquares.length);
+                weights = Arrays.copyOf(weights, 2 * weights.length);
+                counts = Arrays.copyOf(counts, 2 * counts.length);
+            }
+            int row = numBags * numAttributes;
+            for (int j = 0; j < bag.numInstances(); ++j) {
+                double weight = bag.instanceWeight(j);
+                for (int a = 0; a < numAttributes; ++a) {
+                    double value = bag.value(j, a);
+                    if (!Double.isNaN(value)) {
+                        sums[row + a] += weight * value;
+                        sumsOfSquares[row + a] += weight * value * value;
+                        weights[row + a] += weight;
+                    }
+                }
+            }
+            for (int a = 0; a < numAttributes; ++a)
+                means[row + a] = relation.attribute(a).isNumeric() ? mean(bag, a) : mode(bag, a);
+            counts[numBags] = bag.numInstances();
+            numBags++;
+        }
+
+        public BagSummary build() {
+            int length = numBags * numAttributes;
+            return new BagSummary(numBags, numAttributes, numeric, Arrays.copyOf(means, length), Arrays.copyOf(sums, length),
+                    Arrays.copyOf(sumsOfSquares, length), Arrays.copyOf(weights, length), Arrays.copyOf(counts, numBags));
+        }
+
+        /**
+         * Same mean as {@link Instances#meanOrMode(int)}, adding the values in the same order.
+         */
+        private static double mean(StreamedBag bag, int attribute) {
+            double result = 0D;
+            double found = 0D;
+            for (int j = 0; j < bag.numInstances(); ++j) {
+                double value = bag.value(j, attribute);
+                if (!Double.isNaN(value)) {
+                    found += bag.instanceWeight(j);
+                    result += bag.instanceWeight(j) * value;
+                }
+            }
+            return found <= 0 ? 0D : result / found;
+        }
+
+        /**
+         * Same mode as {@link Instances#meanOrMode(int)}: the value with the greatest weight, the first one on ties.
+         */
+        private double mode(StreamedBag bag, int attribute) {
+            // Weka counts the weights in integers
+            int[] counts = new int[relation.attribute(attribute).numValues()];
+            for (int j = 0; j < bag.numInstances(); ++j) {
+                double value = bag.value(j, attribute);
+                if (!Double.isNaN(value))
+                    counts[(int) value] += bag.instanceWeight(j);
+            }
+            return Utils.maxIndex(counts);
+        }
+    }
+}
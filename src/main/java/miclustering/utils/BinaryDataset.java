@@ -0,0 +1,394 @@
+package miclustering.utils;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader;
+
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Multi-instance dataset in a binary format that is memory-mapped instead of parsed, to avoid reading the text ARFF of
+ * the large datasets on every run. The file has the following sections, big-endian:
+ * <ul>
+ *     <li>Magic number and version.</li>
+ *     <li>Attribute metadata: the ARFF header of the dataset (without data), padded to 8 bytes.</li>
+ *     <li>Number of bags, of bag attributes, position of the relational attribute, number of instance attributes and
+ *     number of instances, padded to 8 bytes.</li>
+ *     <li>Values of the bag attributes (bag id, class label...) column by column. The relational one is empty.</li>
+ *     <li>Weights of the bags.</li>
+ *     <li>Weights of the instances.</li>
+ *     <li>Instance matrix: the values of all the instances of all the bags row after row, as in {@link BagStore}.</li>
+ *     <li>Bag offsets: bag i has the instances [offset[i], offset[i + 1]).</li>
+ * </ul>
+ * Each section is mapped in segments of at most 1 GB, so the size of the file is not limited by the size of a single
+ * mapped buffer. The number of instances of a dataset must fit in an int.
+ * <p>
+ * Missing values are stored as NaN, as Weka does. Datasets are written with {@link #write(Instances, File)} or, bag by
+ * bag, with a {@link Writer}, and read with {@link #open(File)}, that gives access both to the primitive columns and to
+ * the Weka Instances.
+ */
+public class BinaryDataset {
+    public static final String EXTENSION = ".mib";
+    private static final int MAGIC = 0x4D494244;
+    private static final int VERSION = 1;
+
+    private final String header;
+    private final int numBags;
+    private final int numAttributes;
+    private final int relationalIndex;
+    private final int numInstAttributes;
+    private final int numInstances;
+    private final MappedDoubles bagValues;
+    private final MappedDoubles bagWeights;
+    private final MappedDoubles instanceWeights;
+    private final MappedDoubles instanceValues;
+    private final IntBuffer bagOffsets;
+
+    private BinaryDataset(RandomAccessFile raf) throws IOException {
+        if (raf.readInt() != MAGIC)
+            throw new IOException("Not a binary multi-instance dataset");
+        int version = raf.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported version " + version + " of binary multi-instance dataset");
+        byte[] headerBytes = new byte[raf.readInt()];
+        raf.readFully(headerBytes);
+        header = new String(headerBytes, StandardCharsets.UTF_8);
+        raf.seek(align(raf.getFilePointer()));
+        numBags = raf.readInt();
+        numAttributes = raf.readInt();
+        relationalIndex = raf.readInt();
+        numInstAttributes = raf.readInt();
+        numInstances = raf.readInt();
+        long position = align(raf.getFilePointer());
+
+        FileChannel channel = raf.getChannel();
+        long offsetsBytes = 4L * (numBags + 1);
+        long expectedSize = position + 8L * ((long) numAttributes * numBags + numBags + numInstances
+                + (long) numInstances * numInstAttributes) + offsetsBytes;
+        if (channel.size() != expectedSize)
+            throw new IOException("Truncated or corrupt binary multi-instance dataset");
+        bagValues = new MappedDoubles(channel, position, (long) numAttributes * numBags);
+        position += 8L * bagValues.size;
+        bagWeights = new MappedDoubles(channel, position, numBags);
+        position += 8L * bagWeights.size;
+        instanceWeights = new MappedDoubles(channel, position, numInstances);
+        position += 8L * instanceWeights.size;
+        instanceValues = new MappedDoubles(channel, position, (long) numInstances * numInstAttributes);
+        position += 8L * instanceValues.size;
+        bagOffsets = channel.map(FileChannel.MapMode.READ_ONLY, position, offsetsBytes).asIntBuffer();
+    }
+
+    /**
+     * Maps a binary dataset. The file is not read until its values are accessed.
+     */
+    public static BinaryDataset open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return new BinaryDataset(raf);
+        }
+    }
+
+    /**
+     * Number of bags of a binary dataset, reading only its header.
+     */
+    public static int readNumBags(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a binary multi-instance dataset");
+            in.readInt();
+            int headerLength = in.readInt();
+            long skip = headerLength + padding(12 + headerLength);
+            while (skip > 0)
+                skip -= in.skip(skip);
+            return in.readInt();
+        }
+    }
+
+    /**
+     * Writes a multi-instance dataset, whose bags have a relational attribute, in the binary format.
+     */
+    public static void write(Instances dataset, File file) throws IOException {
+        Writer writer = new Writer(file);
+        writer.start(dataset);
+        int relationalIndex = writer.relationalIndex;
+        int numInstAttributes = dataset.attribute(relationalIndex).relation().numAttributes();
+        for (int i = 0; i < dataset.numInstances(); ++i) {
+            Instance bag = dataset.get(i);
+            Instances instances = bag.relationalValue(relationalIndex);
+            double[] values = new double[instances.numInstances() * numInstAttributes];
+            double[] instanceWeights = new double[instances.numInstances()];
+            for (int j = 0; j < instances.numInstances(); ++j) {
+                for (int k = 0; k < numInstAttributes; ++k)
+                    values[j * numInstAttributes + k] = instances.get(j).value(k);
+                instanceWeights[j] = instances.get(j).weight();
+            }
+            writer.accept(new StreamedBag(i, bag.toDoubleArray(), bag.weight(), numInstAttributes, values, instanceWeights));
+        }
+        writer.finish();
+    }
+
+    /**
+     * Dataset as Weka Instances, with the same structure and values as the ARFF it was written from. The class index
+     * is not set.
+     */
+    public Instances toInstances() throws IOException {
+        Instances dataset = new ArffLoader.ArffReader(new StringReader(header)).getData();
+        Attribute relational = dataset.attribute(relationalIndex);
+        Instances bagHeader = relational.relation();
+        for (int i = 0; i < numBags; ++i) {
+            int from = bagOffsets.get(i);
+            int to = bagOffsets.get(i + 1);
+            Instances bag = new Instances(bagHeader, to - from);
+            for (int j = from; j < to; ++j) {
+                double[] values = new double[numInstAttributes];
+                instanceValues.get((long) j * numInstAttributes, values, 0, numInstAttributes);
+                bag.add(new DenseInstance(instanceWeights.get(j), values));
+            }
+            double[] values = new double[numAttributes];
+            for (int a = 0; a < numAttributes; ++a)
+                values[a] = a == relationalIndex ? relational.addRelation(bag) : bagValues.get((long) a * numBags + i);
+            dataset.add(new DenseInstance(bagWeights.get(i), values));
+        }
+        return dataset;
+    }
+
+    /**
+     * Header of the dataset, without data.
+     */
+    public Instances getHeader() throws IOException {
+        return new ArffLoader.ArffReader(new StringReader(header)).getStructure();
+    }
+
+    /**
+     * Values of a bag, copied from the mapped file.
+     */
+    public StreamedBag getBag(int bag) {
+        int from = bagOffsets.get(bag);
+        int to = bagOffsets.get(bag + 1);
+        double[] attributeValues = new double[numAttributes];
+        for (int a = 0; a < numAttributes; ++a)
+            attributeValues[a] = a == relationalIndex ? 0D : bagValues.get((long) a * numBags + bag);
+        double[] values = new double[(to - from) * numInstAttributes];
+        instanceValues.get((long) from * numInstAttributes, values, 0, values.length);
+        double[] weights = new double[to - from];
+        instanceWeights.get(from, weights, 0, weights.length);
+        return new StreamedBag(bag, attributeValues, bagWeights.get(bag), numInstAttributes, values, weights);
+    }
+
+    public int numBags() {
+        return numBags;
+    }
+
+    public int numInstances() {
+        return numInstances;
+    }
+
+    public int numInstAttributes() {
+        return numInstAttributes;
+    }
+
+    /**
+     * Values of a bag attribute (bag id, class label...) for all the bags. Nominal values are given by their index.
+     */
+    public double[] bagAttribute(int attribute) {
+        double[] result = new double[numBags];
+        bagValues.get((long) attribute * numBags, result, 0, numBags);
+        return result;
+    }
+
+    /**
+     * Class labels of the bags, taking the last attribute as class as {@link DatasetRegistry} does.
+     */
+    public double[] classLabels() {
+        return bagAttribute(numAttributes - 1);
+    }
+
+    /**
+     * Value of an attribute of an instance, read from the mapped file.
+     */
+    public double instanceValue(int instance, int attribute) {
+        return instanceValues.get((long) instance * numInstAttributes + attribute);
+    }
+
+    /**
+     * Values of all the instances, row after row, in an array. Datasets with more values than an array can hold must
+     * be read bag by bag with {@link #getBag(int)}.
+     */
+    public double[] instanceValuesArray() {
+        if (instanceValues.size > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Too many instance values for an array: " + instanceValues.size);
+        double[] result = new double[(int) instanceValues.size];
+        instanceValues.get(0, result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Bag i has the rows [offsets[i], offsets[i + 1]) of the instance matrix.
+     */
+    public int[] bagOffsets() {
+        int[] result = new int[numBags + 1];
+        bagOffsets.duplicate().get(result);
+        return result;
+    }
+
+    /**
+     * Sink that writes the bags it receives in the binary format, so that a dataset read with {@link BagStreamReader}
+     * is converted without loading it. The instances are written to temporary files until the number of bags and
+     * instances of the header is known; only the values of the bag attributes are kept in memory.
+     */
+    public static class Writer implements BagSink {
+        private final File file;
+        private Instances header;
+        private int relationalIndex;
+        private int numInstAttributes;
+        private int numBags;
+        private int numInstances;
+        private double[][] bagValues;
+        private double[] bagWeights;
+        private int[] bagOffsets;
+        private File valuesFile;
+        private File weightsFile;
+        private DataOutputStream values;
+        private DataOutputStream weights;
+
+        public Writer(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public void start(Instances header) throws IOException {
+            this.header = new Instances(header, 0);
+            relationalIndex = -1;
+            for (int a = 0; a < header.numAttributes() && relationalIndex < 0; ++a) {
+                if (header.attribute(a).isRelationValued())
+                    relationalIndex = a;
+            }
+            if (relationalIndex < 0)
+                throw new IllegalArgumentException("Dataset " + header.relationName() + " has no relational attribute");
+            numInstAttributes = header.attribute(relationalIndex).relation().numAttributes();
+            numBags = 0;
+            numInstances = 0;
+            bagValues = new double[header.numAttributes()][16];
+            bagWeights = new double[16];
+            bagOffsets = new int[17];
+            valuesFile = File.createTempFile(file.getName(), ".values", file.getAbsoluteFile().getParentFile());
+            weightsFile = File.createTempFile(file.getName(), ".weights", file.getAbsoluteFile().getParentFile());
+            values = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(valuesFile), 1 << 16));
+            weights = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(weightsFile), 1 << 16));
+        }
+
+        @Override
+        public void accept(StreamedBag bag) throws IOException {
+            if ((long) numInstances + bag.numInstances() > Integer.MAX_VALUE)
+                throw new IOException("Too many instances for a binary multi-instance dataset");
+            if (numBags == bagWeights.length) {
+                for (int a = 0; a < bagValues.length; ++a)
+                    bagValues[a] = Arrays.copyOf(bagValues[a], 2 * numBags);
+                bagWeights = Arrays.copyOf(bagWeights, 2 * numBags);
+                bagOffsets = Arrays.copyOf(bagOffsets, 2 * numBags + 1);
+            }
+            for (int a = 0; a < bagValues.length; ++a)
+                bagValues[a][numBags] = a == relationalIndex ? 0D : bag.attributeValue(a);
+            bagWeights[numBags] = bag.weight();
+            for (double value : bag.values())
+                values.writeDouble(value);
+            for (int j = 0; j < bag.numInstances(); ++j)
+                weights.writeDouble(bag.instanceWeight(j));
+            numInstances += bag.numInstances();
+            bagOffsets[++numBags] = numInstances;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            values.close();
+            weights.close();
+            byte[] headerBytes = header.toString().getBytes(StandardCharsets.UTF_8);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(headerBytes.length);
+                out.write(headerBytes);
+                out.write(new byte[padding(12 + headerBytes.length)]);
+                out.writeInt(numBags);
+                out.writeInt(header.numAttributes());
+                out.writeInt(relationalIndex);
+                out.writeInt(numInstAttributes);
+                out.writeInt(numInstances);
+                out.write(new byte[padding(out.size())]);
+
+                for (double[] column : bagValues) {
+                    for (int i = 0; i < numBags; ++i)
+                        out.writeDouble(column[i]);
+                }
+                for (int i = 0; i < numBags; ++i)
+                    out.writeDouble(bagWeights[i]);
+                copy(weightsFile, out);
+                copy(valuesFile, out);
+                for (int i = 0; i <= numBags; ++i)
+                    out.writeInt(bagOffsets[i]);
+            } finally {
+                valuesFile.delete();
+                weightsFile.delete();
+            }
+        }
+
+        private static void copy(File from, OutputStream to) throws IOException {
+            try (InputStream in = new FileInputStream(from)) {
+                byte[] buffer = new byte[1 << 16];
+                int read;
+                while ((read = in.read(buffer)) > 0)
+                    to.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Doubles of a section of the file, mapped in segments of at most 1 GB.
+     */
+    private static final class MappedDoubles {
+        private static final int SEGMENT_SHIFT = 27;
+        private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+        private final long size;
+        private final DoubleBuffer[] segments;
+
+        MappedDoubles(FileChannel channel, long position, long size) throws IOException {
+            this.size = size;
+            segments = new DoubleBuffer[(int) Math.max(1, (size + SEGMENT_SIZE - 1) >> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; ++i) {
+                long length = Math.min(SEGMENT_SIZE, size - i * SEGMENT_SIZE);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + 8L * i * SEGMENT_SIZE, 8L * length).asDoubleBuffer();
+            }
+        }
+
+        double get(long index) {
+            return segments[(int) (index >> SEGMENT_SHIFT)].get((int) (index & (SEGMENT_SIZE - 1)));
+        }
+
+        void get(long index, double[] destination, int offset, int length) {
+            while (length > 0) {
+                DoubleBuffer segment = segments[(int) (index >> SEGMENT_SHIFT)].duplicate();
+                segment.position((int) (index & (SEGMENT_SIZE - 1)));
+                int count = Math.min(length, segment.remaining());
+                segment.get(destination, offset, count);
+                index += count;
+                offset += count;
+                length -= count;
+            }
+        }
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    private static int padding(int position) {
+        return (8 - position % 8) % 8;
+    }
+}
@@ -1,5 +1,6 @@
 package miclustering.utils;
 
+import jclec.util.ComputeRuntime;
 import weka.core.DenseInstance;
 import weka.core.DistanceFunction;
 import weka.core.Instance;
@@ -19,19 +20,63 @@ public class DatasetCentroids {
         this.distanceFunction = distanceFunction;
     }
 
-    public Map<Integer, Instance> compute(List<Integer> clusterAssignments, boolean parallelize) {
+    public Map<Integer, Instance> compute(int[] clusterAssignments, boolean parallelize) {
+        BagSummary summary = BagSummary.of(dataset);
+        if (summary.isNumeric())
+            return computeFromSummary(clusterAssignments, summary, maxNumClusters);
         Map<Integer, Instances> clusters = createClusters(clusterAssignments);
         return getCentroids(clusters, parallelize);
     }
 
-    private Map<Integer, Instances> createClusters(List<Integer> clusterAssignments) {
+    /**
+     * Same centroids as {@link #computeCentroid(Instances)}, but adding the sums of each bag instead of copying all
+     * their instances. The summary must be numeric.
+     */
+    public static Map<Integer, Instance> computeFromSummary(int[] clusterAssignments, BagSummary summary, int maxNumClusters) {
+        int numAttributes = summary.numAttributes();
+        double[] sums = new double[maxNumClusters * numAttributes];
+        double[] weights = new double[maxNumClusters * numAttributes];
+        boolean[] empty = new boolean[maxNumClusters];
+        Arrays.fill(empty, true);
+        for (int i = 0; i < clusterAssignments.length; ++i) {
+            int cluster = clusterAssignments[i];
+            if (cluster < 0)
+                continue;
+            // computeCentroid starts from a copy of the first member and then adds all of them, so it is counted twice
+            int times = empty[cluster] ? 2 : 1;
+            empty[cluster] = false;
+            for (int a = 0; a < numAttributes; ++a) {
+                sums[cluster * numAttributes + a] += times * summary.sum(i, a);
+                weights[cluster * numAttributes + a] += times * summary.weight(i, a);
+            }
+        }
+
+        Map<Integer, Instance> centroids = new HashMap<>(maxNumClusters);
+        for (int c = 0; c < maxNumClusters; ++c) {
+            if (empty[c])
+                continue;
+            double[] means = new double[numAttributes];
+            for (int a = 0; a < numAttributes; ++a) {
+                double weight = weights[c * numAttributes + a];
+                means[a] = weight > 0 ? sums[c * numAttributes + a] / weight : 0D;
+            }
+            centroids.put(c, new DenseInstance(1.0D, means));
+        }
+        return centroids;
+    }
+
+    public Map<Integer, Instance> compute(List<Integer> clusterAssignments, boolean parallelize) {
+        return compute(clusterAssignments.stream().mapToInt(Integer::intValue).toArray(), parallelize);
+    }
+
+    private Map<Integer, Instances> createClusters(int[] clusterAssignments) {
         Map<Integer, Instances> bagsPerCluster = new HashMap<>(maxNumClusters);
         for (int cluster = 0; cluster < maxNumClusters; ++cluster) {
             bagsPerCluster.put(cluster, new Instances(dataset, 0));
         }
         for (int i = 0; i < dataset.numInstances(); ++i) {
-            if (clusterAssignments.get(i) > -1)
-                bagsPerCluster.get(clusterAssignments.get(i)).add(dataset.get(i));
+            if (clusterAssignments[i] > -1)
+                bagsPerCluster.get(clusterAssignments[i]).add(dataset.get(i));
         }
         return bagsPerCluster;
     }
@@ -40,14 +85,13 @@ public class DatasetCentroids {
         Map<Integer, Instance> centroids = new HashMap<>(maxNumClusters);
 
         if (parallelize) {
-            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
             Collection<Callable<Map<Integer, Instance>>> collection = new ArrayList<>(maxNumClusters);
             for (int i = 0; i < maxNumClusters; ++i) {
                 if (bagsPerCluster.get(i).numInstances() > 0)
                     collection.add(new ParallelizeComputeCentroid(i, bagsPerCluster.get(i)));
             }
             try {
-                List<Future<Map<Integer, Instance>>> futures = executor.invokeAll(collection);
+                List<Future<Map<Integer, Instance>>> futures = ComputeRuntime.invokeAll(ComputeRuntime.CLUSTERING, collection);
                 for (Future<Map<Integer, Instance>> future : futures) {
                     Map<Integer, Instance> result = future.get();
                     centroids.putAll(result);
@@ -55,7 +99,6 @@ public class DatasetCentroids {
             } catch (InterruptedException | ExecutionException e) {
                 e.printStackTrace();
             }
-            executor.shutdown();
         } else {
             for (int i = 0; i < maxNumClusters; ++i) {
                 if (bagsPerCluster.get(i).numInstances() > 0)
@@ -98,11 +141,11 @@ public class DatasetCentroids {
         return new DenseInstance(1.0D, means);
     }
 
-    public double[] distanceToCentroids(Map<Integer, Instance> centroids, int InstanceIdx) {
+    public double[] distanceToCentroids(Map<Integer, Instance> centroids, int bag) {
         double[] distances = new double[maxNumClusters];
         for (int i = 0; i < maxNumClusters; ++i) {
             if (centroids.containsKey(i))
-                distances[i] = distanceFunction.distance(dataset.get(i), centroids.get(i));
+                distances[i] = distanceFunction.distance(dataset.get(bag), centroids.get(i));
         }
         return distances;
     }
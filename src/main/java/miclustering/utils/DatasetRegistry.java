@@ -0,0 +1,89 @@
+package miclustering.utils;
+
+import miclustering.filters.MIStandardization;
+import weka.core.Instances;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Datasets loaded by path, read and standardized only once per JVM. The algorithms, the evaluators and the operators of
+ * the same experiment, and the successive experiments of a multi-dataset or multi-seed job, get the same Instances and
+ * so they also share its {@link BagStore}, {@link BagSummary} and distances matrices.
+ * <p>
+ * The datasets are shared, so they must not be modified. They are held by soft references, so that the ones that are no
+ * longer used can be released if memory runs out, and they are read again the next time they are requested.
+ */
+public class DatasetRegistry {
+    private static final Map<String, SoftReference<Instances>> datasets = new ConcurrentHashMap<>();
+    // Datasets are loaded holding only the lock of their key, so that different datasets can be loaded at the same time
+    private static final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Dataset of the file, with the class as the last attribute.
+     */
+    public static Instances get(String path) {
+        return get(path, "");
+    }
+
+    /**
+     * @param standardization "z1" (mean 0 and deviation 1) or "z5" (range [0, 1]) to standardize the instances of the
+     *                        bags with {@link MIStandardization}, empty to keep the original values.
+     */
+    public static Instances get(String path, String standardization) {
+        String key = key(path) + "|" + standardization;
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            SoftReference<Instances> reference = datasets.get(key);
+            Instances dataset = reference != null ? reference.get() : null;
+            if (dataset == null) {
+                dataset = load(path, standardization);
+                datasets.put(key, new SoftReference<>(dataset));
+            }
+            return dataset;
+        }
+    }
+
+    /**
+     * Forgets a dataset, together with the distances matrices cached for it.
+     */
+    public static void release(String path, String standardization) {
+        SoftReference<Instances> reference = datasets.remove(key(path) + "|" + standardization);
+        Instances dataset = reference != null ? reference.get() : null;
+        if (dataset != null)
+            BagDistanceCache.release(dataset);
+    }
+
+    public static void clear() {
+        datasets.clear();
+    }
+
+    private static Instances load(String path, String standardization) {
+        Instances dataset = ProcessDataset.read(path);
+        dataset.setClassIndex(dataset.numAttributes() - 1);
+        switch (standardization) {
+            case "":
+                break;
+            case "z1":
+                new MIStandardization().z1(dataset);
+                break;
+            case "z5":
+                new MIStandardization().z5(dataset);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown standardization " + standardization);
+        }
+        BagStore.of(dataset);
+        return dataset;
+    }
+
+    private static String key(String path) {
+        try {
+            return new File(path).getCanonicalPath();
+        } catch (IOException e) {
+            return new File(path).getAbsolutePath();
+        }
+    }
+}
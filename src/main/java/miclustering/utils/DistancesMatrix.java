@@ -1,8 +1,9 @@
 package miclustering.utils;
 
+import jclec.util.ComputeRuntime;
 import miclustering.distances.HausdorffDistance;
+import miclustering.distances.MIDistance;
 import weka.core.DistanceFunction;
-import weka.core.Instance;
 import weka.core.Instances;
 
 import java.util.ArrayList;
@@ -13,72 +14,108 @@ import java.util.concurrent.*;
 public class DistancesMatrix {
 
     private DistanceFunction distanceFunction;
-    private boolean isDistance = false;
+    private BagStore store;
 
-     public double[][] compute(Instances instances, DistanceFunction distanceFunction, boolean parallelize) {
-        int numBags = instances.numInstances();
-        this.distanceFunction = distanceFunction;
-        if (distanceFunction instanceof HausdorffDistance) {
-            // De momento sólo se ha implementado esa métrica que sea distancia, el resto son disimilaridades
-            if (((HausdorffDistance) distanceFunction).getType() == HausdorffDistance.MAXMIN)
-                isDistance = true;
-        }
+    public static boolean isDistance(DistanceFunction distanceFunction) {
+        // De momento sólo se ha implementado esa métrica que sea distancia, el resto son disimilaridades
+        return distanceFunction instanceof HausdorffDistance && ((HausdorffDistance) distanceFunction).getType() == HausdorffDistance.MAXMIN;
+    }
 
+    public double[][] compute(Instances instances, DistanceFunction distanceFunction, boolean parallelize) {
+        return compute(instances, distanceFunction, parallelize, false);
+    }
+
+    /**
+     * @param directed if true, every ordered pair is computed even for distances considered symmetric.
+     */
+    public double[][] compute(Instances instances, DistanceFunction distanceFunction, boolean parallelize, boolean directed) {
+        int numBags = instances.numInstances();
         double[][] distances = new double[numBags][numBags];
+        boolean isDistance = !directed && isDistance(distanceFunction);
+        compute(instances, distanceFunction, parallelize, new BagDistanceMatrix() {
+            @Override
+            public int numBags() {
+                return numBags;
+            }
 
-        if (parallelize) {
-            ExecutorService executor = Executors.newFixedThreadPool((int) (Runtime.getRuntime().availableProcessors() * 0.25));
-            Collection<Callable<Double[]>> collection = new ArrayList<>(numBags);
-            for (int i = 0; i < numBags; ++i) {
-                int init = isDistance ? i + 1 : 0;
-                for (int j = init; j < numBags; ++j) {
-                    if (i != j)
-                        collection.add(new Wrapper(instances.get(i), instances.get(j), i, j));
-                }
+            @Override
+            public boolean isSymmetric() {
+                return isDistance;
             }
-            try {
-                List<Future<Double[]>> futures = executor.invokeAll(collection);
-                for (Future<Double[]> future : futures) {
-                    Double[] result = future.get();
-                    distances[result[0].intValue()][result[1].intValue()] = result[2];
-                    if (isDistance)
-                        distances[result[1].intValue()][result[0].intValue()] = result[2];
-                }
-            } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
+
+            @Override
+            public double get(int i, int j) {
+                return distances[i][j];
             }
-            executor.shutdown();
-        }else {
-            for (int i = 0; i < numBags; ++i) {
-                int init = isDistance ? i + 1 : 0;
-                for (int j = init; j < numBags; ++j) {
-                    if (i != j) {
-                        distances[i][j] = distanceFunction.distance(instances.get(i), instances.get(j));
-                        if (isDistance)
-                            distances[j][i] = distances[i][j];
-                    }
-                }
+
+            @Override
+            public void set(int i, int j, double distance) {
+                distances[i][j] = distance;
+                if (isDistance)
+                    distances[j][i] = distance;
             }
+        });
+        return distances;
+    }
+
+    /**
+     * Fills {@code target} with the distances between every pair of bags. If the target is symmetric only the upper
+     * triangle is computed.
+     */
+    public void compute(Instances instances, DistanceFunction distanceFunction, boolean parallelize, BagDistanceMatrix target) {
+        int numBags = instances.numInstances();
+        this.distanceFunction = distanceFunction;
+        if (distanceFunction instanceof MIDistance)
+            store = BagStore.of(instances);
+
+        if (parallelize) {
+            Collection<Callable<Void>> collection = new ArrayList<>(numBags);
+            for (int i = 0; i < numBags; ++i)
+                collection.add(new Wrapper(instances, i, target));
+            try {
+                List<Future<Void>> futures = ComputeRuntime.invokeAll(ComputeRuntime.DISTANCES, collection);
+                for (Future<Void> future : futures)
+                    future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted computing distances matrix", e);
+            } catch (ExecutionException e) {
+                // A half-filled target must not be used, nor stored by the cache
+                throw new IllegalStateException("Error computing distances matrix", e.getCause());
+            }
+        } else {
+            for (int i = 0; i < numBags; ++i)
+                computeRow(instances, i, target);
         }
+    }
 
-        return distances;
+    private void computeRow(Instances instances, int i, BagDistanceMatrix target) {
+        int init = target.isSymmetric() ? i + 1 : 0;
+        for (int j = init; j < instances.numInstances(); ++j) {
+            if (i != j) {
+                double distance;
+                if (store != null)
+                    distance = ((MIDistance) distanceFunction).distance(store, i, j);
+                else
+                    distance = distanceFunction.distance(instances.get(i), instances.get(j));
+                target.set(i, j, distance);
+            }
+        }
     }
 
-    private class Wrapper implements Callable<Double[]> {
-        private final int aIdx;
-        private final int bIdx;
-        private final Instance a;
-        private final Instance b;
-        Wrapper(Instance a, Instance b, int aIdx, int bIdx) {
-            this.aIdx = aIdx;
-            this.bIdx = bIdx;
-            this.a = a;
-            this.b = b;
+    private class Wrapper implements Callable<Void> {
+        private final Instances instances;
+        private final int row;
+        private final BagDistanceMatrix target;
+        Wrapper(Instances instances, int row, BagDistanceMatrix target) {
+            this.instances = instances;
+            this.row = row;
+            this.target = target;
         }
         @Override
-        public Double[] call() throws Exception {
-            double distance = distanceFunction.distance(a, b);
-            return new Double[]{(double) aIdx, (double) bIdx, distance};
+        public Void call() throws Exception {
+            computeRow(instances, row, target);
+            return null;
         }
     }
 }
@@ -0,0 +1,218 @@
+package miclustering.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Off-heap bag distance matrix. Symmetric matrices only keep the strict upper triangle (the diagonal is always 0), and
+ * values can be stored as float to halve the memory again. The storage is split in segments of at most 1 GB so that
+ * matrices larger than a single ByteBuffer can be handled.
+ * <p>
+ * The storage is always a memory-mapped file, so the size of a matrix is not limited by the heap. A matrix can be
+ * backed by a named file: once written, it is reopened by later runs without parsing or recomputing anything. The
+ * file starts with a small header identifying the dataset and the distance used.
+ */
+public class PackedDistanceMatrix implements BagDistanceMatrix {
+    private static final int MAGIC = 0x4D49444D;
+    private static final int VERSION = 1;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final int numBags;
+    private final boolean symmetric;
+    private final boolean singlePrecision;
+    private final int valueSize;
+    private final ByteBuffer[] segments;
+    private File pending;
+    private File target;
+
+    private PackedDistanceMatrix(int numBags, boolean symmetric, boolean singlePrecision, ByteBuffer[] segments) {
+        this.numBags = numBags;
+        this.symmetric = symmetric;
+        this.singlePrecision = singlePrecision;
+        this.valueSize = singlePrecision ? Float.BYTES : Double.BYTES;
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a matrix mapped to an anonymous temporary file in {@code java.io.tmpdir}, which is deleted as soon as it
+     * is mapped. Its size is only limited by the free disk space, not by the heap nor by the direct memory limit, and
+     * the OS only writes its pages to disk when it runs short of memory.
+     */
+    public static PackedDistanceMatrix allocate(int numBags, boolean symmetric, boolean singlePrecision) throws IOException {
+        long bytes = numValues(numBags, symmetric) * (singlePrecision ? Float.BYTES : Double.BYTES);
+        File tmp = File.createTempFile("distances", ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.setLength(bytes);
+            return map(raf.getChannel(), FileChannel.MapMode.READ_WRITE, 0, bytes, numBags, symmetric, singlePrecision);
+        } finally {
+            // The mapping stays valid without the file (except on Windows, where it is deleted on exit)
+            if (!tmp.delete())
+                tmp.deleteOnExit();
+        }
+    }
+
+    /**
+     * Creates a matrix mapped to a temporary file next to {@code file}. It is moved to {@code file} by {@link #store}
+     * once all the values have been set, so a half-written matrix is never opened by another run.
+     */
+    public static PackedDistanceMatrix create(File file, int numBags, boolean symmetric, boolean singlePrecision,
+                                              long fingerprint, String distance) throws IOException {
+        byte[] description = distance.getBytes(StandardCharsets.UTF_8);
+        long dataOffset = headerSize(description.length);
+        long bytes = numValues(numBags, symmetric) * (singlePrecision ? Float.BYTES : Double.BYTES);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists() && !parent.mkdirs())
+            throw new IOException("Error creating directory " + parent);
+        File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+        tmp.deleteOnExit();
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.setLength(dataOffset + bytes);
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(numBags);
+            raf.writeBoolean(symmetric);
+            raf.writeBoolean(singlePrecision);
+            raf.writeShort(0);
+            raf.writeLong(fingerprint);
+            raf.writeInt(description.length);
+            raf.write(description);
+            PackedDistanceMatrix matrix = map(raf.getChannel(), FileChannel.MapMode.READ_WRITE, dataOffset, bytes, numBags, symmetric, singlePrecision);
+            matrix.pending = tmp;
+            matrix.target = file;
+            return matrix;
+        }
+    }
+
+    /**
+     * Opens a matrix previously stored with {@link #store}. Returns null if the file does not exist or it was
+     * computed for another dataset or distance.
+     */
+    public static PackedDistanceMatrix open(File file, long fingerprint, String distance) throws IOException {
+        if (!file.isFile())
+            return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < headerSize(0) || raf.readInt() != MAGIC || raf.readInt() != VERSION)
+                return null;
+            int numBags = raf.readInt();
+            boolean symmetric = raf.readBoolean();
+            boolean singlePrecision = raf.readBoolean();
+            raf.readShort();
+            long storedFingerprint = raf.readLong();
+            byte[] description = new byte[raf.readInt()];
+            raf.readFully(description);
+            if (storedFingerprint != fingerprint || !distance.equals(new String(description, StandardCharsets.UTF_8)))
+                return null;
+            long dataOffset = headerSize(description.length);
+            long bytes = numValues(numBags, symmetric) * (singlePrecision ? Float.BYTES : Double.BYTES);
+            if (raf.length() != dataOffset + bytes)
+                return null;
+            return map(raf.getChannel(), FileChannel.MapMode.READ_ONLY, dataOffset, bytes, numBags, symmetric, singlePrecision);
+        }
+    }
+
+    /**
+     * Flushes a matrix created with {@link #create} and moves it to its final location.
+     */
+    public void store() throws IOException {
+        if (pending == null)
+            return;
+        for (ByteBuffer segment : segments)
+            ((MappedByteBuffer) segment).force();
+        Files.move(pending.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pending = null;
+    }
+
+    /**
+     * Deletes the temporary file of a matrix created with {@link #create} that will not be stored.
+     */
+    public void discard() {
+        if (pending == null)
+            return;
+        if (!pending.delete())
+            pending.deleteOnExit();
+        pending = null;
+    }
+
+    private static PackedDistanceMatrix map(FileChannel channel, FileChannel.MapMode mode, long dataOffset, long bytes,
+                                            int numBags, boolean symmetric, boolean singlePrecision) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[numSegments(bytes)];
+        for (int i = 0; i < segments.length; ++i) {
+            long size = Math.min(SEGMENT_SIZE, bytes - i * SEGMENT_SIZE);
+            segments[i] = channel.map(mode, dataOffset + i * SEGMENT_SIZE, size).order(ByteOrder.nativeOrder());
+        }
+        return new PackedDistanceMatrix(numBags, symmetric, singlePrecision, segments);
+    }
+
+    private static long numValues(int numBags, boolean symmetric) {
+        long n = numBags;
+        return symmetric ? n * (n - 1) / 2 : n * n;
+    }
+
+    private static int numSegments(long bytes) {
+        return (int) Math.max(1, (bytes + SEGMENT_SIZE - 1) >> SEGMENT_SHIFT);
+    }
+
+    private static long headerSize(int descriptionLength) {
+        long size = 3 * Integer.BYTES + 4 + Long.BYTES + Integer.BYTES + descriptionLength;
+        return (size + 7) & ~7L;
+    }
+
+    private long offset(int i, int j) {
+        long index;
+        if (symmetric) {
+            long a = Math.min(i, j);
+            long b = Math.max(i, j);
+            index = a * (2L * numBags - a - 1) / 2 + (b - a - 1);
+        } else {
+            index = (long) i * numBags + j;
+        }
+        return index * valueSize;
+    }
+
+    @Override
+    public int numBags() {
+        return numBags;
+    }
+
+    @Override
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    public boolean isSinglePrecision() {
+        return singlePrecision;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (symmetric && i == j)
+            return 0D;
+        long offset = offset(i, j);
+        ByteBuffer segment = segments[(int) (offset >> SEGMENT_SHIFT)];
+        int position = (int) (offset & (SEGMENT_SIZE - 1));
+        return singlePrecision ? segment.getFloat(position) : segment.getDouble(position);
+    }
+
+    @Override
+    public void set(int i, int j, double distance) {
+        if (symmetric && i == j)
+            return;
+        long offset = offset(i, j);
+        ByteBuffer segment = segments[(int) (offset >> SEGMENT_SHIFT)];
+        int position = (int) (offset & (SEGMENT_SIZE - 1));
+        if (singlePrecision)
+            segment.putFloat(position, (float) distance);
+        else
+            segment.putDouble(position, distance);
+    }
+}
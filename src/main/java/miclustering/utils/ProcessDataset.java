@@ -1,5 +1,6 @@
 package miclustering.utils;
 
+import jclec.util.JobScheduler;
 import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
@@ -11,6 +12,44 @@ import java.io.*;
 import java.util.ArrayList;
 
 public class ProcessDataset {
+    /**
+     * Reads a dataset in ARFF or, if its extension is {@link BinaryDataset#EXTENSION}, in the binary format.
+     */
+    public static Instances read(String path) {
+        if (!path.endsWith(BinaryDataset.EXTENSION))
+            return readArff(path);
+        try {
+            return BinaryDataset.open(new File(path)).toInstances();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Path of the dataset with the given path without extension, preferring its binary version if it has been
+     * generated.
+     */
+    public static String datasetPath(String pathWithoutExtension) {
+        String binary = pathWithoutExtension + BinaryDataset.EXTENSION;
+        return new File(binary).exists() ? binary : pathWithoutExtension + ".arff";
+    }
+
+    /**
+     * Memory needed to load a dataset in ARFF or binary format and its distances matrix, as
+     * {@link JobScheduler#estimateDatasetMemory(File)}.
+     */
+    public static long estimateMemory(String path) {
+        File file = new File(path);
+        if (!path.endsWith(BinaryDataset.EXTENSION))
+            return JobScheduler.estimateDatasetMemory(file);
+        long bags = 0;
+        try {
+            bags = BinaryDataset.readNumBags(file);
+        } catch (IOException ignored) {
+        }
+        return 8 * file.length() + 8 * bags * bags;
+    }
+
     public static Instances readArff(String path) {
         ArffLoader.ArffReader arff = null;
         try {
@@ -0,0 +1,109 @@
+package miclustering.utils;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+
+/**
+ * A bag read by {@link BagStreamReader}, with its values in primitive arrays instead of a nested Instances, so that it
+ * can be discarded as soon as the sinks have processed it.
+ * <p>
+ * Nominal values are given by their index and missing values are NaN, as in Weka.
+ */
+public class StreamedBag {
+    private final int index;
+    private final double[] attributeValues;
+    private final double weight;
+    private final int numAttributes;
+    // Values of instance j and attribute k are at [j * numAttributes + k]
+    private final double[] values;
+    private final double[] instanceWeights;
+
+    /**
+     * @param attributeValues values of the attributes of the bag (bag id, class...). The value of the relational one is
+     *                        ignored.
+     */
+    public StreamedBag(int index, double[] attributeValues, double weight, int numAttributes, double[] values, double[] instanceWeights) {
+        this.index = index;
+        this.attributeValues = attributeValues;
+        this.weight = weight;
+        this.numAttributes = numAttributes;
+        this.values = values;
+        this.instanceWeights = instanceWeights;
+    }
+
+    /**
+     * Same bag with other instance values, keeping the rest.
+     */
+    public StreamedBag withValues(double[] values) {
+        return new StreamedBag(index, attributeValues, weight, numAttributes, values, instanceWeights);
+    }
+
+    /**
+     * Position of the bag in the dataset.
+     */
+    public int index() {
+        return index;
+    }
+
+    public double attributeValue(int attribute) {
+        return attributeValues[attribute];
+    }
+
+    public double weight() {
+        return weight;
+    }
+
+    public int numInstances() {
+        return instanceWeights.length;
+    }
+
+    public int numAttributes() {
+        return numAttributes;
+    }
+
+    public double value(int instance, int attribute) {
+        return values[instance * numAttributes + attribute];
+    }
+
+    /**
+     * Values of all the instances, row after row. It must not be modified.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    public double instanceWeight(int instance) {
+        return instanceWeights[instance];
+    }
+
+    /**
+     * The bag as a Weka Instance with the instances in the relational attribute 1, to be measured with the distances.
+     * It belongs to a dataset of its own, so that it does not grow the relational attribute of the header of the whole
+     * dataset, whose other attributes are replaced by numeric ones.
+     *
+     * @param header header of the dataset, as given by {@link BagStreamReader#getHeader()}.
+     */
+    public Instance toBag(Instances header) {
+        Instances relation = header.attribute(1).relation();
+        Instances instances = new Instances(relation, numInstances());
+        for (int j = 0; j < numInstances(); ++j) {
+            double[] row = new double[numAttributes];
+            System.arraycopy(values, j * numAttributes, row, 0, numAttributes);
+            instances.add(new DenseInstance(instanceWeights[j], row));
+        }
+
+        ArrayList<Attribute> attributes = new ArrayList<>(attributeValues.length);
+        for (int a = 0; a < attributeValues.length; ++a)
+            attributes.add(a == 1 ? new Attribute(header.attribute(a).name(), relation) : new Attribute(header.attribute(a).name()));
+        Instances dataset = new Instances(header.relationName(), attributes, 1);
+        double[] bagValues = attributeValues.clone();
+        bagValues[1] = dataset.attribute(1).addRelation(instances);
+        Instance bag = new DenseInstance(weight, bagValues);
+        dataset.add(bag);
+        return dataset.get(0);
+    }
+}